@@ -6,6 +6,7 @@ import com.ly.model_load.ModelManager;
 import com.ly.onnx.engine.InferenceEngine;
 import com.ly.onnx.model.ModelInfo;
 import com.ly.play.opencv.VideoPlayer;
+import com.ly.track.Trackers;
 
 import javax.swing.*;
 import javax.swing.filechooser.FileNameExtensionFilter;
@@ -132,6 +133,11 @@ public class VideoInferenceApp extends JFrame {
         controlPanel.add(rewind5sButton);
         controlPanel.add(fastForward5sButton);
 
+        // 快进、后退只定位到关键帧，适合快速浏览长视频
+        JCheckBox snapToKeyframeCheckBox = new JCheckBox("跳转对齐关键帧");
+        snapToKeyframeCheckBox.setSelected(false);
+        controlPanel.add(snapToKeyframeCheckBox);
+
         this.add(controlPanel, BorderLayout.SOUTH);
 
         // 顶部部分 - 视频和模型加载，流地址
@@ -160,6 +166,10 @@ public class VideoInferenceApp extends JFrame {
         JCheckBox trackingCheckBox = new JCheckBox("启用目标跟踪");
         trackingCheckBox.setSelected(false);  // 默认不启用目标跟踪
 
+        // 多模型并行推理复选框
+        JCheckBox parallelCheckBox = new JCheckBox("多模型并行推理");
+        parallelCheckBox.setSelected(false);
+
         // 将按钮和输入框添加到顶部面板
         topPanel.add(loadVideoButton);
         topPanel.add(loadImageButton); // 添加图片按钮
@@ -169,8 +179,38 @@ public class VideoInferenceApp extends JFrame {
         topPanel.add(startPlayButton);
         // 将复选框添加到顶部面板
         topPanel.add(trackingCheckBox);
-
-        this.add(topPanel, BorderLayout.NORTH);
+        topPanel.add(parallelCheckBox);
+
+        // 检测调度设置，下次开始播放时生效
+        JPanel detectionPanel = new JPanel(new FlowLayout(FlowLayout.LEFT, 10, 5));
+
+        // 跟踪器选择；byte 需要引擎给出低置信度框，界面加载的模型不提供，这里不列出
+        JComboBox<String> trackerComboBox = new JComboBox<>(new String[]{"iou", "sort", "simple"});
+        trackerComboBox.setToolTipText("隔帧检测时 sort 按运动预测框的位置，iou、simple 的框停在上一次检测处");
+
+        // 每多少帧检测一次，其余帧由跟踪器预测
+        JSpinner detectionIntervalSpinner = new JSpinner(new SpinnerNumberModel(1, 1, 30, 1));
+        JCheckBox adaptiveCheckBox = new JCheckBox("自适应检测");
+        adaptiveCheckBox.setToolTipText("出现新目标、目标丢失或置信度明显下降时提前检测");
+
+        // 运动检测阈值（变化像素占比），0 表示关闭
+        JSpinner motionThresholdSpinner = new JSpinner(new SpinnerNumberModel(0.0, 0.0, 0.1, 0.001));
+        motionThresholdSpinner.setEditor(new JSpinner.NumberEditor(motionThresholdSpinner, "0.000"));
+        motionThresholdSpinner.setToolTipText("变化像素占比低于该值的帧视为静止，跳过推理；0 表示关闭");
+
+        detectionPanel.add(new JLabel("跟踪器:"));
+        detectionPanel.add(trackerComboBox);
+        detectionPanel.add(new JLabel("检测间隔(帧):"));
+        detectionPanel.add(detectionIntervalSpinner);
+        detectionPanel.add(adaptiveCheckBox);
+        detectionPanel.add(new JLabel("运动阈值:"));
+        detectionPanel.add(motionThresholdSpinner);
+        detectionPanel.add(new JLabel("（检测间隔和运动阈值在下次开始播放时生效）"));
+
+        JPanel northPanel = new JPanel(new BorderLayout());
+        northPanel.add(topPanel, BorderLayout.NORTH);
+        northPanel.add(detectionPanel, BorderLayout.SOUTH);
+        this.add(northPanel, BorderLayout.NORTH);
 
         // 设置窗口属性
         this.setSize(1280, 720);
@@ -205,6 +245,23 @@ public class VideoInferenceApp extends JFrame {
             videoPlayer.setTrackingEnabled(isSelected);  // 设置是否启用目标跟踪
         });
 
+        // 动态切换多模型并行推理
+        parallelCheckBox.addActionListener(e -> videoPlayer.setParallelInference(parallelCheckBox.isSelected()));
+
+        // 更换跟踪器，下一帧起生效；原有目标编号随之重新分配
+        trackerComboBox.addActionListener(e -> videoPlayer.setTracker(Trackers.create((String) trackerComboBox.getSelectedItem())));
+
+        // 检测间隔和自适应检测一起设置
+        Runnable applyDetectionInterval = () -> videoPlayer.setDetectionInterval(
+                (Integer) detectionIntervalSpinner.getValue(), adaptiveCheckBox.isSelected());
+        detectionIntervalSpinner.addChangeListener(e -> applyDetectionInterval.run());
+        adaptiveCheckBox.addActionListener(e -> applyDetectionInterval.run());
+
+        motionThresholdSpinner.addChangeListener(e -> videoPlayer.setMotionThreshold((Double) motionThresholdSpinner.getValue()));
+
+        // 切换跳转方式，开启后在后台为当前视频建立关键帧索引
+        snapToKeyframeCheckBox.addActionListener(e -> videoPlayer.setSnapToKeyframe(snapToKeyframeCheckBox.isSelected()));
+
         // 播放按钮
         playButton.addActionListener(e -> {
             videoPlayer.playVideo();
@@ -7,19 +7,38 @@ import java.awt.image.BufferedImage;
 public class VideoPanel extends JPanel {
     private BufferedImage image;
 
-    public void updateImage(BufferedImage img) {
-        this.image = img;
+    // 绘制期间持有，保证换下的图像不再被绘制后才交还调用方复用
+    private final Object imageLock = new Object();
+
+    /**
+     * 显示新图像，返回被替换下来的图像；返回后面板不再读取它，调用方可以复用
+     */
+    public BufferedImage updateImage(BufferedImage img) {
+        BufferedImage previous;
+        synchronized (imageLock) {
+            previous = this.image;
+            this.image = img;
+        }
         repaint();
+        return previous;
     }
 
     public void clearImage() {
-        this.image = null;
+        synchronized (imageLock) {
+            this.image = null;
+        }
         repaint();
     }
 
     @Override
     protected void paintComponent(Graphics g) {
         super.paintComponent(g);
+        synchronized (imageLock) {
+            paintImage(g);
+        }
+    }
+
+    private void paintImage(Graphics g) {
         if (image != null) {
             Graphics2D g2d = (Graphics2D) g.create();
 
@@ -0,0 +1,105 @@
+package com.ly.onnx.engine;
+
+import com.ly.onnx.model.InferenceResult;
+import com.ly.onnx.preprocess.PreprocessedFrame;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+
+/**
+ * 跨调用方（如多路视频流）合批的多模型推理：每个共享的推理引擎前有一个 {@link MicroBatcher}，
+ * 不同线程同时提交的帧被合成一次批量推理，结果再按提交拆回各帧。
+ * <p>
+ * 一帧的所有模型先全部提交再等待，各模型的批次互不阻塞；每帧可带截止时刻，合批等待不会超出其延迟预算。
+ * 模型没有动态 batch 维度时退化为逐帧推理。
+ * <p>
+ * 某个模型失败或调用线程被中断时，先从其他合批器撤回该帧尚在排队的输入、等已被批次取走的推理结束再抛出异常，
+ * 调用方随后归还输入缓冲区时不会还有批次在读取。
+ */
+public class BatchingModelExecutor implements AutoCloseable {
+
+    private final int maxBatchSize;
+    private final long maxWaitMillis;
+
+    // 每个引擎一个合批器，按需创建；引擎的 equals/hashCode 随统计字段变化，按实例区分
+    private final Map<InferenceEngine, MicroBatcher> batchers = Collections.synchronizedMap(new IdentityHashMap<>());
+
+    public BatchingModelExecutor(int maxBatchSize, long maxWaitMillis) {
+        this.maxBatchSize = maxBatchSize;
+        this.maxWaitMillis = maxWaitMillis;
+    }
+
+    /**
+     * 推理一帧的所有模型，结果按帧内的模型顺序返回
+     *
+     * @param deadlineNanos 结果应就绪的 System.nanoTime() 时刻，Long.MAX_VALUE 表示只受最长等待时间约束
+     */
+    public List<InferenceResult> inferAll(PreprocessedFrame frame, long deadlineNanos) {
+        int engineCount = frame.getEngineCount();
+        List<CompletableFuture<InferenceResult>> futures = new ArrayList<>(engineCount);
+        for (int i = 0; i < engineCount; i++) {
+            futures.add(batcherFor(frame.getEngine(i)).submit(frame.getInput(i), deadlineNanos));
+        }
+        List<InferenceResult> results = new ArrayList<>(engineCount);
+        try {
+            for (CompletableFuture<InferenceResult> future : futures) {
+                results.add(future.get());
+            }
+        } catch (InterruptedException e) {
+            withdraw(futures);
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("等待批量推理结果时被中断", e);
+        } catch (ExecutionException e) {
+            withdraw(futures);
+            throw new RuntimeException("批量推理失败", e.getCause());
+        }
+        return results;
+    }
+
+    // 撤回尚未被批次取走的输入，并等待已取走的批次结束；期间的中断推迟到返回前恢复
+    private static void withdraw(List<CompletableFuture<InferenceResult>> futures) {
+        boolean interrupted = false;
+        for (CompletableFuture<InferenceResult> future : futures) {
+            if (future.cancel(false)) {
+                continue;
+            }
+            while (true) {
+                try {
+                    future.get();
+                    break;
+                } catch (InterruptedException e) {
+                    interrupted = true;
+                } catch (ExecutionException | CancellationException e) {
+                    break;
+                }
+            }
+        }
+        if (interrupted) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private MicroBatcher batcherFor(InferenceEngine engine) {
+        return batchers.computeIfAbsent(engine, key -> new MicroBatcher(key, maxBatchSize, maxWaitMillis));
+    }
+
+    public int getMaxBatchSize() {
+        return maxBatchSize;
+    }
+
+    @Override
+    public void close() {
+        synchronized (batchers) {
+            for (MicroBatcher batcher : batchers.values()) {
+                batcher.close();
+            }
+            batchers.clear();
+        }
+    }
+}
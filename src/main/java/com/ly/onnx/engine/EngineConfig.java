@@ -0,0 +1,86 @@
+package com.ly.onnx.engine;
+
+import ai.onnxruntime.OrtSession;
+import lombok.Data;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * 推理引擎配置：执行提供者顺序及 OrtSession.SessionOptions 的调优参数
+ */
+@Data
+public class EngineConfig {
+
+    // 执行提供者尝试顺序，前一个创建会话失败时回退到下一个
+    private List<ExecutionProvider> providers = new ArrayList<>(Arrays.asList(ExecutionProvider.CUDA, ExecutionProvider.CPU));
+
+    // CUDA 设备号
+    private int cudaDeviceId = 0;
+
+    // 单会话的模型共用进程级全局线程池（见 SharedEnvironment），多模型并行时避免线程数成倍增长；
+    // 全局线程池只按第一个配置创建一次，之后的配置给出的线程数不再生效
+    private boolean useGlobalThreadPools = true;
+
+    // 算子内并行线程数，0 表示使用 ONNX Runtime 默认值；启用全局线程池时为全局线程池的大小
+    private int intraOpNumThreads = 0;
+
+    // 算子间并行线程数，0 表示使用 ONNX Runtime 默认值（仅 PARALLEL 模式下生效）；启用全局线程池时同上
+    private int interOpNumThreads = 0;
+
+    // 每个模型的会话数。为 1 时多个线程共享同一会话（OrtSession.run 线程安全）；
+    // 大于 1 时每次推理独占租用一个会话，每个会话不用全局线程池而使用自己的算子线程，
+    // intraOpNumThreads 为 0 时取 CPU 核数 / 会话数，在多核 CPU 上并行处理多路。每个会话各加载一份权重
+    private int sessionPoolSize = 1;
+
+    private OrtSession.SessionOptions.ExecutionMode executionMode = OrtSession.SessionOptions.ExecutionMode.SEQUENTIAL;
+
+    private OrtSession.SessionOptions.OptLevel optimizationLevel = OrtSession.SessionOptions.OptLevel.ALL_OPT;
+
+    // 内存复用模式优化，输入形状固定时建议开启
+    private boolean memoryPatternOptimization = true;
+
+    // CPU 内存池（arena）分配器
+    private boolean cpuArenaAllocator = true;
+
+    // 检测框的置信度阈值，不低于该值的框作为检测结果
+    private float confidenceThreshold = 0.25f;
+
+    // 低置信度框的下限，大于 0 且小于 confidenceThreshold 时，[lowConfidenceThreshold, confidenceThreshold) 之间的框
+    // 在同一次解码和 NMS 中一并得到，单独放在 InferenceResult 的 lowConfidenceBoxes 中供跟踪器二次关联，不参与绘制
+    private float lowConfidenceThreshold = 0f;
+
+    // NMS 的 IoU 阈值
+    private float nmsIouThreshold = 0.5f;
+
+    // 为 true 时不区分类别做 NMS，不同类别的重叠框也会互相抑制
+    private boolean classAgnosticNms = false;
+
+    // 每帧最多保留的检测框数量，小于等于 0 表示不限制；启用低置信度框时两档分别限制
+    private int maxDetections = 300;
+
+    // 使用 Gaussian Soft-NMS 衰减重叠框的分数，而不是直接删除
+    private boolean softNms = false;
+
+    private float softNmsSigma = 0.5f;
+
+    // Soft-NMS 衰减后低于该分数的框被丢弃
+    private float softNmsScoreThreshold = 0.25f;
+
+    // 每帧打印推理耗时、NMS 耗时和检测结果，批量处理时应关闭
+    private boolean logPerFrame = true;
+
+    // 默认配置：优先 CUDA，失败时回退到 CPU
+    public static EngineConfig defaultConfig() {
+        return new EngineConfig();
+    }
+
+    // 仅使用 CPU 的配置，intraOpNumThreads 为 0 时由 ONNX Runtime 按物理核数决定
+    public static EngineConfig cpu(int intraOpNumThreads) {
+        EngineConfig config = new EngineConfig();
+        config.setProviders(new ArrayList<>(Arrays.asList(ExecutionProvider.CPU)));
+        config.setIntraOpNumThreads(intraOpNumThreads);
+        return config;
+    }
+}
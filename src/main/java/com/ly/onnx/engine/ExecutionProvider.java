@@ -0,0 +1,21 @@
+package com.ly.onnx.engine;
+
+import ai.onnxruntime.OrtProvider;
+
+/**
+ * 推理引擎支持的执行提供者，按 {@link EngineConfig#getProviders()} 中的顺序依次尝试
+ */
+public enum ExecutionProvider {
+    CUDA(OrtProvider.CUDA),
+    CPU(OrtProvider.CPU);
+
+    private final OrtProvider ortProvider;
+
+    ExecutionProvider(OrtProvider ortProvider) {
+        this.ortProvider = ortProvider;
+    }
+
+    public OrtProvider getOrtProvider() {
+        return ortProvider;
+    }
+}
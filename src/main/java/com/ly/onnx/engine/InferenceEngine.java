@@ -4,6 +4,11 @@ import ai.onnxruntime.*;
 import com.alibaba.fastjson.JSON;
 import com.ly.onnx.model.BoundingBox;
 import com.ly.onnx.model.InferenceResult;
+import com.ly.onnx.postprocess.DetectionBuffer;
+import com.ly.onnx.postprocess.DetectionDecoder;
+import com.ly.onnx.postprocess.NonMaximumSuppression;
+import com.ly.onnx.preprocess.LetterboxPlan;
+import com.ly.onnx.preprocess.PreprocessedInput;
 
 import lombok.Data;
 import org.opencv.core.*;
@@ -12,9 +17,13 @@ import org.opencv.imgproc.Imgproc;
 
 import java.nio.FloatBuffer;
 import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
 import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
 
 @Data
 public class InferenceEngine {
@@ -23,42 +32,125 @@ public class InferenceEngine {
     private OrtSession.SessionOptions sessionOptions;
     private OrtSession session;
 
+    // 会话池，session 为其中第一个会话
+    private SessionPool sessionPool;
+
     private String modelPath;
     private List<String> labels;
 
-    //preprocessParams输入数据的索引
-    private Integer index;
+    // 引擎配置（执行提供者顺序、线程数、优化级别等）
+    private EngineConfig config;
+
+    // 实际生效的执行提供者
+    private ExecutionProvider activeProvider;
+
+    // 推理次数及累计耗时（纳秒），用于按实测吞吐量评估节点
+    private long inferenceCount;
+    private long inferenceNanos;
+
+    // 模型初始化和预热完成后才参与推理
+    private volatile boolean ready;
+
+    // 异步初始化的结果，失败时保存异常供 awaitReady 抛出
+    private CompletableFuture<Void> initialization;
 
     // 用于存储图像预处理信息的类变量
     private long[] inputShape = null;
 
+    // 模型输入是否具有动态 batch 维度（为 true 时 inputShape[0] 被规整为 1，支持批量推理）
+    private boolean dynamicBatch;
+
+    // 模型的输入、输出名称（假设只有一个输入和一个输出）
+    private String inputName;
+    private String outputName;
+
+    // 根据输出形状选择的解码器
+    private DetectionDecoder decoder;
+
+    // 非极大值抑制，参数来自引擎配置
+    private NonMaximumSuppression nms;
+
+    // 每个推理线程复用的候选框缓冲区
+    private final ThreadLocal<DetectionBuffer> detectionBuffer = ThreadLocal.withInitial(DetectionBuffer::new);
+
+    // 单帧输入缓冲区池，预处理直接写入其中的直接内存
+    private InputBufferPool inputBufferPool;
+
+    // 批量推理时拼接输入用的缓冲区池，容量随批大小增长
+    private InputBufferPool batchBufferPool;
+
     static {
         nu.pattern.OpenCV.loadLocally();
     }
 
     public InferenceEngine(String modelPath, List<String> labels) {
+        this(modelPath, labels, EngineConfig.defaultConfig());
+    }
+
+    public InferenceEngine(String modelPath, List<String> labels, EngineConfig config) {
         this.modelPath = modelPath;
         this.labels = labels;
+        this.config = config;
+        // 启用低置信度档时 NMS 不截断，由后处理按档位分别截断，低置信度框不会挤掉检测结果
+        this.nms = new NonMaximumSuppression(config.getNmsIouThreshold(), !config.isClassAgnosticNms(),
+                isLowBandEnabled(config) ? 0 : config.getMaxDetections(),
+                config.isSoftNms(), config.getSoftNmsSigma(), config.getSoftNmsScoreThreshold());
         initAsync();
     }
     // 异步执行模型初始化
     public void initAsync() {
         ExecutorService executor = Executors.newSingleThreadExecutor();
-        executor.execute(()->{
+        initialization = CompletableFuture.runAsync(() -> {
             init();
             warmUp();
+            ready = true;
+        }, executor);
+        initialization.whenComplete((ignored, e) -> {
+            if (e != null) {
+                System.out.println("模型 " + modelPath + " 初始化失败：" + e.getCause());
+            }
         });
+        executor.shutdown();
+    }
+
+    // 阻塞直到模型初始化和预热完成，初始化失败时抛出异常
+    public void awaitReady() {
+        try {
+            initialization.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("等待模型初始化时被中断", e);
+        } catch (ExecutionException e) {
+            throw new RuntimeException("模型初始化失败：" + modelPath, e.getCause());
+        }
+    }
+
+    // 最多等待指定时间，超时返回 false
+    public boolean awaitReady(long timeout, TimeUnit unit) {
+        try {
+            initialization.get(timeout, unit);
+            return true;
+        } catch (TimeoutException e) {
+            return false;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("等待模型初始化时被中断", e);
+        } catch (ExecutionException e) {
+            throw new RuntimeException("模型初始化失败：" + modelPath, e.getCause());
+        }
     }
 
     public void warmUp() {
         // 提前执行一次空推理，用于初始化模型、CUDA上下文等
         try {
-            float[] dummyInput = new float[(int) inputShape[0] * (int) inputShape[1] * (int) inputShape[2] * (int) inputShape[3]];
-            OnnxTensor inputTensor = OnnxTensor.createTensor(environment, FloatBuffer.wrap(dummyInput), inputShape);
-            String inputName = session.getInputInfo().keySet().iterator().next();
-            // 执行空推理
-            session.run(Collections.singletonMap(inputName, inputTensor));
+            FloatBuffer dummyInput = inputBufferPool.acquire();
+            OnnxTensor inputTensor = OnnxTensor.createTensor(environment, dummyInput, inputShape);
+            // 对池中每个会话执行空推理
+            for (OrtSession pooledSession : sessionPool.getSessions()) {
+                pooledSession.run(Collections.singletonMap(inputName, inputTensor)).close();
+            }
             inputTensor.close();
+            inputBufferPool.release(dummyInput);
             System.out.println("预热推理完成，首次推理性能已优化。");
         } catch (Exception e) {
             throw new RuntimeException("模型预热失败", e);
@@ -67,161 +159,305 @@ public class InferenceEngine {
 
     public void init() {
         try {
-            environment = OrtEnvironment.getEnvironment();
-            sessionOptions = new OrtSession.SessionOptions();
-            sessionOptions.addCUDA(0); // 使用 GPU
-            session = environment.createSession(modelPath, sessionOptions);
+            environment = SharedEnvironment.get(config);
+            createSession();
+            createSessionPool();
             Map<String, NodeInfo> inputInfo = session.getInputInfo();
+            inputName = inputInfo.keySet().iterator().next();
+            outputName = session.getOutputInfo().keySet().iterator().next();
+            TensorInfo outputInfo = (TensorInfo) session.getOutputInfo().get(outputName).getInfo();
+            decoder = DetectionDecoder.select(outputInfo.getShape(), labels.size());
+            System.out.println("模型 " + modelPath + " 使用解码器：" + decoder);
             NodeInfo nodeInfo = inputInfo.values().iterator().next();
             TensorInfo tensorInfo = (TensorInfo) nodeInfo.getInfo();
             inputShape = tensorInfo.getShape(); // 从模型中获取输入形状
+            // 动态 batch 维度在模型信息中为 -1，单帧推理时按 1 处理
+            dynamicBatch = inputShape[0] <= 0;
+            if (dynamicBatch) {
+                inputShape = inputShape.clone();
+                inputShape[0] = 1;
+            }
+            inputBufferPool = InputBufferPool.forShape(inputShape);
             logModelInfo(session);
         } catch (OrtException e) {
             throw new RuntimeException("模型加载失败", e);
         }
     }
 
-    public InferenceResult infer(Map<Integer, Object> preprocessParams) {
-        long startTime = System.currentTimeMillis();
-        //获取对模型需要的输入大小
-        Map<String, Object> params = (Map<String, Object>) preprocessParams.get(index);
-        // 从 Map 中获取偏移相关的变量
-        float[] inputData = (float[]) params.get("inputData");
-        int origWidth = (int) params.get("origWidth");
-        int origHeight = (int) params.get("origHeight");
-        float scalingFactor = (float) params.get("scalingFactor");
-        int xOffset = (int) params.get("xOffset");
-        int yOffset = (int) params.get("yOffset");
-
-        try {
-            Map<String, NodeInfo> inputInfo = session.getInputInfo();
-            String inputName = inputInfo.keySet().iterator().next(); // 假设只有一个输入
+    // 按配置顺序尝试执行提供者，创建会话失败时回退到下一个
+    private void createSession() throws OrtException {
+        EnumSet<OrtProvider> availableProviders = OrtEnvironment.getAvailableProviders();
+        OrtException lastError = null;
+        for (ExecutionProvider provider : config.getProviders()) {
+            if (!availableProviders.contains(provider.getOrtProvider())) {
+                System.out.println("执行提供者不可用，跳过：" + provider);
+                continue;
+            }
+            OrtSession.SessionOptions options = new OrtSession.SessionOptions();
+            try {
+                applySessionOptions(options, provider);
+                session = environment.createSession(modelPath, options);
+                sessionOptions = options;
+                activeProvider = provider;
+                System.out.println("模型 " + modelPath + " 使用执行提供者：" + provider);
+                return;
+            } catch (OrtException e) {
+                options.close();
+                lastError = e;
+                System.out.println("执行提供者 " + provider + " 创建会话失败，尝试下一个：" + e.getMessage());
+            }
+        }
+        if (lastError != null) {
+            throw lastError;
+        }
+        throw new OrtException("没有可用的执行提供者：" + config.getProviders());
+    }
 
-            // 创建输入张量时，使用 CHW 格式的数据
-            OnnxTensor inputTensor = OnnxTensor.createTensor(environment, FloatBuffer.wrap(inputData), inputShape);
+    // 以首个会话实际生效的选项创建其余会话
+    private void createSessionPool() throws OrtException {
+        List<OrtSession> sessions = new ArrayList<>();
+        sessions.add(session);
+        for (int i = 1; i < config.getSessionPoolSize(); i++) {
+            sessions.add(environment.createSession(modelPath, sessionOptions));
+        }
+        sessionPool = new SessionPool(sessions);
+        System.out.println("模型 " + modelPath + " 会话数：" + sessions.size()
+                + (sessionPool.isShared() ? "（共享）" : "（独占租用，每个会话独立线程）"));
+    }
 
-            // 执行推理
-            long inferenceStart = System.currentTimeMillis();
-            OrtSession.Result result = session.run(Collections.singletonMap(inputName, inputTensor));
-            long inferenceEnd = System.currentTimeMillis();
-            System.out.println("模型推理耗时：" + (inferenceEnd - inferenceStart) + " ms");
-
-            // 解析推理结果
-            String outputName = session.getOutputInfo().keySet().iterator().next(); // 假设只有一个输出
-            float[][][] outputData = (float[][][]) result.get(outputName).get().getValue(); // 输出形状：[1, N, 6]
-
-            // 设定置信度阈值
-            float confidenceThreshold = 0.25f; // 您可以根据需要调整
-
-            // 根据模型的输出结果解析边界框
-            List<BoundingBox> boxes = new ArrayList<>();
-            for (float[] data : outputData[0]) { // 遍历所有检测框
-                // 根据模型输出格式，解析中心坐标和宽高
-                float x_center = data[0];
-                float y_center = data[1];
-                float width = data[2];
-                float height = data[3];
-                float confidence = data[4];
-
-                if (confidence >= confidenceThreshold) {
-                    // 将中心坐标转换为左上角和右下角坐标
-                    float x1 = x_center - width / 2;
-                    float y1 = y_center - height / 2;
-                    float x2 = x_center + width / 2;
-                    float y2 = y_center + height / 2;
-
-                    // 调整坐标，减去偏移并除以缩放因子
-                    float x1Adjusted = (x1 - xOffset) / scalingFactor;
-                    float y1Adjusted = (y1 - yOffset) / scalingFactor;
-                    float x2Adjusted = (x2 - xOffset) / scalingFactor;
-                    float y2Adjusted = (y2 - yOffset) / scalingFactor;
-
-                    // 确保坐标的正确顺序
-                    float xMinAdjusted = Math.min(x1Adjusted, x2Adjusted);
-                    float xMaxAdjusted = Math.max(x1Adjusted, x2Adjusted);
-                    float yMinAdjusted = Math.min(y1Adjusted, y2Adjusted);
-                    float yMaxAdjusted = Math.max(y1Adjusted, y2Adjusted);
-
-                    // 确保坐标在原始图像范围内
-                    int x = (int) Math.max(0, xMinAdjusted);
-                    int y = (int) Math.max(0, yMinAdjusted);
-                    int xMax = (int) Math.min(origWidth, xMaxAdjusted);
-                    int yMax = (int) Math.min(origHeight, yMaxAdjusted);
-                    int wBox = xMax - x;
-                    int hBox = yMax - y;
-
-                    // 仅当宽度和高度为正时，才添加边界框
-                    if (wBox > 0 && hBox > 0) {
-                        // 使用您的单一标签
-                        String label = labels.get(0);
-                        boxes.add(new BoundingBox(x, y, wBox, hBox, label, confidence));
-                    }
-                }
+    private void applySessionOptions(OrtSession.SessionOptions options, ExecutionProvider provider) throws OrtException {
+        if (provider == ExecutionProvider.CUDA) {
+            options.addCUDA(config.getCudaDeviceId());
+        }
+        if (config.getSessionPoolSize() > 1) {
+            // 多个会话同时推理时各用自己的线程，未指定线程数时按 CPU 核数平分；共用全局线程池只会多加载几份权重
+            int poolSize = config.getSessionPoolSize();
+            int intraOpThreads = config.getIntraOpNumThreads() > 0
+                    ? config.getIntraOpNumThreads()
+                    : Math.max(1, Runtime.getRuntime().availableProcessors() / poolSize);
+            options.setIntraOpNumThreads(intraOpThreads);
+            if (config.getInterOpNumThreads() > 0) {
+                options.setInterOpNumThreads(config.getInterOpNumThreads());
+            }
+        } else if (config.isUseGlobalThreadPools() && SharedEnvironment.hasGlobalThreadPools()) {
+            // 使用共享环境的全局线程池
+            options.disablePerSessionThreads();
+        } else {
+            if (config.getIntraOpNumThreads() > 0) {
+                options.setIntraOpNumThreads(config.getIntraOpNumThreads());
+            }
+            if (config.getInterOpNumThreads() > 0) {
+                options.setInterOpNumThreads(config.getInterOpNumThreads());
             }
+        }
+        options.setExecutionMode(config.getExecutionMode());
+        options.setOptimizationLevel(config.getOptimizationLevel());
+        options.setMemoryPatternOptimization(config.isMemoryPatternOptimization());
+        options.setCPUArenaAllocator(config.isCpuArenaAllocator());
+    }
 
-            // 非极大值抑制（NMS）
-            long nmsStart = System.currentTimeMillis();
-            List<BoundingBox> nmsBoxes = nonMaximumSuppression(boxes, 0.5f);
+    // 平均单次推理耗时（毫秒），尚未推理时返回 0
+    public synchronized double getAverageInferenceMillis() {
+        return inferenceCount == 0 ? 0 : inferenceNanos / 1_000_000.0 / inferenceCount;
+    }
 
-            System.out.println("检测到的标签：" + JSON.toJSONString(nmsBoxes));
-            if (!nmsBoxes.isEmpty()) {
-                for (BoundingBox box : nmsBoxes) {
-                    System.out.println(box);
+    private synchronized void recordInference(long nanos) {
+        inferenceCount++;
+        inferenceNanos += nanos;
+    }
+
+    public InferenceResult infer(PreprocessedInput input) {
+        long startTime = System.currentTimeMillis();
+        FloatBuffer inputData = input.getData();
+
+        // 创建输入张量时，使用 CHW 格式的数据；直接内存缓冲区不会被再次拷贝
+        try (OnnxTensor inputTensor = OnnxTensor.createTensor(environment, inputData.duplicate(), inputShape)) {
+            // 执行推理
+            long inferenceStart = System.nanoTime();
+            try (SessionPool.Lease lease = sessionPool.lease();
+                 OrtSession.Result result = lease.getSession().run(Collections.singletonMap(inputName, inputTensor))) {
+                long inferenceNanos = System.nanoTime() - inferenceStart;
+                recordInference(inferenceNanos);
+                if (config.isLogPerFrame()) {
+                    System.out.println("模型推理耗时：" + inferenceNanos / 1_000_000 + " ms（" + activeProvider + "）");
                 }
-            }
-            long nmsEnd = System.currentTimeMillis();
-            System.out.println("NMS 耗时：" + (nmsEnd - nmsStart) + " ms");
 
-            // 封装结果并返回
-            InferenceResult inferenceResult = new InferenceResult();
-            inferenceResult.setBoundingBoxes(nmsBoxes);
+                // 解析推理结果，单帧输出形状由解码器解释：[N, 5+C] 或 [4+C, N]
+                OnnxTensor outputTensor = (OnnxTensor) result.get(outputName).get();
+                long[] outputShape = outputTensor.getInfo().getShape();
+                // getFloatBuffer() 返回输出的一份完整堆拷贝而不是视图（YOLOv8 84×8400 约 2.7 MB/帧），
+                // 只省掉了 getValue() 逐行构造 float[][][] 的开销
+                FloatBuffer outputData = outputTensor.getFloatBuffer();
 
-            long endTime = System.currentTimeMillis();
-            System.out.println("一次推理总耗时：" + (endTime - startTime) + " ms");
+                InferenceResult inferenceResult = postprocess(outputData, 0, (int) outputShape[1], (int) outputShape[2], input.getPlan());
 
-            return inferenceResult;
+                long endTime = System.currentTimeMillis();
+                if (config.isLogPerFrame()) {
+                    System.out.println("一次推理总耗时：" + (endTime - startTime) + " ms");
+                }
 
+                return inferenceResult;
+            }
         } catch (OrtException e) {
             throw new RuntimeException("推理失败", e);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("等待推理会话时被中断", e);
         }
     }
 
+    /**
+     * 批量推理：将多帧的输入拼接为一个 [N,3,H,W] 张量执行一次 session.run，
+     * 再按每帧各自的缩放和偏移信息拆分结果。模型没有动态 batch 维度时逐帧推理。
+     */
+    public List<InferenceResult> inferBatch(List<PreprocessedInput> batch) {
+        List<InferenceResult> results = new ArrayList<>(batch.size());
+        if (!dynamicBatch || batch.size() == 1) {
+            for (PreprocessedInput input : batch) {
+                results.add(infer(input));
+            }
+            return results;
+        }
 
-    // 计算两个边界框的 IoU
-    private float computeIoU(BoundingBox box1, BoundingBox box2) {
-        int x1 = Math.max(box1.getX(), box2.getX());
-        int y1 = Math.max(box1.getY(), box2.getY());
-        int x2 = Math.min(box1.getX() + box1.getWidth(), box2.getX() + box2.getWidth());
-        int y2 = Math.min(box1.getY() + box1.getHeight(), box2.getY() + box2.getHeight());
-
-        int intersectionArea = Math.max(0, x2 - x1) * Math.max(0, y2 - y1);
-        int box1Area = box1.getWidth() * box1.getHeight();
-        int box2Area = box2.getWidth() * box2.getHeight();
+        long startTime = System.currentTimeMillis();
+        int batchSize = batch.size();
+        int frameSize = (int) (inputShape[1] * inputShape[2] * inputShape[3]);
+        InputBufferPool stagingPool = batchBufferPool(frameSize * batchSize);
+        FloatBuffer batchData = stagingPool.acquire();
+        for (PreprocessedInput input : batch) {
+            FloatBuffer inputData = input.getData().duplicate();
+            inputData.clear().limit(frameSize);
+            batchData.put(inputData);
+        }
+        batchData.flip();
+        long[] batchShape = inputShape.clone();
+        batchShape[0] = batchSize;
+
+        try (OnnxTensor inputTensor = OnnxTensor.createTensor(environment, batchData, batchShape)) {
+            long inferenceStart = System.nanoTime();
+            try (SessionPool.Lease lease = sessionPool.lease();
+                 OrtSession.Result result = lease.getSession().run(Collections.singletonMap(inputName, inputTensor))) {
+                long inferenceNanos = System.nanoTime() - inferenceStart;
+                recordInference(inferenceNanos);
+                if (config.isLogPerFrame()) {
+                    System.out.println("批量推理耗时：" + inferenceNanos / 1_000_000 + " ms，批大小：" + batchSize + "（" + activeProvider + "）");
+                }
 
-        return (float) intersectionArea / (box1Area + box2Area - intersectionArea);
+                // 输出形状：[B, D1, D2]，第 i 帧的数据从 i * D1 * D2 开始
+                OnnxTensor outputTensor = (OnnxTensor) result.get(outputName).get();
+                long[] outputShape = outputTensor.getInfo().getShape();
+                // 同单帧推理，整批输出拷贝一次
+                FloatBuffer outputData = outputTensor.getFloatBuffer();
+                int dim1 = (int) outputShape[1];
+                int dim2 = (int) outputShape[2];
+                for (int i = 0; i < batchSize; i++) {
+                    results.add(postprocess(outputData, i * dim1 * dim2, dim1, dim2, batch.get(i).getPlan()));
+                }
+            }
+            if (config.isLogPerFrame()) {
+                System.out.println("一次批量推理总耗时：" + (System.currentTimeMillis() - startTime) + " ms");
+            }
+            return results;
+        } catch (OrtException e) {
+            throw new RuntimeException("批量推理失败", e);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("等待推理会话时被中断", e);
+        } finally {
+            stagingPool.release(batchData);
+        }
     }
 
-    // 非极大值抑制（NMS）方法
-    private List<BoundingBox> nonMaximumSuppression(List<BoundingBox> boxes, float iouThreshold) {
-        // 按置信度排序（从高到低）
-        boxes.sort((a, b) -> Float.compare(b.getConfidence(), a.getConfidence()));
-
-        List<BoundingBox> result = new ArrayList<>();
+    // 获取容量不小于 size 的批量缓冲区池，批大小变大时重建
+    private synchronized InputBufferPool batchBufferPool(int size) {
+        if (batchBufferPool == null || batchBufferPool.getCapacity() < size) {
+            batchBufferPool = new InputBufferPool(size);
+        }
+        return batchBufferPool;
+    }
 
-        while (!boxes.isEmpty()) {
-            BoundingBox bestBox = boxes.remove(0);
-            result.add(bestBox);
+    /**
+     * 解析单帧的检测结果，由按输出布局选出的解码器从输出的 FloatBuffer 拷贝中读取候选框，
+     * 再按该帧的缩放和偏移还原到原图坐标并执行 NMS。
+     */
+    private InferenceResult postprocess(FloatBuffer output, int base, int dim1, int dim2, LetterboxPlan plan) {
+        int origWidth = plan.getSourceWidth();
+        int origHeight = plan.getSourceHeight();
+        float scalingFactor = plan.getScalingFactor();
+        int xOffset = plan.getXOffset();
+        int yOffset = plan.getYOffset();
+
+        // 设定置信度阈值，启用低置信度框时按下限解码，一次解码和 NMS 同时得到两档
+        float confidenceThreshold = config.getConfidenceThreshold();
+        float lowConfidenceThreshold = config.getLowConfidenceThreshold();
+        boolean lowBand = isLowBandEnabled(config);
+        int maxDetections = config.getMaxDetections() > 0 ? config.getMaxDetections() : Integer.MAX_VALUE;
+
+        DetectionBuffer candidates = detectionBuffer.get();
+        candidates.clear();
+        decoder.decode(output, base, dim1, dim2, lowBand ? lowConfidenceThreshold : confidenceThreshold, candidates);
+
+        // 非极大值抑制（NMS），在模型输入坐标系下对结构数组执行，只为保留的框创建对象
+        long nmsStart = System.currentTimeMillis();
+        int[] kept = nms.apply(candidates);
+        long nmsEnd = System.currentTimeMillis();
+        if (config.isLogPerFrame()) {
+            System.out.println("NMS 耗时：" + (nmsEnd - nmsStart) + " ms，候选框：" + candidates.size() + "，保留：" + kept.length);
+        }
 
-            Iterator<BoundingBox> iterator = boxes.iterator();
-            while (iterator.hasNext()) {
-                BoundingBox box = iterator.next();
-                if (computeIoU(bestBox, box) > iouThreshold) {
-                    iterator.remove();
+        // 根据保留的框生成边界框；按解码时的分数划分档位，Soft-NMS 衰减过的检测框仍属于检测结果，两档各自截断
+        List<BoundingBox> nmsBoxes = new ArrayList<>(kept.length);
+        List<BoundingBox> lowConfidenceBoxes = new ArrayList<>();
+        for (int i : kept) {
+            // 调整坐标，减去偏移并除以缩放因子
+            float xMinAdjusted = (candidates.x1(i) - xOffset) / scalingFactor;
+            float yMinAdjusted = (candidates.y1(i) - yOffset) / scalingFactor;
+            float xMaxAdjusted = (candidates.x2(i) - xOffset) / scalingFactor;
+            float yMaxAdjusted = (candidates.y2(i) - yOffset) / scalingFactor;
+
+            // 确保坐标在原始图像范围内
+            int x = (int) Math.max(0, xMinAdjusted);
+            int y = (int) Math.max(0, yMinAdjusted);
+            int xMax = (int) Math.min(origWidth, xMaxAdjusted);
+            int yMax = (int) Math.min(origHeight, yMaxAdjusted);
+            int wBox = xMax - x;
+            int hBox = yMax - y;
+
+            // 仅当宽度和高度为正时，才添加边界框
+            if (wBox > 0 && hBox > 0) {
+                boolean high = candidates.rawScore(i) >= confidenceThreshold;
+                List<BoundingBox> band = high ? nmsBoxes : lowConfidenceBoxes;
+                if (band.size() < maxDetections) {
+                    band.add(new BoundingBox(x, y, wBox, hBox, labelOf(candidates.classId(i)), candidates.score(i)));
                 }
             }
         }
 
-        return result;
+        if (config.isLogPerFrame()) {
+            System.out.println("检测到的标签：" + JSON.toJSONString(nmsBoxes));
+        }
+        if (config.isLogPerFrame() && !nmsBoxes.isEmpty()) {
+            for (BoundingBox box : nmsBoxes) {
+                System.out.println(box);
+            }
+        }
+
+        // 封装结果并返回
+        InferenceResult inferenceResult = new InferenceResult();
+        inferenceResult.setBoundingBoxes(nmsBoxes);
+        inferenceResult.setLowConfidenceBoxes(lowConfidenceBoxes);
+        return inferenceResult;
+    }
+
+
+    // 低置信度下限大于 0 且小于检测阈值时，额外给出低置信度框
+    private static boolean isLowBandEnabled(EngineConfig config) {
+        float low = config.getLowConfidenceThreshold();
+        return low > 0 && low < config.getConfidenceThreshold();
+    }
+
+    private String labelOf(int classId) {
+        return classId < labels.size() ? labels.get(classId) : String.valueOf(classId);
     }
 
     // 打印模型信息
@@ -254,4 +490,20 @@ public class InferenceEngine {
         return this.modelPath;
     }
 
+    // 释放会话池中的所有会话，之后不能再推理
+    public void close() {
+        ready = false;
+        try {
+            if (sessionPool != null) {
+                sessionPool.close();
+            }
+        } catch (OrtException e) {
+            throw new RuntimeException("关闭推理会话失败", e);
+        } finally {
+            if (sessionOptions != null) {
+                sessionOptions.close();
+            }
+        }
+    }
+
 }
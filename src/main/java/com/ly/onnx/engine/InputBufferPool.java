@@ -0,0 +1,64 @@
+package com.ly.onnx.engine;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.FloatBuffer;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 可复用的直接内存 FloatBuffer 池。
+ * 直接内存且为本机字节序的 FloatBuffer 可被 OnnxTensor.createTensor 直接引用，无需再拷贝到本地内存，
+ * 因此预处理结果写入池中缓冲区后即可零拷贝地创建输入张量。
+ */
+public class InputBufferPool {
+
+    // 每个缓冲区可容纳的 float 数量
+    private final int capacity;
+
+    private final ConcurrentLinkedQueue<FloatBuffer> freeBuffers = new ConcurrentLinkedQueue<>();
+
+    // 累计分配的缓冲区数量，稳定运行后应不再增长
+    private final AtomicInteger allocatedCount = new AtomicInteger();
+
+    public InputBufferPool(int capacity) {
+        this.capacity = capacity;
+    }
+
+    // 根据模型输入形状计算单帧所需容量
+    public static InputBufferPool forShape(long[] shape) {
+        long size = 1;
+        for (long dim : shape) {
+            size *= dim;
+        }
+        return new InputBufferPool((int) size);
+    }
+
+    // 取出一个缓冲区，position 为 0，limit 为 capacity
+    public FloatBuffer acquire() {
+        FloatBuffer buffer = freeBuffers.poll();
+        if (buffer == null) {
+            buffer = ByteBuffer.allocateDirect(capacity * Float.BYTES)
+                    .order(ByteOrder.nativeOrder())
+                    .asFloatBuffer();
+            allocatedCount.incrementAndGet();
+        }
+        buffer.clear();
+        return buffer;
+    }
+
+    // 归还缓冲区，容量不匹配的缓冲区直接丢弃
+    public void release(FloatBuffer buffer) {
+        if (buffer != null && buffer.capacity() == capacity) {
+            freeBuffers.offer(buffer);
+        }
+    }
+
+    public int getCapacity() {
+        return capacity;
+    }
+
+    public int getAllocatedCount() {
+        return allocatedCount.get();
+    }
+}
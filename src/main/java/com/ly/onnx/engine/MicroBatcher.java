@@ -0,0 +1,181 @@
+package com.ly.onnx.engine;
+
+import com.ly.onnx.model.InferenceResult;
+import com.ly.onnx.preprocess.PreprocessedInput;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * 推理引擎的微批处理前端：调用方提交单帧预处理结果，调度线程将其攒成一批后调用
+ * {@link InferenceEngine#inferBatch(List)}，再把各帧的结果分别交还给调用方。
+ * 批次在达到 maxBatchSize 或最早一帧等待超过 maxWaitMillis 时切分。
+ * <p>
+ * 调用方可以为每帧指定结果截止时刻（如各路流的延迟预算），批次最晚在
+ * “批内最早截止时刻 - 预计推理耗时”时切分，等待凑批不会让任何一帧超出预算。
+ * <p>
+ * 返回的 future 在该帧被批次取走之前可以 {@code cancel}，取消成功后不会再读取其输入；
+ * 取消失败说明输入可能正在被读取，调用方应等 future 结束后再归还输入缓冲区。
+ */
+public class MicroBatcher implements AutoCloseable {
+
+    private final InferenceEngine engine;
+    private final int maxBatchSize;
+    private final long maxWaitNanos;
+
+    private final BlockingQueue<PendingFrame> pendingQueue = new LinkedBlockingQueue<>();
+    private final Thread dispatchThread;
+    private volatile boolean running = true;
+
+    public MicroBatcher(InferenceEngine engine, int maxBatchSize, long maxWaitMillis) {
+        if (maxBatchSize < 1) {
+            throw new IllegalArgumentException("maxBatchSize 必须大于 0：" + maxBatchSize);
+        }
+        this.engine = engine;
+        this.maxBatchSize = maxBatchSize;
+        this.maxWaitNanos = TimeUnit.MILLISECONDS.toNanos(maxWaitMillis);
+        this.dispatchThread = new Thread(this::dispatchLoop, "micro-batcher-" + engine.getModelPath());
+        this.dispatchThread.setDaemon(true);
+        this.dispatchThread.start();
+    }
+
+    // 提交一帧的模型输入，返回该帧的推理结果
+    public CompletableFuture<InferenceResult> submit(PreprocessedInput input) {
+        return submit(input, Long.MAX_VALUE);
+    }
+
+    /**
+     * 提交一帧的模型输入，并要求其结果在 deadlineNanos（System.nanoTime() 时刻）之前就绪
+     */
+    public CompletableFuture<InferenceResult> submit(PreprocessedInput input, long deadlineNanos) {
+        PendingFrame frame = new PendingFrame(input, System.nanoTime(), deadlineNanos);
+        if (!running) {
+            frame.completeExceptionally(new IllegalStateException("MicroBatcher 已关闭"));
+            return frame;
+        }
+        pendingQueue.add(frame);
+        return frame;
+    }
+
+    private void dispatchLoop() {
+        List<PendingFrame> batch = new ArrayList<>(maxBatchSize);
+        try {
+            while (running) {
+                PendingFrame first = pendingQueue.poll(100, TimeUnit.MILLISECONDS);
+                if (first == null || !first.take()) {
+                    continue;
+                }
+                batch.add(first);
+                // 模型不支持动态 batch 时不必等待，直接逐帧推理
+                int limit = engine.isDynamicBatch() ? maxBatchSize : 1;
+                long estimatedRunNanos = (long) (engine.getAverageInferenceMillis() * 1_000_000);
+                long dispatchAt = dispatchTime(first, estimatedRunNanos);
+                while (batch.size() < limit) {
+                    long remaining = dispatchAt - System.nanoTime();
+                    PendingFrame next = remaining > 0
+                            ? pendingQueue.poll(remaining, TimeUnit.NANOSECONDS)
+                            : pendingQueue.poll();
+                    if (next == null) {
+                        break;
+                    }
+                    if (!next.take()) {
+                        continue;
+                    }
+                    batch.add(next);
+                    dispatchAt = Math.min(dispatchAt, dispatchTime(next, estimatedRunNanos));
+                }
+                runBatch(batch);
+                batch.clear();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            failPending(batch);
+        }
+    }
+
+    // 一帧允许的最晚切分时刻：不超过最长等待时间，并为推理本身留出时间
+    private long dispatchTime(PendingFrame frame, long estimatedRunNanos) {
+        long byWait = frame.enqueueNanos + maxWaitNanos;
+        if (frame.deadlineNanos == Long.MAX_VALUE) {
+            return byWait;
+        }
+        return Math.min(byWait, frame.deadlineNanos - estimatedRunNanos);
+    }
+
+    private void runBatch(List<PendingFrame> batch) {
+        List<PreprocessedInput> inputs = new ArrayList<>(batch.size());
+        for (PendingFrame frame : batch) {
+            inputs.add(frame.input);
+        }
+        try {
+            List<InferenceResult> results = engine.inferBatch(inputs);
+            for (int i = 0; i < batch.size(); i++) {
+                batch.get(i).complete(results.get(i));
+            }
+        } catch (RuntimeException e) {
+            for (PendingFrame frame : batch) {
+                frame.completeExceptionally(e);
+            }
+        }
+    }
+
+    private void failPending(List<PendingFrame> batch) {
+        IllegalStateException closed = new IllegalStateException("MicroBatcher 已关闭");
+        for (PendingFrame frame : batch) {
+            frame.completeExceptionally(closed);
+        }
+        PendingFrame frame;
+        while ((frame = pendingQueue.poll()) != null) {
+            frame.completeExceptionally(closed);
+        }
+    }
+
+    @Override
+    public void close() {
+        running = false;
+        dispatchThread.interrupt();
+        try {
+            dispatchThread.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        // 关闭过程中仍可能有帧入队，统一以异常结束
+        failPending(new ArrayList<>());
+    }
+
+    public int getMaxBatchSize() {
+        return maxBatchSize;
+    }
+
+    // 等待推理的帧，同时也是交给调用方的结果
+    private static class PendingFrame extends CompletableFuture<InferenceResult> {
+        final PreprocessedInput input;
+        final long enqueueNanos;
+        final long deadlineNanos;
+        // 调度线程取走该帧与调用方取消互斥，二者只有一个能成功
+        private final AtomicBoolean claimed = new AtomicBoolean();
+
+        PendingFrame(PreprocessedInput input, long enqueueNanos, long deadlineNanos) {
+            this.input = input;
+            this.enqueueNanos = enqueueNanos;
+            this.deadlineNanos = deadlineNanos;
+        }
+
+        // 调度线程把该帧放入批次前调用，已被取消时返回 false
+        boolean take() {
+            return claimed.compareAndSet(false, true);
+        }
+
+        // 只能在被批次取走之前取消；之后返回 false，输入可能正在被读取
+        @Override
+        public boolean cancel(boolean mayInterruptIfRunning) {
+            return claimed.compareAndSet(false, true) && super.cancel(mayInterruptIfRunning);
+        }
+    }
+}
@@ -0,0 +1,139 @@
+package com.ly.onnx.engine;
+
+import com.ly.onnx.model.InferenceResult;
+import com.ly.onnx.preprocess.PreprocessedFrame;
+import com.ly.onnx.preprocess.PreprocessedInput;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 对一帧执行所有模型的推理。
+ * 并行模式下各模型的会话相互独立，同时提交到有界线程池，帧延迟从各模型耗时之和降为最慢的那个；
+ * 结果始终按帧内的模型顺序返回，保证绘制颜色与模型对应关系稳定。
+ * <p>
+ * 某个模型失败或调用线程被中断时，先放弃尚未开始的模型、等已开始的模型结束再抛出异常，
+ * 调用方随后归还输入缓冲区时不会还有推理线程在读取。
+ */
+public class MultiModelExecutor implements AutoCloseable {
+
+    private final ExecutorService executor;
+    private volatile boolean parallel;
+
+    public MultiModelExecutor(int maxConcurrentModels) {
+        AtomicInteger threadIndex = new AtomicInteger();
+        this.executor = Executors.newFixedThreadPool(Math.max(1, maxConcurrentModels), runnable -> {
+            Thread thread = new Thread(runnable, "model-inference-" + threadIndex.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    // 默认并发数：不超过 CPU 核数的一半，算子内并行仍需要核心
+    public static MultiModelExecutor withDefaultConcurrency() {
+        return new MultiModelExecutor(Math.max(2, Runtime.getRuntime().availableProcessors() / 2));
+    }
+
+    public List<InferenceResult> inferAll(PreprocessedFrame frame) {
+        int engineCount = frame.getEngineCount();
+        List<InferenceResult> results = new ArrayList<>(engineCount);
+        if (!parallel || engineCount <= 1) {
+            for (int i = 0; i < engineCount; i++) {
+                results.add(frame.getEngine(i).infer(frame.getInput(i)));
+            }
+            return results;
+        }
+
+        List<ModelTask> tasks = new ArrayList<>(engineCount);
+        List<Future<InferenceResult>> futures = new ArrayList<>(engineCount);
+        for (int i = 0; i < engineCount; i++) {
+            ModelTask task = new ModelTask(frame.getEngine(i), frame.getInput(i));
+            tasks.add(task);
+            futures.add(executor.submit(task));
+        }
+        try {
+            for (Future<InferenceResult> future : futures) {
+                results.add(future.get());
+            }
+        } catch (InterruptedException e) {
+            awaitStarted(tasks, futures);
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("并行推理被中断", e);
+        } catch (ExecutionException e) {
+            awaitStarted(tasks, futures);
+            throw new RuntimeException("并行推理失败", e.getCause());
+        }
+        return results;
+    }
+
+    // 放弃尚未开始的模型，并等待已开始的模型结束；期间的中断推迟到返回前恢复
+    private static void awaitStarted(List<ModelTask> tasks, List<Future<InferenceResult>> futures) {
+        boolean interrupted = false;
+        for (int i = 0; i < tasks.size(); i++) {
+            if (tasks.get(i).abandon()) {
+                continue;
+            }
+            while (true) {
+                try {
+                    futures.get(i).get();
+                    break;
+                } catch (InterruptedException e) {
+                    interrupted = true;
+                } catch (ExecutionException e) {
+                    break;
+                }
+            }
+        }
+        if (interrupted) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    public boolean isParallel() {
+        return parallel;
+    }
+
+    public void setParallel(boolean parallel) {
+        this.parallel = parallel;
+    }
+
+    @Override
+    public void close() {
+        executor.shutdownNow();
+    }
+
+    // 一个模型的推理任务，开始执行前可以放弃，放弃后不会再读取输入
+    private static final class ModelTask implements Callable<InferenceResult> {
+        private static final int PENDING = 0;
+        private static final int STARTED = 1;
+        private static final int ABANDONED = 2;
+
+        private final InferenceEngine engine;
+        private final PreprocessedInput input;
+        private final AtomicInteger state = new AtomicInteger(PENDING);
+
+        ModelTask(InferenceEngine engine, PreprocessedInput input) {
+            this.engine = engine;
+            this.input = input;
+        }
+
+        @Override
+        public InferenceResult call() {
+            if (!state.compareAndSet(PENDING, STARTED)) {
+                return null;
+            }
+            return engine.infer(input);
+        }
+
+        // 任务尚未开始时放弃并返回 true；已开始（或已结束）时返回 false，调用方需等待其结束
+        boolean abandon() {
+            return state.compareAndSet(PENDING, ABANDONED);
+        }
+    }
+}
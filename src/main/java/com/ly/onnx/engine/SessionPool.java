@@ -0,0 +1,86 @@
+package com.ly.onnx.engine;
+
+import ai.onnxruntime.OrtException;
+import ai.onnxruntime.OrtSession;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+
+/**
+ * 同一模型的会话池，通过租用/归还的方式让多个线程同时推理同一模型。
+ * <p>
+ * 只有一个会话时为共享模式：OrtSession.run 本身是线程安全的，租用不会阻塞，多个调用方并发使用同一会话；
+ * 各调用方的输入来自 {@link InputBufferPool}，输出缓冲区每次推理独立分配，解码和 NMS 的临时数组按线程缓存，互不干扰。
+ * 多个会话时为独占模式：每次租用独占一个会话，全部被占用时阻塞等待，
+ * 适合在多核 CPU 上让每个会话各自使用较少的算子线程、同时跑多路推理。
+ */
+public class SessionPool implements AutoCloseable {
+
+    private final List<OrtSession> sessions;
+    private final BlockingQueue<OrtSession> idleSessions;
+
+    public SessionPool(List<OrtSession> sessions) {
+        if (sessions.isEmpty()) {
+            throw new IllegalArgumentException("会话池至少需要一个会话");
+        }
+        this.sessions = Collections.unmodifiableList(new ArrayList<>(sessions));
+        this.idleSessions = new ArrayBlockingQueue<>(sessions.size(), false, sessions);
+    }
+
+    // 租用一个会话，使用完毕后必须调用 Lease.close() 归还
+    public Lease lease() throws InterruptedException {
+        if (isShared()) {
+            return new Lease(sessions.get(0), false);
+        }
+        return new Lease(idleSessions.take(), true);
+    }
+
+    public boolean isShared() {
+        return sessions.size() == 1;
+    }
+
+    public int size() {
+        return sessions.size();
+    }
+
+    // 池中全部会话，用于预热等需要逐个访问的场景
+    public List<OrtSession> getSessions() {
+        return sessions;
+    }
+
+    @Override
+    public void close() throws OrtException {
+        for (OrtSession session : sessions) {
+            session.close();
+        }
+    }
+
+    /**
+     * 会话租约，配合 try-with-resources 使用
+     */
+    public final class Lease implements AutoCloseable {
+        private final OrtSession session;
+        private final boolean exclusive;
+        private boolean returned;
+
+        private Lease(OrtSession session, boolean exclusive) {
+            this.session = session;
+            this.exclusive = exclusive;
+        }
+
+        public OrtSession getSession() {
+            return session;
+        }
+
+        @Override
+        public void close() {
+            if (exclusive && !returned) {
+                returned = true;
+                idleSessions.offer(session);
+            }
+        }
+    }
+}
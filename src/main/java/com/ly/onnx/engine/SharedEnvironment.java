@@ -0,0 +1,73 @@
+package com.ly.onnx.engine;
+
+import ai.onnxruntime.OrtEnvironment;
+import ai.onnxruntime.OrtException;
+import ai.onnxruntime.OrtLoggingLevel;
+
+/**
+ * 所有推理引擎共享的 OrtEnvironment。
+ * 首个请求全局线程池的配置会以其线程数创建进程级的算子线程池，之后所有会话都禁用各自的线程池、
+ * 改用这组全局线程，避免加载 N 个模型就启动 N 倍的算子线程而互相争抢 CPU。
+ * 环境只创建一次，之后的配置若要求不同的全局线程数会打印警告并被忽略；不使用全局线程池的配置按各自的线程数创建会话。
+ * 会话池大于 1 的模型不用全局线程池，见 {@link EngineConfig#getSessionPoolSize()}。
+ */
+public final class SharedEnvironment {
+
+    private static OrtEnvironment environment;
+    private static boolean globalThreadPools;
+    // 创建环境的配置，用于发现之后被忽略的线程设置
+    private static EngineConfig creatorConfig;
+
+    private SharedEnvironment() {
+    }
+
+    public static synchronized OrtEnvironment get(EngineConfig config) {
+        if (environment != null) {
+            warnIfIgnored(config);
+            return environment;
+        }
+        creatorConfig = config;
+        if (config.isUseGlobalThreadPools()) {
+            try (OrtEnvironment.ThreadingOptions threadingOptions = new OrtEnvironment.ThreadingOptions()) {
+                if (config.getIntraOpNumThreads() > 0) {
+                    threadingOptions.setGlobalIntraOpNumThreads(config.getIntraOpNumThreads());
+                }
+                if (config.getInterOpNumThreads() > 0) {
+                    threadingOptions.setGlobalInterOpNumThreads(config.getInterOpNumThreads());
+                }
+                environment = OrtEnvironment.getEnvironment(OrtLoggingLevel.ORT_LOGGING_LEVEL_WARNING,
+                        "onnx-inference4j-play", threadingOptions);
+                globalThreadPools = true;
+                System.out.println("已创建共享 OrtEnvironment，使用全局线程池");
+                return environment;
+            } catch (OrtException | IllegalStateException e) {
+                // 环境已在别处以默认方式创建时无法再指定全局线程池，退回到每个会话独立的线程池
+                System.out.println("无法创建全局线程池，使用会话独立线程池：" + e.getMessage());
+            }
+        }
+        environment = OrtEnvironment.getEnvironment();
+        globalThreadPools = false;
+        return environment;
+    }
+
+    // 全局线程池只按第一个配置创建，之后要求全局线程池的配置不能再改变它的线程数
+    private static void warnIfIgnored(EngineConfig config) {
+        if (config == creatorConfig || !config.isUseGlobalThreadPools() || config.getSessionPoolSize() > 1) {
+            return;
+        }
+        boolean differs = !globalThreadPools
+                || config.getIntraOpNumThreads() != creatorConfig.getIntraOpNumThreads()
+                || config.getInterOpNumThreads() != creatorConfig.getInterOpNumThreads();
+        if (differs) {
+            System.out.println("警告：共享 OrtEnvironment 已按首个配置创建（全局线程池 " + globalThreadPools
+                    + "，intraOp " + creatorConfig.getIntraOpNumThreads() + "，interOp " + creatorConfig.getInterOpNumThreads()
+                    + "），忽略本配置的全局线程设置（intraOp " + config.getIntraOpNumThreads()
+                    + "，interOp " + config.getInterOpNumThreads() + "）");
+        }
+    }
+
+    // 共享环境是否启用了全局线程池，启用时会话需要调用 disablePerSessionThreads
+    public static synchronized boolean hasGlobalThreadPools() {
+        return globalThreadPools;
+    }
+}
@@ -6,6 +6,9 @@ import java.util.List;
 public class InferenceResult {
     private List<BoundingBox> boundingBoxes = new ArrayList<>();
 
+    // 低于检测阈值、高于低置信度下限的框，只在引擎配置了 lowConfidenceThreshold 时有内容
+    private List<BoundingBox> lowConfidenceBoxes = new ArrayList<>();
+
     public List<BoundingBox> getBoundingBoxes() {
         return boundingBoxes;
     }
@@ -14,5 +17,24 @@ public class InferenceResult {
         this.boundingBoxes = boundingBoxes;
     }
 
+    public List<BoundingBox> getLowConfidenceBoxes() {
+        return lowConfidenceBoxes;
+    }
+
+    public void setLowConfidenceBoxes(List<BoundingBox> lowConfidenceBoxes) {
+        this.lowConfidenceBoxes = lowConfidenceBoxes;
+    }
+
+    // 被跟踪器关联上（已分配 trackId）的低置信度框并入检测结果，遮挡中的目标因此仍会绘制和输出
+    public void promoteTrackedLowConfidenceBoxes() {
+        for (int i = lowConfidenceBoxes.size() - 1; i >= 0; i--) {
+            BoundingBox box = lowConfidenceBoxes.get(i);
+            if (box.getTrackId() != 0) {
+                boundingBoxes.add(box);
+                lowConfidenceBoxes.remove(i);
+            }
+        }
+    }
+
     // 其他需要的属性和方法
 }
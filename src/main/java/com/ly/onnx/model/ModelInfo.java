@@ -1,8 +1,11 @@
 package com.ly.onnx.model;
 
+import java.io.BufferedReader;
 import java.io.IOException;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Paths;
+import java.util.ArrayList;
 import java.util.List;
 
 public class ModelInfo {
@@ -20,6 +23,18 @@ public class ModelInfo {
         }
     }
 
+    // 按 UTF-8 逐行读取标签文件，每行一个标签，去掉首尾空白
+    public static List<String> readLabels(String labelPath) throws IOException {
+        List<String> labels = new ArrayList<>();
+        try (BufferedReader reader = Files.newBufferedReader(Paths.get(labelPath), StandardCharsets.UTF_8)) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                labels.add(line.trim());
+            }
+        }
+        return labels;
+    }
+
     public String getModelFilePath() {
         return modelFilePath;
     }
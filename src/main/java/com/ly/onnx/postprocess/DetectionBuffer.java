@@ -0,0 +1,107 @@
+package com.ly.onnx.postprocess;
+
+import java.util.Arrays;
+
+/**
+ * 以结构数组（SoA）形式保存的候选检测框，坐标为模型输入坐标系下的左上角、右下角。
+ * 解码阶段只向其中写入原始类型，避免为每个候选框创建对象；容量不足时成倍扩容，可重复使用。
+ */
+public class DetectionBuffer {
+
+    private float[] x1;
+    private float[] y1;
+    private float[] x2;
+    private float[] y2;
+    private float[] scores;
+    // 解码时的分数，Soft-NMS 衰减 scores 后仍可按它划分置信度档位
+    private float[] rawScores;
+    private int[] classIds;
+    private int size;
+
+    public DetectionBuffer() {
+        this(256);
+    }
+
+    public DetectionBuffer(int initialCapacity) {
+        x1 = new float[initialCapacity];
+        y1 = new float[initialCapacity];
+        x2 = new float[initialCapacity];
+        y2 = new float[initialCapacity];
+        scores = new float[initialCapacity];
+        rawScores = new float[initialCapacity];
+        classIds = new int[initialCapacity];
+    }
+
+    // 以中心点和宽高形式添加一个候选框
+    public void addCenter(float centerX, float centerY, float width, float height, float score, int classId) {
+        float halfWidth = width / 2;
+        float halfHeight = height / 2;
+        add(centerX - halfWidth, centerY - halfHeight, centerX + halfWidth, centerY + halfHeight, score, classId);
+    }
+
+    public void add(float left, float top, float right, float bottom, float score, int classId) {
+        if (size == scores.length) {
+            grow();
+        }
+        x1[size] = left;
+        y1[size] = top;
+        x2[size] = right;
+        y2[size] = bottom;
+        scores[size] = score;
+        rawScores[size] = score;
+        classIds[size] = classId;
+        size++;
+    }
+
+    private void grow() {
+        int capacity = Math.max(16, scores.length * 2);
+        x1 = Arrays.copyOf(x1, capacity);
+        y1 = Arrays.copyOf(y1, capacity);
+        x2 = Arrays.copyOf(x2, capacity);
+        y2 = Arrays.copyOf(y2, capacity);
+        scores = Arrays.copyOf(scores, capacity);
+        rawScores = Arrays.copyOf(rawScores, capacity);
+        classIds = Arrays.copyOf(classIds, capacity);
+    }
+
+    public void clear() {
+        size = 0;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public float x1(int i) {
+        return x1[i];
+    }
+
+    public float y1(int i) {
+        return y1[i];
+    }
+
+    public float x2(int i) {
+        return x2[i];
+    }
+
+    public float y2(int i) {
+        return y2[i];
+    }
+
+    public float score(int i) {
+        return scores[i];
+    }
+
+    public void setScore(int i, float score) {
+        scores[i] = score;
+    }
+
+    // 解码时的原始分数，不受 setScore 影响
+    public float rawScore(int i) {
+        return rawScores[i];
+    }
+
+    public int classId(int i) {
+        return classIds[i];
+    }
+}
@@ -0,0 +1,52 @@
+package com.ly.onnx.postprocess;
+
+import java.nio.FloatBuffer;
+import java.util.Arrays;
+
+/**
+ * 检测模型输出解码器，每种输出布局对应一个专门的实现。
+ * 解码结果为模型输入（letterbox 后）坐标系下的候选框，还原到原图坐标由调用方在 NMS 之后完成。
+ * 实现需要是线程安全的，同一解码器可能被多个推理线程同时使用。
+ */
+public interface DetectionDecoder {
+
+    /**
+     * 解码单帧输出
+     *
+     * @param output              输出张量的数据
+     * @param base                该帧数据在 output 中的起始位置
+     * @param dim1                单帧输出的第一维（去掉 batch 维后）
+     * @param dim2                单帧输出的第二维
+     * @param confidenceThreshold 置信度阈值，低于阈值的候选框不会写入 sink
+     * @param sink                解码结果
+     */
+    void decode(FloatBuffer output, int base, int dim1, int dim2, float confidenceThreshold, DetectionBuffer sink);
+
+    /**
+     * 根据模型输出形状和标签数量选择解码器：
+     * [1, N, 5+C] 为 YOLOv5 布局，[1, 4+C, N] 为 YOLOv8 布局；
+     * 标签数量与两者都对不上时，按较短的一维是属性维来推断。
+     */
+    static DetectionDecoder select(long[] outputShape, int labelCount) {
+        if (outputShape.length != 3) {
+            throw new IllegalArgumentException("不支持的输出形状：" + Arrays.toString(outputShape));
+        }
+        long dim1 = outputShape[1];
+        long dim2 = outputShape[2];
+        if (dim2 == 5 + labelCount) {
+            return new YoloV5Decoder(labelCount);
+        }
+        if (dim1 == 4 + labelCount) {
+            return new YoloV8Decoder(labelCount);
+        }
+        if (dim1 > 0 && (dim2 <= 0 || dim1 < dim2)) {
+            System.out.println("标签数量 " + labelCount + " 与输出形状不匹配，按 YOLOv8 布局解析");
+            return new YoloV8Decoder((int) dim1 - 4);
+        }
+        if (dim2 > 5) {
+            System.out.println("标签数量 " + labelCount + " 与输出形状不匹配，按 YOLOv5 布局解析");
+            return new YoloV5Decoder((int) dim2 - 5);
+        }
+        throw new IllegalArgumentException("无法识别的输出形状：" + Arrays.toString(outputShape));
+    }
+}
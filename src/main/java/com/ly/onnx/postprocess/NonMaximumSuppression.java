@@ -0,0 +1,256 @@
+package com.ly.onnx.postprocess;
+
+import java.util.Arrays;
+
+/**
+ * 基于结构数组的非极大值抑制：
+ * <ul>
+ *     <li>按分数对下标排序（分数位与下标打包成 long 做原始类型排序），O(n log n)</li>
+ *     <li>已保留的框登记到均匀网格中，每个候选框只与相邻网格中的框计算 IoU</li>
+ *     <li>支持按类别抑制或不区分类别、输出数量上限 topK，以及 Gaussian Soft-NMS</li>
+ * </ul>
+ * 实例是线程安全的，临时数组按线程缓存复用。
+ */
+public class NonMaximumSuppression {
+
+    private final float iouThreshold;
+    private final boolean classAware;
+    private final int topK;
+    private final boolean softNms;
+    private final float softNmsSigma;
+    private final float scoreThreshold;
+
+    private final ThreadLocal<Scratch> scratch = ThreadLocal.withInitial(Scratch::new);
+
+    /**
+     * @param iouThreshold   硬 NMS 的 IoU 阈值
+     * @param classAware     true 时只在同类别之间抑制
+     * @param topK           最多保留的框数量，小于等于 0 表示不限制
+     * @param softNms        是否使用 Gaussian Soft-NMS（衰减分数而非直接删除）
+     * @param softNmsSigma   Soft-NMS 的 sigma
+     * @param scoreThreshold Soft-NMS 衰减后低于该分数的框被丢弃
+     */
+    public NonMaximumSuppression(float iouThreshold, boolean classAware, int topK,
+                                 boolean softNms, float softNmsSigma, float scoreThreshold) {
+        this.iouThreshold = iouThreshold;
+        this.classAware = classAware;
+        this.topK = topK <= 0 ? Integer.MAX_VALUE : topK;
+        this.softNms = softNms;
+        this.softNmsSigma = softNmsSigma;
+        this.scoreThreshold = scoreThreshold;
+    }
+
+    /**
+     * 执行 NMS，返回按分数从高到低排列的保留框下标。
+     * Soft-NMS 模式下衰减后的分数会写回 boxes。
+     */
+    public int[] apply(DetectionBuffer boxes) {
+        int n = boxes.size();
+        if (n == 0) {
+            return new int[0];
+        }
+        Scratch s = scratch.get();
+        s.ensureCapacity(n);
+        int count = softNms ? applySoft(boxes, s) : applyHard(boxes, s);
+        return Arrays.copyOf(s.keep, count);
+    }
+
+    private int applyHard(DetectionBuffer boxes, Scratch s) {
+        int n = boxes.size();
+        long[] keys = s.keys;
+        for (int i = 0; i < n; i++) {
+            // 非负浮点数的位模式与数值同序，高 32 位放分数、低 32 位放下标
+            keys[i] = ((long) Float.floatToIntBits(Math.max(boxes.score(i), 0f)) << 32) | i;
+        }
+        Arrays.sort(keys, 0, n);
+
+        resetGrid(boxes, s.grid);
+        int kept = 0;
+        for (int k = n - 1; k >= 0 && kept < topK; k--) {
+            int i = (int) keys[k];
+            float x1 = boxes.x1(i);
+            float y1 = boxes.y1(i);
+            float x2 = boxes.x2(i);
+            float y2 = boxes.y2(i);
+            boolean suppressed = false;
+            int candidates = s.grid.query(x1, y1, x2, y2);
+            for (int c = 0; c < candidates; c++) {
+                int j = s.grid.result(c);
+                if (classAware && boxes.classId(i) != boxes.classId(j)) {
+                    continue;
+                }
+                if (iou(boxes, i, j) > iouThreshold) {
+                    suppressed = true;
+                    break;
+                }
+            }
+            if (!suppressed) {
+                s.keep[kept++] = i;
+                s.grid.insert(i, x1, y1, x2, y2);
+            }
+        }
+        return kept;
+    }
+
+    // Gaussian Soft-NMS：用可降低键值的二叉堆每次取当前分数最高的框，再衰减其邻近框的分数
+    private int applySoft(DetectionBuffer boxes, Scratch s) {
+        int n = boxes.size();
+        resetGrid(boxes, s.grid);
+        for (int i = 0; i < n; i++) {
+            s.grid.insert(i, boxes.x1(i), boxes.y1(i), boxes.x2(i), boxes.y2(i));
+        }
+        float[] scores = s.scores;
+        for (int i = 0; i < n; i++) {
+            scores[i] = boxes.score(i);
+        }
+        IndexedMaxHeap heap = s.heap;
+        heap.build(scores, n);
+
+        int kept = 0;
+        while (heap.size() > 0 && kept < topK) {
+            int i = heap.pop();
+            if (scores[i] < scoreThreshold) {
+                break;
+            }
+            s.keep[kept++] = i;
+            int candidates = s.grid.query(boxes.x1(i), boxes.y1(i), boxes.x2(i), boxes.y2(i));
+            for (int c = 0; c < candidates; c++) {
+                int j = s.grid.result(c);
+                if (!heap.contains(j) || (classAware && boxes.classId(i) != boxes.classId(j))) {
+                    continue;
+                }
+                float overlap = iou(boxes, i, j);
+                if (overlap > 0) {
+                    scores[j] *= (float) Math.exp(-(overlap * overlap) / softNmsSigma);
+                    heap.decreased(j);
+                }
+            }
+        }
+        for (int k = 0; k < kept; k++) {
+            int i = s.keep[k];
+            boxes.setScore(i, scores[i]);
+        }
+        return kept;
+    }
+
+    // 网格边长取候选框平均边长，使一个框通常只落在少数几个网格中
+    private static void resetGrid(DetectionBuffer boxes, SpatialGrid grid) {
+        int n = boxes.size();
+        float minX = Float.MAX_VALUE;
+        float minY = Float.MAX_VALUE;
+        float maxX = -Float.MAX_VALUE;
+        float maxY = -Float.MAX_VALUE;
+        double sizeSum = 0;
+        for (int i = 0; i < n; i++) {
+            minX = Math.min(minX, boxes.x1(i));
+            minY = Math.min(minY, boxes.y1(i));
+            maxX = Math.max(maxX, boxes.x2(i));
+            maxY = Math.max(maxY, boxes.y2(i));
+            sizeSum += Math.max(boxes.x2(i) - boxes.x1(i), boxes.y2(i) - boxes.y1(i));
+        }
+        grid.reset(minX, minY, maxX, maxY, (float) (sizeSum / n), n);
+    }
+
+    private static float iou(DetectionBuffer boxes, int a, int b) {
+        float interWidth = Math.min(boxes.x2(a), boxes.x2(b)) - Math.max(boxes.x1(a), boxes.x1(b));
+        if (interWidth <= 0) {
+            return 0;
+        }
+        float interHeight = Math.min(boxes.y2(a), boxes.y2(b)) - Math.max(boxes.y1(a), boxes.y1(b));
+        if (interHeight <= 0) {
+            return 0;
+        }
+        float intersection = interWidth * interHeight;
+        float areaA = (boxes.x2(a) - boxes.x1(a)) * (boxes.y2(a) - boxes.y1(a));
+        float areaB = (boxes.x2(b) - boxes.x1(b)) * (boxes.y2(b) - boxes.y1(b));
+        return intersection / (areaA + areaB - intersection);
+    }
+
+    private static class Scratch {
+        long[] keys = new long[0];
+        int[] keep = new int[0];
+        float[] scores = new float[0];
+        final SpatialGrid grid = new SpatialGrid();
+        final IndexedMaxHeap heap = new IndexedMaxHeap();
+
+        void ensureCapacity(int n) {
+            if (keys.length < n) {
+                int capacity = Math.max(n, keys.length * 2);
+                keys = new long[capacity];
+                keep = new int[capacity];
+                scores = new float[capacity];
+            }
+        }
+    }
+
+    // 以外部分数数组为键的下标最大堆，支持分数降低后的原地调整
+    private static class IndexedMaxHeap {
+        private int[] heap = new int[0];
+        private int[] positions = new int[0];
+        private float[] keys;
+        private int size;
+
+        void build(float[] keys, int n) {
+            this.keys = keys;
+            if (heap.length < n) {
+                heap = new int[n];
+                positions = new int[n];
+            }
+            for (int i = 0; i < n; i++) {
+                heap[i] = i;
+                positions[i] = i;
+            }
+            size = n;
+            for (int i = n / 2 - 1; i >= 0; i--) {
+                siftDown(i);
+            }
+        }
+
+        int size() {
+            return size;
+        }
+
+        boolean contains(int id) {
+            return positions[id] >= 0;
+        }
+
+        int pop() {
+            int top = heap[0];
+            positions[top] = -1;
+            size--;
+            if (size > 0) {
+                heap[0] = heap[size];
+                positions[heap[0]] = 0;
+                siftDown(0);
+            }
+            return top;
+        }
+
+        // 分数只会被衰减，因此只需下沉
+        void decreased(int id) {
+            siftDown(positions[id]);
+        }
+
+        private void siftDown(int pos) {
+            int id = heap[pos];
+            float key = keys[id];
+            while (true) {
+                int child = 2 * pos + 1;
+                if (child >= size) {
+                    break;
+                }
+                if (child + 1 < size && keys[heap[child + 1]] > keys[heap[child]]) {
+                    child++;
+                }
+                if (keys[heap[child]] <= key) {
+                    break;
+                }
+                heap[pos] = heap[child];
+                positions[heap[pos]] = pos;
+                pos = child;
+            }
+            heap[pos] = id;
+            positions[id] = pos;
+        }
+    }
+}
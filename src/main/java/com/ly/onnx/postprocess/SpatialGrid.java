@@ -0,0 +1,128 @@
+package com.ly.onnx.postprocess;
+
+import java.util.Arrays;
+
+/**
+ * 均匀网格空间索引：每个框登记到它覆盖的所有网格中，查询时只返回与查询框共享网格的框，
+ * 两个相交的框一定至少共享一个网格，因此不会漏掉任何重叠的框。
+ * 全部使用原始类型数组实现（链表头 + next 指针），重置后可重复使用，不产生垃圾。
+ */
+public class SpatialGrid {
+
+    // 单边最多网格数，避免框很小而范围很大时网格过多
+    private static final int MAX_CELLS_PER_SIDE = 64;
+
+    private float originX;
+    private float originY;
+    private float cellSize;
+    private int cols;
+    private int rows;
+
+    private int[] cellHeads = new int[0];
+    private int[] entryNext = new int[64];
+    private int[] entryIds = new int[64];
+    private int entryCount;
+
+    // 查询去重：同一个框可能登记在多个网格中
+    private int[] visitStamps = new int[0];
+    private int stamp;
+
+    private int[] results = new int[64];
+    private int resultCount;
+
+    /**
+     * 按覆盖范围和网格边长重置网格
+     *
+     * @param maxId 将要登记的最大编号 + 1
+     */
+    public void reset(float minX, float minY, float maxX, float maxY, float cellSize, int maxId) {
+        float width = Math.max(maxX - minX, 1);
+        float height = Math.max(maxY - minY, 1);
+        float size = Math.max(cellSize, 1);
+        size = Math.max(size, Math.max(width, height) / MAX_CELLS_PER_SIDE);
+        this.originX = minX;
+        this.originY = minY;
+        this.cellSize = size;
+        this.cols = (int) (width / size) + 1;
+        this.rows = (int) (height / size) + 1;
+
+        int cellCount = cols * rows;
+        if (cellHeads.length < cellCount) {
+            cellHeads = new int[cellCount];
+        }
+        Arrays.fill(cellHeads, 0, cellCount, -1);
+        entryCount = 0;
+
+        if (visitStamps.length < maxId) {
+            visitStamps = new int[maxId];
+            stamp = 0;
+        }
+    }
+
+    // 登记编号为 id 的框
+    public void insert(int id, float x1, float y1, float x2, float y2) {
+        int col0 = col(x1);
+        int col1 = col(x2);
+        int row0 = row(y1);
+        int row1 = row(y2);
+        for (int r = row0; r <= row1; r++) {
+            for (int c = col0; c <= col1; c++) {
+                int cell = r * cols + c;
+                if (entryCount == entryIds.length) {
+                    entryIds = Arrays.copyOf(entryIds, entryCount * 2);
+                    entryNext = Arrays.copyOf(entryNext, entryCount * 2);
+                }
+                entryIds[entryCount] = id;
+                entryNext[entryCount] = cellHeads[cell];
+                cellHeads[cell] = entryCount++;
+            }
+        }
+    }
+
+    /**
+     * 查询与给定框共享网格的所有已登记框（去重），结果通过 {@link #result(int)} 读取
+     *
+     * @return 结果数量
+     */
+    public int query(float x1, float y1, float x2, float y2) {
+        if (++stamp == Integer.MAX_VALUE) {
+            Arrays.fill(visitStamps, 0);
+            stamp = 1;
+        }
+        resultCount = 0;
+        int col0 = col(x1);
+        int col1 = col(x2);
+        int row0 = row(y1);
+        int row1 = row(y2);
+        for (int r = row0; r <= row1; r++) {
+            for (int c = col0; c <= col1; c++) {
+                for (int e = cellHeads[r * cols + c]; e >= 0; e = entryNext[e]) {
+                    int id = entryIds[e];
+                    if (visitStamps[id] == stamp) {
+                        continue;
+                    }
+                    visitStamps[id] = stamp;
+                    if (resultCount == results.length) {
+                        results = Arrays.copyOf(results, resultCount * 2);
+                    }
+                    results[resultCount++] = id;
+                }
+            }
+        }
+        return resultCount;
+    }
+
+    public int result(int i) {
+        return results[i];
+    }
+
+    private int col(float x) {
+        int c = (int) ((x - originX) / cellSize);
+        return c < 0 ? 0 : (c >= cols ? cols - 1 : c);
+    }
+
+    private int row(float y) {
+        int r = (int) ((y - originY) / cellSize);
+        return r < 0 ? 0 : (r >= rows ? rows - 1 : r);
+    }
+}
@@ -0,0 +1,51 @@
+package com.ly.onnx.postprocess;
+
+import java.nio.FloatBuffer;
+
+/**
+ * YOLOv5 输出解码：单帧形状 [N, 5+C]，每行为 cx, cy, w, h, obj, cls0..clsC-1，
+ * 置信度为 obj 与最大类别分数之积。逐行连续读取，obj 低于阈值的行直接跳过类别扫描。
+ */
+public class YoloV5Decoder implements DetectionDecoder {
+
+    private final int numClasses;
+
+    public YoloV5Decoder(int numClasses) {
+        this.numClasses = numClasses;
+    }
+
+    @Override
+    public void decode(FloatBuffer output, int base, int rows, int stride, float confidenceThreshold, DetectionBuffer sink) {
+        int classCount = Math.min(numClasses, stride - 5);
+        if (classCount <= 0) {
+            return;
+        }
+        for (int row = 0, offset = base; row < rows; row++, offset += stride) {
+            float objectness = output.get(offset + 4);
+            if (objectness < confidenceThreshold) {
+                continue;
+            }
+            // 一次遍历求类别分数的最大值
+            int bestClass = 0;
+            float bestScore = output.get(offset + 5);
+            for (int c = 1, classOffset = offset + 6; c < classCount; c++, classOffset++) {
+                float score = output.get(classOffset);
+                if (score > bestScore) {
+                    bestScore = score;
+                    bestClass = c;
+                }
+            }
+            float confidence = objectness * bestScore;
+            if (confidence < confidenceThreshold) {
+                continue;
+            }
+            sink.addCenter(output.get(offset), output.get(offset + 1), output.get(offset + 2), output.get(offset + 3),
+                    confidence, bestClass);
+        }
+    }
+
+    @Override
+    public String toString() {
+        return "YoloV5Decoder[classes=" + numClasses + "]";
+    }
+}
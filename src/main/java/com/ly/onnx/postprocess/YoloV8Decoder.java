@@ -0,0 +1,80 @@
+package com.ly.onnx.postprocess;
+
+import java.nio.FloatBuffer;
+
+/**
+ * YOLOv8 输出解码：单帧形状 [4+C, N]，即属性维在前、候选框维在后的转置布局，
+ * 第 k 个属性、第 a 个候选框位于 base + k * N + a。
+ * 不做转置拷贝：按类别逐行顺序扫描，同时维护每个候选框当前的最大分数和类别，
+ * 整个输出只被连续读取一遍，最后只为超过阈值的候选框读取坐标。
+ */
+public class YoloV8Decoder implements DetectionDecoder {
+
+    private final int numClasses;
+
+    // 每个线程独立的最大分数、类别缓存，避免并发推理时互相覆盖
+    private final ThreadLocal<Scratch> scratch = ThreadLocal.withInitial(Scratch::new);
+
+    public YoloV8Decoder(int numClasses) {
+        this.numClasses = numClasses;
+    }
+
+    @Override
+    public void decode(FloatBuffer output, int base, int attributes, int anchors, float confidenceThreshold, DetectionBuffer sink) {
+        int classCount = Math.min(numClasses, attributes - 4);
+        if (classCount <= 0) {
+            return;
+        }
+        Scratch s = scratch.get();
+        s.ensureCapacity(anchors);
+        float[] bestScores = s.bestScores;
+        int[] bestClasses = s.bestClasses;
+
+        // 第一个类别行直接作为初始值
+        int classRow = base + 4 * anchors;
+        for (int a = 0; a < anchors; a++) {
+            bestScores[a] = output.get(classRow + a);
+            bestClasses[a] = 0;
+        }
+        for (int c = 1; c < classCount; c++) {
+            classRow += anchors;
+            for (int a = 0; a < anchors; a++) {
+                float score = output.get(classRow + a);
+                if (score > bestScores[a]) {
+                    bestScores[a] = score;
+                    bestClasses[a] = c;
+                }
+            }
+        }
+
+        int xRow = base;
+        int yRow = base + anchors;
+        int wRow = base + 2 * anchors;
+        int hRow = base + 3 * anchors;
+        for (int a = 0; a < anchors; a++) {
+            float confidence = bestScores[a];
+            if (confidence < confidenceThreshold) {
+                continue;
+            }
+            sink.addCenter(output.get(xRow + a), output.get(yRow + a), output.get(wRow + a), output.get(hRow + a),
+                    confidence, bestClasses[a]);
+        }
+    }
+
+    @Override
+    public String toString() {
+        return "YoloV8Decoder[classes=" + numClasses + "]";
+    }
+
+    private static class Scratch {
+        float[] bestScores = new float[0];
+        int[] bestClasses = new int[0];
+
+        void ensureCapacity(int anchors) {
+            if (bestScores.length < anchors) {
+                bestScores = new float[anchors];
+                bestClasses = new int[anchors];
+            }
+        }
+    }
+}
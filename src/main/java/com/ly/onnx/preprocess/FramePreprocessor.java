@@ -0,0 +1,135 @@
+package com.ly.onnx.preprocess;
+
+import com.ly.onnx.engine.InferenceEngine;
+import com.ly.onnx.engine.InputBufferPool;
+import org.opencv.core.Mat;
+
+import java.nio.FloatBuffer;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * 按输入尺寸对推理引擎分组，每帧对每种尺寸只预处理一次。
+ * 分组只在引擎列表或引擎就绪状态变化时重建；letterbox 参数按（源分辨率，输入尺寸）缓存在分组内，
+ * 每帧的热路径上没有哈希查找和装箱。
+ * <p>
+ * 内部持有 {@link LetterboxPreprocessor}，不是线程安全的，每个预处理线程使用独立实例。
+ */
+public class FramePreprocessor {
+
+    private final LetterboxPreprocessor letterbox = new LetterboxPreprocessor();
+
+    // 当前分组对应的已就绪引擎快照
+    private List<InferenceEngine> readyEngines = Collections.emptyList();
+    private int[] engineInputs = new int[0];
+    private InputGroup[] groups = new InputGroup[0];
+
+    /**
+     * 预处理一帧，未完成初始化的引擎不参与本帧推理
+     *
+     * @param image   原始 BGR 图像
+     * @param engines 当前的引擎列表（需支持并发遍历）
+     */
+    public PreprocessedFrame preprocess(Mat image, List<InferenceEngine> engines) {
+        refreshGroups(engines);
+        int origWidth = image.width();
+        int origHeight = image.height();
+        PreprocessedInput[] inputs = new PreprocessedInput[groups.length];
+        for (int g = 0; g < groups.length; g++) {
+            InputGroup group = groups[g];
+            LetterboxPlan plan = group.planFor(origWidth, origHeight);
+            FloatBuffer data = group.pool.acquire();
+            letterbox.preprocess(image, plan, data);
+            inputs[g] = new PreprocessedInput(data, plan, group.pool);
+        }
+        return new PreprocessedFrame(origWidth, origHeight, readyEngines, engineInputs, inputs);
+    }
+
+    // 引擎列表或就绪状态与快照不一致时重新分组
+    private void refreshGroups(List<InferenceEngine> engines) {
+        int matched = 0;
+        boolean changed = false;
+        for (InferenceEngine engine : engines) {
+            if (!engine.isReady()) {
+                continue;
+            }
+            if (matched >= readyEngines.size() || readyEngines.get(matched) != engine) {
+                changed = true;
+                break;
+            }
+            matched++;
+        }
+        if (!changed && matched == readyEngines.size()) {
+            return;
+        }
+
+        List<InferenceEngine> ready = new ArrayList<>();
+        for (InferenceEngine engine : engines) {
+            if (engine.isReady()) {
+                ready.add(engine);
+            }
+        }
+        List<InputGroup> newGroups = new ArrayList<>();
+        int[] newEngineInputs = new int[ready.size()];
+        for (int i = 0; i < ready.size(); i++) {
+            InferenceEngine engine = ready.get(i);
+            long[] inputShape = engine.getInputShape(); // [N, C, H, W]
+            int targetWidth = (int) inputShape[3];
+            int targetHeight = (int) inputShape[2];
+            int groupIndex = -1;
+            for (int g = 0; g < newGroups.size(); g++) {
+                if (newGroups.get(g).matches(targetWidth, targetHeight)) {
+                    groupIndex = g;
+                    break;
+                }
+            }
+            if (groupIndex < 0) {
+                // 同尺寸的引擎共用第一个引擎的缓冲区池
+                newGroups.add(new InputGroup(targetWidth, targetHeight, engine.getInputBufferPool()));
+                groupIndex = newGroups.size() - 1;
+            }
+            newEngineInputs[i] = groupIndex;
+        }
+        readyEngines = Collections.unmodifiableList(ready);
+        engineInputs = newEngineInputs;
+        groups = newGroups.toArray(new InputGroup[0]);
+    }
+
+    public void release() {
+        letterbox.release();
+    }
+
+    // 同一输入尺寸的一组引擎
+    private static class InputGroup {
+        final int targetWidth;
+        final int targetHeight;
+        final InputBufferPool pool;
+        // 按源分辨率缓存的 letterbox 参数，通常只有一个
+        LetterboxPlan[] plans = new LetterboxPlan[0];
+
+        InputGroup(int targetWidth, int targetHeight, InputBufferPool pool) {
+            this.targetWidth = targetWidth;
+            this.targetHeight = targetHeight;
+            this.pool = pool;
+        }
+
+        boolean matches(int width, int height) {
+            return targetWidth == width && targetHeight == height;
+        }
+
+        LetterboxPlan planFor(int sourceWidth, int sourceHeight) {
+            for (LetterboxPlan plan : plans) {
+                if (plan.matchesSource(sourceWidth, sourceHeight)) {
+                    return plan;
+                }
+            }
+            LetterboxPlan plan = LetterboxPlan.compute(sourceWidth, sourceHeight, targetWidth, targetHeight);
+            LetterboxPlan[] extended = new LetterboxPlan[plans.length + 1];
+            System.arraycopy(plans, 0, extended, 0, plans.length);
+            extended[plans.length] = plan;
+            plans = extended;
+            return plan;
+        }
+    }
+}
@@ -0,0 +1,81 @@
+package com.ly.onnx.preprocess;
+
+/**
+ * 一对（源分辨率，模型输入尺寸）的 letterbox 参数，不可变。
+ * 源分辨率不变时每帧复用同一个实例，推理后处理用它把框还原到原图坐标。
+ */
+public final class LetterboxPlan {
+
+    private final int sourceWidth;
+    private final int sourceHeight;
+    private final int targetWidth;
+    private final int targetHeight;
+    private final float scalingFactor;
+    private final int newWidth;
+    private final int newHeight;
+    private final int xOffset;
+    private final int yOffset;
+
+    private LetterboxPlan(int sourceWidth, int sourceHeight, int targetWidth, int targetHeight) {
+        this.sourceWidth = sourceWidth;
+        this.sourceHeight = sourceHeight;
+        this.targetWidth = targetWidth;
+        this.targetHeight = targetHeight;
+        // 等比缩放到输入尺寸以内，剩余部分居中填充
+        this.scalingFactor = Math.min((float) targetWidth / sourceWidth, (float) targetHeight / sourceHeight);
+        this.newWidth = Math.round(sourceWidth * scalingFactor);
+        this.newHeight = Math.round(sourceHeight * scalingFactor);
+        this.xOffset = (targetWidth - newWidth) / 2;
+        this.yOffset = (targetHeight - newHeight) / 2;
+    }
+
+    public static LetterboxPlan compute(int sourceWidth, int sourceHeight, int targetWidth, int targetHeight) {
+        return new LetterboxPlan(sourceWidth, sourceHeight, targetWidth, targetHeight);
+    }
+
+    public boolean matchesSource(int width, int height) {
+        return sourceWidth == width && sourceHeight == height;
+    }
+
+    public int getSourceWidth() {
+        return sourceWidth;
+    }
+
+    public int getSourceHeight() {
+        return sourceHeight;
+    }
+
+    public int getTargetWidth() {
+        return targetWidth;
+    }
+
+    public int getTargetHeight() {
+        return targetHeight;
+    }
+
+    public float getScalingFactor() {
+        return scalingFactor;
+    }
+
+    public int getNewWidth() {
+        return newWidth;
+    }
+
+    public int getNewHeight() {
+        return newHeight;
+    }
+
+    public int getXOffset() {
+        return xOffset;
+    }
+
+    public int getYOffset() {
+        return yOffset;
+    }
+
+    @Override
+    public String toString() {
+        return "LetterboxPlan[" + sourceWidth + "x" + sourceHeight + " -> " + targetWidth + "x" + targetHeight
+                + ", scale=" + scalingFactor + ", offset=(" + xOffset + "," + yOffset + ")]";
+    }
+}
@@ -0,0 +1,135 @@
+package com.ly.onnx.preprocess;
+
+import org.opencv.core.Mat;
+import org.opencv.core.Size;
+import org.opencv.imgproc.Imgproc;
+
+import java.nio.FloatBuffer;
+import java.util.Arrays;
+
+/**
+ * 融合的 letterbox 预处理：缩放后在一次遍历中完成 BGR→RGB、/255 归一化、填充以及 HWC→CHW，
+ * 结果直接写入目标缓冲区（通常是推理引擎缓冲区池中的直接内存）。
+ * <p>
+ * 每帧只有两次整帧的数据搬运：OpenCV 缩放到复用的 Mat，以及把缩放后的像素读入复用的 byte[]；
+ * 此后按行换序归一化到留在缓存中的行缓冲，再批量写入目标缓冲区，
+ * 没有中间的 float Mat、填充 Mat 和 HWC 数组。
+ * <p>
+ * 实例内部持有可复用的临时缓冲区，不是线程安全的，每个预处理线程应使用独立实例。
+ */
+public class LetterboxPreprocessor {
+
+    private static final float NORMALIZE = 1.0f / 255.0f;
+
+    // 填充区域的值（归一化后），与原实现一致为 0
+    private final float padValue;
+
+    private final Mat resized = new Mat();
+    private byte[] pixels = new byte[0];
+
+    // 单行的 R、G、B 暂存，留在缓存中，整行算完后批量写入目标缓冲区
+    private float[] redRow = new float[0];
+    private float[] greenRow = new float[0];
+    private float[] blueRow = new float[0];
+    private float[] padRow = new float[0];
+
+    public LetterboxPreprocessor() {
+        this(0f);
+    }
+
+    public LetterboxPreprocessor(float padValue) {
+        this.padValue = padValue;
+    }
+
+    // 按 letterbox 参数预处理一帧
+    public void preprocess(Mat image, LetterboxPlan plan, FloatBuffer dst) {
+        preprocess(image, plan.getNewWidth(), plan.getNewHeight(), plan.getTargetWidth(), plan.getTargetHeight(),
+                plan.getXOffset(), plan.getYOffset(), dst);
+    }
+
+    /**
+     * 对一帧 BGR 图像做 letterbox 预处理并以 CHW 格式写入 dst（从下标 0 开始）
+     *
+     * @param image        原始 BGR 图像（CV_8UC3）
+     * @param newWidth     缩放后的图像宽度
+     * @param newHeight    缩放后的图像高度
+     * @param targetWidth  模型输入宽度
+     * @param targetHeight 模型输入高度
+     * @param xOffset      缩放后图像在输入中的水平偏移
+     * @param yOffset      缩放后图像在输入中的垂直偏移
+     * @param dst          目标缓冲区，容量不小于 3 * targetWidth * targetHeight
+     */
+    public void preprocess(Mat image, int newWidth, int newHeight, int targetWidth, int targetHeight,
+                           int xOffset, int yOffset, FloatBuffer dst) {
+        Mat source = image;
+        if (image.cols() != newWidth || image.rows() != newHeight) {
+            // 输出尺寸不变时 resize 复用 resized 的内存
+            Imgproc.resize(image, resized, new Size(newWidth, newHeight), 0, 0, Imgproc.INTER_AREA);
+            source = resized;
+        }
+        int byteCount = newWidth * newHeight * 3;
+        if (pixels.length < byteCount) {
+            pixels = new byte[byteCount];
+        }
+        source.get(0, 0, pixels);
+
+        if (redRow.length < targetWidth) {
+            redRow = new float[targetWidth];
+            greenRow = new float[targetWidth];
+            blueRow = new float[targetWidth];
+            padRow = new float[targetWidth];
+            Arrays.fill(padRow, padValue);
+        }
+        float[] red = redRow;
+        float[] green = greenRow;
+        float[] blue = blueRow;
+        byte[] src = pixels;
+
+        int planeSize = targetWidth * targetHeight;
+        int yEnd = yOffset + newHeight;
+        FloatBuffer out = dst.duplicate();
+        for (int y = 0; y < targetHeight; y++) {
+            int rowStart = y * targetWidth;
+            if (y < yOffset || y >= yEnd) {
+                // 整行都是填充
+                putRow(out, rowStart, padRow, padRow, padRow, targetWidth, planeSize);
+                continue;
+            }
+            // 左右填充，中间从缩放后的 BGR 像素换序并归一化
+            for (int x = 0; x < xOffset; x++) {
+                red[x] = padValue;
+                green[x] = padValue;
+                blue[x] = padValue;
+            }
+            int srcIndex = (y - yOffset) * newWidth * 3;
+            int xEnd = xOffset + newWidth;
+            for (int x = xOffset; x < xEnd; x++, srcIndex += 3) {
+                blue[x] = (src[srcIndex] & 0xFF) * NORMALIZE;
+                green[x] = (src[srcIndex + 1] & 0xFF) * NORMALIZE;
+                red[x] = (src[srcIndex + 2] & 0xFF) * NORMALIZE;
+            }
+            for (int x = xEnd; x < targetWidth; x++) {
+                red[x] = padValue;
+                green[x] = padValue;
+                blue[x] = padValue;
+            }
+            putRow(out, rowStart, red, green, blue, targetWidth, planeSize);
+        }
+    }
+
+    // 把一行 R、G、B 分别批量写入三个平面的对应位置
+    private static void putRow(FloatBuffer out, int rowStart, float[] red, float[] green, float[] blue,
+                               int width, int planeSize) {
+        out.position(rowStart);
+        out.put(red, 0, width);
+        out.position(planeSize + rowStart);
+        out.put(green, 0, width);
+        out.position(2 * planeSize + rowStart);
+        out.put(blue, 0, width);
+    }
+
+    // 释放内部的 OpenCV 本地内存
+    public void release() {
+        resized.release();
+    }
+}
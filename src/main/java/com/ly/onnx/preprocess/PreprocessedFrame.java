@@ -0,0 +1,59 @@
+package com.ly.onnx.preprocess;
+
+import com.ly.onnx.engine.InferenceEngine;
+
+import java.util.List;
+
+/**
+ * 一帧的全部预处理结果。输入尺寸相同的模型共享同一个 {@link PreprocessedInput}，
+ * 第 i 个引擎使用 inputs[engineInputs[i]]；引擎列表是预处理时的快照，决定结果的模型顺序。
+ */
+public final class PreprocessedFrame {
+
+    private final int origWidth;
+    private final int origHeight;
+    private final List<InferenceEngine> engines;
+    private final int[] engineInputs;
+    private final PreprocessedInput[] inputs;
+
+    PreprocessedFrame(int origWidth, int origHeight, List<InferenceEngine> engines, int[] engineInputs,
+                      PreprocessedInput[] inputs) {
+        this.origWidth = origWidth;
+        this.origHeight = origHeight;
+        this.engines = engines;
+        this.engineInputs = engineInputs;
+        this.inputs = inputs;
+    }
+
+    public int getOrigWidth() {
+        return origWidth;
+    }
+
+    public int getOrigHeight() {
+        return origHeight;
+    }
+
+    public List<InferenceEngine> getEngines() {
+        return engines;
+    }
+
+    public int getEngineCount() {
+        return engines.size();
+    }
+
+    public InferenceEngine getEngine(int i) {
+        return engines.get(i);
+    }
+
+    // 第 i 个引擎的输入
+    public PreprocessedInput getInput(int i) {
+        return inputs[engineInputs[i]];
+    }
+
+    // 推理结果使用完毕后归还所有输入缓冲区
+    public void release() {
+        for (PreprocessedInput input : inputs) {
+            input.release();
+        }
+    }
+}
@@ -0,0 +1,34 @@
+package com.ly.onnx.preprocess;
+
+import com.ly.onnx.engine.InputBufferPool;
+
+import java.nio.FloatBuffer;
+
+/**
+ * 一种输入尺寸的预处理结果：CHW 数据所在的池化缓冲区及对应的 letterbox 参数
+ */
+public final class PreprocessedInput {
+
+    private final FloatBuffer data;
+    private final LetterboxPlan plan;
+    private final InputBufferPool pool;
+
+    public PreprocessedInput(FloatBuffer data, LetterboxPlan plan, InputBufferPool pool) {
+        this.data = data;
+        this.plan = plan;
+        this.pool = pool;
+    }
+
+    public FloatBuffer getData() {
+        return data;
+    }
+
+    public LetterboxPlan getPlan() {
+        return plan;
+    }
+
+    // 将缓冲区归还到缓冲区池，之后不能再使用 data
+    public void release() {
+        pool.release(data);
+    }
+}
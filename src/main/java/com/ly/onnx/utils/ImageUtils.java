@@ -31,19 +31,36 @@ public class ImageUtils {
     }
 
 
-    // 将 Mat 转换为 BufferedImage
+    // 将 Mat 转换为 BufferedImage，像素从本地内存直接拷贝到图像的 raster，只拷贝一次
     public static BufferedImage matToBufferedImage(Mat mat) {
-        int type = BufferedImage.TYPE_3BYTE_BGR;
-        if (mat.channels() == 1) {
-            type = BufferedImage.TYPE_BYTE_GRAY;
+        return matToBufferedImage(mat, null);
+    }
+
+    // Mat 对应的 BufferedImage 类型
+    public static int imageTypeOf(Mat mat) {
+        return mat.channels() == 1 ? BufferedImage.TYPE_BYTE_GRAY : BufferedImage.TYPE_3BYTE_BGR;
+    }
+
+    /**
+     * 将 8 位 BGR 或灰度 Mat 一次拷贝写入调用方提供的可复用图像。
+     * BGR 的 Mat 与 TYPE_3BYTE_BGR 的 raster 字节布局相同，无需换序，按行连续时只有一次整块拷贝。
+     *
+     * @param target 可复用的图像，为 null 或尺寸、类型与 Mat 不一致时重新分配
+     * @return 写入像素后的图像，调用方应保存以便下一帧复用
+     */
+    public static BufferedImage matToBufferedImage(Mat mat, BufferedImage target) {
+        if (mat.depth() != CvType.CV_8U || (mat.channels() != 1 && mat.channels() != 3)) {
+            throw new IllegalArgumentException("仅支持 8 位 BGR 或灰度图像：" + mat);
+        }
+        int type = imageTypeOf(mat);
+        if (target == null || target.getWidth() != mat.cols() || target.getHeight() != mat.rows()
+                || target.getType() != type) {
+            target = new BufferedImage(mat.cols(), mat.rows(), type);
         }
-        int bufferSize = mat.channels() * mat.cols() * mat.rows();
-        byte[] buffer = new byte[bufferSize];
-        mat.get(0, 0, buffer); // 获取所有像素
-        BufferedImage image = new BufferedImage(mat.cols(), mat.rows(), type);
-        final byte[] targetPixels = ((java.awt.image.DataBufferByte) image.getRaster().getDataBuffer()).getData();
-        System.arraycopy(buffer, 0, targetPixels, 0, buffer.length);
-        return image;
+        final byte[] targetPixels = ((java.awt.image.DataBufferByte) target.getRaster().getDataBuffer()).getData();
+        // 非连续的 Mat（如 ROI）由 OpenCV 逐行拷贝
+        mat.get(0, 0, targetPixels);
+        return target;
     }
 
 
@@ -0,0 +1,132 @@
+package com.ly.play.headless;
+
+import com.ly.track.Trackers;
+import lombok.Data;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 无界面批量处理的命令行参数
+ */
+@Data
+public class HeadlessOptions {
+
+    static final String USAGE = "用法：HeadlessVideoProcessor --video <视频文件> --model <模型.onnx> --labels <标签.txt>"
+            + " [--model ... --labels ...] [--output <检测结果.jsonl>] [--render <标注视频.mp4>]"
+            + " [--preprocess-workers N] [--inference-workers N] [--track] [--tracker simple|iou|sort|byte]"
+            + " [--detect-every K] [--adaptive-detect] [--motion-threshold R] [--cpu]";
+
+    private String videoPath;
+
+    // 模型文件与标签文件一一对应
+    private List<String> modelPaths = new ArrayList<>();
+    private List<String> labelPaths = new ArrayList<>();
+
+    // 逐帧检测结果输出文件（每行一帧 JSON），为空时不输出
+    private String outputPath;
+
+    // 绘制检测框后的视频输出文件，为空时不绘制
+    private String renderPath;
+
+    private int preprocessWorkers = 2;
+    private int inferenceWorkers = 1;
+
+    private boolean trackingEnabled;
+
+    // 跟踪器类型：simple、iou、sort 或 byte
+    private String tracker = "iou";
+
+    // 每多少帧检测一次，其余帧的框由跟踪器预测；框要跟着目标移动需 --track --tracker sort 或 byte
+    private int detectionInterval = 1;
+
+    // 出现新目标、目标丢失或同一目标置信度明显下降时提前检测
+    private boolean adaptiveDetection;
+
+    // 运动检测阈值（变化像素占比），大于 0 时静止帧跳过推理，沿用上一次的检测结果
+    private double motionThreshold;
+
+    // 只使用 CPU 执行
+    private boolean cpuOnly;
+
+    public static HeadlessOptions parse(String[] args) {
+        HeadlessOptions options = new HeadlessOptions();
+        for (int i = 0; i < args.length; i++) {
+            String arg = args[i];
+            switch (arg) {
+                case "--video":
+                    options.videoPath = value(args, ++i, arg);
+                    break;
+                case "--model":
+                    options.modelPaths.add(value(args, ++i, arg));
+                    break;
+                case "--labels":
+                    options.labelPaths.add(value(args, ++i, arg));
+                    break;
+                case "--output":
+                    options.outputPath = value(args, ++i, arg);
+                    break;
+                case "--render":
+                    options.renderPath = value(args, ++i, arg);
+                    break;
+                case "--preprocess-workers":
+                    options.preprocessWorkers = Integer.parseInt(value(args, ++i, arg));
+                    break;
+                case "--inference-workers":
+                    options.inferenceWorkers = Integer.parseInt(value(args, ++i, arg));
+                    break;
+                case "--track":
+                    options.trackingEnabled = true;
+                    break;
+                case "--tracker":
+                    options.tracker = value(args, ++i, arg);
+                    break;
+                case "--detect-every":
+                    options.detectionInterval = Integer.parseInt(value(args, ++i, arg));
+                    break;
+                case "--adaptive-detect":
+                    options.adaptiveDetection = true;
+                    break;
+                case "--motion-threshold":
+                    options.motionThreshold = Double.parseDouble(value(args, ++i, arg));
+                    break;
+                case "--cpu":
+                    options.cpuOnly = true;
+                    break;
+                default:
+                    throw new IllegalArgumentException("未知参数：" + arg + "\n" + USAGE);
+            }
+        }
+        if (options.videoPath == null) {
+            throw new IllegalArgumentException("缺少 --video\n" + USAGE);
+        }
+        if (options.modelPaths.isEmpty() || options.modelPaths.size() != options.labelPaths.size()) {
+            throw new IllegalArgumentException("--model 与 --labels 需成对出现且至少一对\n" + USAGE);
+        }
+        if (options.detectionInterval < 1) {
+            throw new IllegalArgumentException("--detect-every 必须大于 0\n" + USAGE);
+        }
+        warnIfFrozenPredictions(options.detectionInterval, options.trackingEnabled, options.tracker);
+        return options;
+    }
+
+    // 隔帧检测时跳过的帧只能靠跟踪器的运动模型推进，否则沿用上一次检测的框
+    public static void warnIfFrozenPredictions(int detectionInterval, boolean trackingEnabled, String tracker) {
+        if (detectionInterval > 1 && !(trackingEnabled && Trackers.predictsMotion(tracker))) {
+            System.out.println("警告：--detect-every " + detectionInterval + " 未配合 --track --tracker sort 或 byte，"
+                    + "跳过检测的帧沿用上一次检测的框，不会跟随目标移动");
+        }
+    }
+
+    private static String value(String[] args, int index, String name) {
+        return value(args, index, name, USAGE);
+    }
+
+    // 读取选项 name 的参数值，缺少时抛出带用法说明的异常，其他命令行入口也使用
+    public static String value(String[] args, int index, String name, String usage) {
+        if (index >= args.length) {
+            throw new IllegalArgumentException(name + " 缺少参数值\n" + usage);
+        }
+        return args[index];
+    }
+}
@@ -0,0 +1,322 @@
+package com.ly.play.headless;
+
+import com.alibaba.fastjson.JSONArray;
+import com.alibaba.fastjson.JSONObject;
+import com.ly.onnx.engine.EngineConfig;
+import com.ly.onnx.engine.InferenceEngine;
+import com.ly.onnx.engine.MultiModelExecutor;
+import com.ly.onnx.model.BoundingBox;
+import com.ly.onnx.model.InferenceResult;
+import com.ly.onnx.model.ModelInfo;
+import com.ly.onnx.preprocess.FramePreprocessor;
+import com.ly.onnx.preprocess.PreprocessedFrame;
+import com.ly.onnx.utils.DrawImagesUtils;
+import com.ly.play.pipeline.DetectionScheduler;
+import com.ly.play.pipeline.FrameBufferPool;
+import com.ly.play.pipeline.FramePipeline;
+import com.ly.play.pipeline.FrameTask;
+import com.ly.play.pipeline.MotionGate;
+import com.ly.play.pipeline.OverflowPolicy;
+import com.ly.play.pipeline.PipelineConfig;
+import com.ly.track.Tracker;
+import com.ly.track.Trackers;
+import org.opencv.core.Mat;
+import org.opencv.core.Size;
+import org.opencv.videoio.VideoCapture;
+import org.opencv.videoio.VideoWriter;
+import org.opencv.videoio.Videoio;
+
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 无界面的离线视频批量处理：复用推理引擎和预处理流水线，尽可能快地解码，不做帧率控制，
+ * 默认不绘制画面，逐帧把检测结果写入 JSON Lines 文件，结束时报告整体帧率。
+ * <p>
+ * 帧按解码顺序输出，每行形如：
+ * <pre>
+ * {"frame":0,"timestamp":0,"detections":[{"model":"a.onnx","label":"person","confidence":0.91,"x":1,"y":2,"width":3,"height":4}]}
+ * </pre>
+ */
+public class HeadlessVideoProcessor {
+
+    static {
+        nu.pattern.OpenCV.loadLocally();
+    }
+
+    private final HeadlessOptions options;
+    private final List<InferenceEngine> engines = new ArrayList<>();
+    private final List<String> modelNames = new ArrayList<>();
+    private final FrameBufferPool frameBufferPool = new FrameBufferPool();
+    private final Tracker tracker;
+    private final DetectionScheduler detectionScheduler;
+    // 只在解码线程中使用，未启用时为 null
+    private final MotionGate motionGate;
+
+    private VideoCapture videoCapture;
+    private VideoWriter videoWriter;
+    private Writer detectionWriter;
+    private MultiModelExecutor multiModelExecutor;
+
+    // 只在渲染线程中更新，流水线结束后读取
+    private long processedFrames;
+
+    public HeadlessVideoProcessor(HeadlessOptions options) {
+        this.options = options;
+        this.tracker = Trackers.create(options.getTracker());
+        this.detectionScheduler = new DetectionScheduler(options.getDetectionInterval(), options.isAdaptiveDetection());
+        this.motionGate = options.getMotionThreshold() > 0 ? new MotionGate(options.getMotionThreshold()) : null;
+    }
+
+    public static void main(String[] args) throws Exception {
+        HeadlessOptions options;
+        try {
+            options = HeadlessOptions.parse(args);
+        } catch (IllegalArgumentException e) {
+            System.err.println(e.getMessage());
+            System.exit(2);
+            return;
+        }
+        new HeadlessVideoProcessor(options).run();
+    }
+
+    public void run() throws Exception {
+        try {
+            open();
+            PipelineConfig pipelineConfig = new PipelineConfig();
+            pipelineConfig.setPreprocessWorkers(options.getPreprocessWorkers());
+            pipelineConfig.setInferenceWorkers(options.getInferenceWorkers());
+            // 离线处理不能丢帧
+            FramePipeline pipeline = new FramePipeline(pipelineConfig, new BatchStages(), OverflowPolicy.BLOCK);
+
+            long start = System.nanoTime();
+            pipeline.start();
+            pipeline.awaitCompletion();
+            pipeline.stop();
+            long elapsedNanos = System.nanoTime() - start;
+
+            report(elapsedNanos);
+        } finally {
+            close();
+        }
+    }
+
+    private void open() throws IOException {
+        EngineConfig engineConfig = options.isCpuOnly() ? EngineConfig.cpu(0) : EngineConfig.defaultConfig();
+        engineConfig.setLogPerFrame(false);
+        if (options.isTrackingEnabled() && "byte".equals(options.getTracker())) {
+            // 两阶段关联需要引擎同时给出低置信度框
+            engineConfig.setLowConfidenceThreshold(Trackers.BYTE_LOW_CONFIDENCE);
+        }
+        // 多个推理线程各自租用独立会话，每个会话约 CPU 核数 / 线程数个算子线程
+        engineConfig.setSessionPoolSize(Math.max(1, options.getInferenceWorkers()));
+        for (int i = 0; i < options.getModelPaths().size(); i++) {
+            String modelPath = options.getModelPaths().get(i);
+            engines.add(new InferenceEngine(modelPath, ModelInfo.readLabels(options.getLabelPaths().get(i)), engineConfig));
+            modelNames.add(new File(modelPath).getName());
+        }
+        for (InferenceEngine engine : engines) {
+            engine.awaitReady();
+        }
+        multiModelExecutor = MultiModelExecutor.withDefaultConcurrency();
+        multiModelExecutor.setParallel(engines.size() > 1);
+
+        videoCapture = new VideoCapture(options.getVideoPath(), Videoio.CAP_FFMPEG);
+        if (!videoCapture.isOpened()) {
+            throw new IOException("无法打开视频文件：" + options.getVideoPath());
+        }
+        if (options.getRenderPath() != null) {
+            double fps = videoCapture.get(Videoio.CAP_PROP_FPS);
+            if (fps <= 0 || Double.isNaN(fps)) {
+                fps = 25; // 默认帧率
+            }
+            Size size = new Size(videoCapture.get(Videoio.CAP_PROP_FRAME_WIDTH), videoCapture.get(Videoio.CAP_PROP_FRAME_HEIGHT));
+            videoWriter = new VideoWriter(options.getRenderPath(), VideoWriter.fourcc('m', 'p', '4', 'v'), fps, size);
+            if (!videoWriter.isOpened()) {
+                throw new IOException("无法创建输出视频：" + options.getRenderPath());
+            }
+        }
+        if (options.getOutputPath() != null) {
+            detectionWriter = Files.newBufferedWriter(Paths.get(options.getOutputPath()), StandardCharsets.UTF_8);
+        }
+    }
+
+    private void report(long elapsedNanos) {
+        double seconds = elapsedNanos / 1e9;
+        System.out.println(String.format("处理完成：%d 帧，耗时 %.1f s，平均 %.1f FPS",
+                processedFrames, seconds, seconds > 0 ? processedFrames / seconds : 0));
+        for (int i = 0; i < engines.size(); i++) {
+            InferenceEngine engine = engines.get(i);
+            System.out.println(String.format("模型 %s：平均推理 %.2f ms（%s）",
+                    modelNames.get(i), engine.getAverageInferenceMillis(), engine.getActiveProvider()));
+        }
+        if (detectionScheduler.getSkippedFrames() > 0) {
+            System.out.println(detectionScheduler);
+        }
+        if (motionGate != null) {
+            System.out.println(motionGate);
+        }
+        System.out.println("帧缓冲区池：" + frameBufferPool);
+    }
+
+    private void close() throws IOException {
+        if (detectionWriter != null) {
+            detectionWriter.close();
+        }
+        if (videoWriter != null) {
+            videoWriter.release();
+        }
+        if (videoCapture != null) {
+            videoCapture.release();
+        }
+        if (multiModelExecutor != null) {
+            multiModelExecutor.close();
+        }
+        for (InferenceEngine engine : engines) {
+            engine.close();
+        }
+        if (motionGate != null) {
+            motionGate.release();
+        }
+        frameBufferPool.clear();
+    }
+
+    // 批量处理时流水线各阶段的处理逻辑
+    private class BatchStages implements FramePipeline.Stages {
+
+        @Override
+        public FrameTask decode() {
+            Mat frame = frameBufferPool.acquireMat();
+            if (!videoCapture.read(frame) || frame.empty()) {
+                frameBufferPool.releaseMat(frame);
+                return null;
+            }
+            FrameTask task = new FrameTask(frame, (long) videoCapture.get(Videoio.CAP_PROP_POS_MSEC));
+            boolean motion = motionGate == null || motionGate.hasMotion(frame);
+            task.setMotion(motion);
+            task.setDetect(detectionScheduler.shouldDetect(motion));
+            return task;
+        }
+
+        @Override
+        public void preprocess(FrameTask task) {
+            Mat frame = task.getFrame();
+            if (task.isDetect()) {
+                long start = System.nanoTime();
+                FramePreprocessor preprocessor = frameBufferPool.acquirePreprocessor();
+                try {
+                    task.setPreprocessedFrame(preprocessor.preprocess(frame, engines));
+                } finally {
+                    frameBufferPool.releasePreprocessor(preprocessor);
+                }
+                detectionScheduler.recordDetectionNanos(System.nanoTime() - start);
+            }
+            // 不输出视频时原始帧已用完，绘制时在 Mat 上直接画，不生成 Java 图像
+            if (videoWriter == null) {
+                frameBufferPool.releaseMat(frame);
+                task.setFrame(null);
+            }
+        }
+
+        @Override
+        public void infer(FrameTask task) {
+            if (!task.isDetect()) {
+                return;
+            }
+            long start = System.nanoTime();
+            PreprocessedFrame preprocessedFrame = task.getPreprocessedFrame();
+            task.setInferenceResults(multiModelExecutor.inferAll(preprocessedFrame));
+            detectionScheduler.recordDetectionNanos(System.nanoTime() - start);
+            preprocessedFrame.release();
+            task.setPreprocessedFrame(null);
+        }
+
+        @Override
+        public void postprocess(FrameTask task) {
+            // 不检测的帧由跟踪器把目标推进一帧，用预测框代替推理结果；静止帧直接沿用上一次的框
+            if (!task.isDetect()) {
+                boolean predict = options.isTrackingEnabled() && task.isMotion();
+                task.setInferenceResults(detectionScheduler.predictResults(predict ? tracker : null));
+                return;
+            }
+            if (!options.isTrackingEnabled()) {
+                detectionScheduler.recordDetection(task.getInferenceResults());
+                return;
+            }
+            List<BoundingBox> allBoundingBoxes = new ArrayList<>();
+            List<BoundingBox> lowConfidenceBoxes = new ArrayList<>();
+            for (InferenceResult result : task.getInferenceResults()) {
+                allBoundingBoxes.addAll(result.getBoundingBoxes());
+                lowConfidenceBoxes.addAll(result.getLowConfidenceBoxes());
+            }
+            tracker.update(allBoundingBoxes, lowConfidenceBoxes);
+            for (InferenceResult result : task.getInferenceResults()) {
+                result.promoteTrackedLowConfidenceBoxes();
+            }
+            detectionScheduler.recordDetection(task.getInferenceResults());
+        }
+
+        @Override
+        public void render(FrameTask task) throws IOException {
+            if (detectionWriter != null) {
+                detectionWriter.write(toJson(task).toJSONString());
+                detectionWriter.write('\n');
+            }
+            if (videoWriter != null) {
+                DrawImagesUtils.drawInferenceResult(task.getFrame(), task.getInferenceResults());
+                videoWriter.write(task.getFrame());
+            }
+            processedFrames++;
+        }
+
+        @Override
+        public void release(FrameTask task) {
+            if (task.getPreprocessedFrame() != null) {
+                task.getPreprocessedFrame().release();
+                task.setPreprocessedFrame(null);
+            }
+            if (task.getFrame() != null) {
+                frameBufferPool.releaseMat(task.getFrame());
+                task.setFrame(null);
+            }
+        }
+    }
+
+    // 一帧的检测结果，按模型顺序展开
+    private JSONObject toJson(FrameTask task) {
+        JSONArray detections = new JSONArray();
+        List<InferenceResult> results = task.getInferenceResults();
+        for (int i = 0; i < results.size(); i++) {
+            for (BoundingBox box : results.get(i).getBoundingBoxes()) {
+                JSONObject detection = new JSONObject(true);
+                detection.put("model", modelNames.get(i));
+                detection.put("label", box.getLabel());
+                detection.put("confidence", box.getConfidence());
+                detection.put("x", box.getX());
+                detection.put("y", box.getY());
+                detection.put("width", box.getWidth());
+                detection.put("height", box.getHeight());
+                if (box.getTrackId() > 0) {
+                    detection.put("trackId", box.getTrackId());
+                }
+                detections.add(detection);
+            }
+        }
+        JSONObject frame = new JSONObject(true);
+        frame.put("frame", task.getSequence());
+        frame.put("timestamp", task.getTimestampMillis());
+        frame.put("detections", detections);
+        if (!task.isDetect()) {
+            // 本帧未检测，框为跟踪器的预测或静止时沿用的上一次结果
+            frame.put("predicted", true);
+        }
+        return frame;
+    }
+}
@@ -0,0 +1,131 @@
+package com.ly.play.multistream;
+
+import com.ly.play.pipeline.FrameTask;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 多路流之间的推理调度：按平滑加权轮询（smooth weighted round-robin）在有待处理帧的流之间分配推理机会，
+ * 权重相同时即为公平轮询，任何一路流都不会因为别的流帧多而饿死。
+ * <p>
+ * 每路流同一时刻最多一帧在推理，流内帧顺序不变、跟踪器无需加锁；
+ * 等待队列满时按流的 {@link com.ly.play.pipeline.OverflowPolicy} 阻塞解码或丢弃旧帧。
+ */
+public class FairScheduler {
+
+    private final List<VideoStream> streams = new ArrayList<>();
+
+    synchronized void register(VideoStream stream) {
+        streams.add(stream);
+        notifyAll();
+    }
+
+    // 移除一路流并释放其等待中的帧；正在推理的帧由推理线程完成后释放
+    synchronized void unregister(VideoStream stream) {
+        streams.remove(stream);
+        FrameTask task;
+        while ((task = stream.pending.pollFirst()) != null) {
+            stream.release(task);
+        }
+        notifyAll();
+    }
+
+    // 解码线程提交一帧，队列满时按溢出策略处理
+    synchronized void submit(VideoStream stream, FrameTask task) throws InterruptedException {
+        int capacity = Math.max(1, stream.getConfig().getQueueCapacity());
+        while (true) {
+            // 流已被移除（可能发生在阻塞等待期间）
+            if (!streams.contains(stream)) {
+                drop(stream, task);
+                return;
+            }
+            if (stream.pending.size() < capacity) {
+                break;
+            }
+            switch (stream.getOverflowPolicy()) {
+                case DROP_OLDEST:
+                    drop(stream, stream.pending.pollFirst());
+                    break;
+                case KEEP_LATEST:
+                    FrameTask stale;
+                    while ((stale = stream.pending.pollFirst()) != null) {
+                        drop(stream, stale);
+                    }
+                    break;
+                default:
+                    wait();
+                    break;
+            }
+        }
+        stream.pending.addLast(task);
+        notifyAll();
+    }
+
+    private void drop(VideoStream stream, FrameTask task) {
+        stream.getMetrics().recordDropped();
+        stream.release(task);
+    }
+
+    /**
+     * 取出下一路可推理的流，其队首帧已移到 {@link VideoStream#inFlight}；超时返回 null。
+     * 处理完成后必须调用 {@link #complete(VideoStream)}。
+     */
+    synchronized VideoStream take(long timeout, TimeUnit unit) throws InterruptedException {
+        long deadline = System.nanoTime() + unit.toNanos(timeout);
+        while (true) {
+            VideoStream selected = select();
+            if (selected != null) {
+                selected.inFlight = selected.pending.pollFirst();
+                notifyAll();
+                return selected;
+            }
+            long remaining = deadline - System.nanoTime();
+            if (remaining <= 0) {
+                return null;
+            }
+            TimeUnit.NANOSECONDS.timedWait(this, remaining);
+        }
+    }
+
+    // 平滑加权轮询：每个候选流累加自身权重，选中累计值最大的，再减去本轮总权重
+    private VideoStream select() {
+        VideoStream best = null;
+        long totalWeight = 0;
+        for (VideoStream stream : streams) {
+            if (stream.inFlight != null || stream.pending.isEmpty()) {
+                continue;
+            }
+            int weight = Math.max(1, stream.getConfig().getWeight());
+            stream.currentWeight += weight;
+            totalWeight += weight;
+            if (best == null || stream.currentWeight > best.currentWeight) {
+                best = stream;
+            }
+        }
+        if (best != null) {
+            best.currentWeight -= totalWeight;
+        }
+        return best;
+    }
+
+    synchronized void complete(VideoStream stream) {
+        stream.inFlight = null;
+        notifyAll();
+    }
+
+    synchronized void wakeUp() {
+        notifyAll();
+    }
+
+    // 所有流都已解码结束且没有待处理或正在推理的帧
+    synchronized boolean isIdle() {
+        for (VideoStream stream : streams) {
+            if (!stream.isFinished() || !stream.pending.isEmpty() || stream.inFlight != null) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
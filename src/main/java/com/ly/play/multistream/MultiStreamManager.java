@@ -0,0 +1,252 @@
+package com.ly.play.multistream;
+
+import com.ly.onnx.engine.BatchingModelExecutor;
+import com.ly.onnx.engine.InferenceEngine;
+import com.ly.onnx.engine.MultiModelExecutor;
+import com.ly.onnx.model.BoundingBox;
+import com.ly.onnx.model.InferenceResult;
+import com.ly.onnx.preprocess.FramePreprocessor;
+import com.ly.onnx.preprocess.PreprocessedFrame;
+import com.ly.play.pipeline.DetectionScheduler;
+import com.ly.play.pipeline.FrameBufferPool;
+import com.ly.play.pipeline.FrameTask;
+import com.ly.track.Tracker;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * 同时接入多路视频流，所有流共享同一组已加载的推理引擎。
+ * 每路流有独立的解码线程和跟踪器；固定数量的推理线程由 {@link FairScheduler} 按权重在各路流之间分配，
+ * 一路流帧多不会挤占其他流的推理机会。
+ * <p>
+ * 启用跨流合批后，不同流同时在推理的帧会被合成一次批量推理，推理线程数应不少于流数才能凑出批次；
+ * 每帧按所属流的延迟预算设置截止时刻。
+ */
+public class MultiStreamManager implements AutoCloseable {
+    private static final Logger logger = Logger.getLogger(MultiStreamManager.class.getName());
+
+    private final List<InferenceEngine> engines;
+    private final int inferenceWorkers;
+    private final FairScheduler scheduler = new FairScheduler();
+    private final FrameBufferPool frameBufferPool = new FrameBufferPool();
+    private final MultiModelExecutor multiModelExecutor = MultiModelExecutor.withDefaultConcurrency();
+    // 跨流合批推理，为 null 时每帧单独推理
+    private volatile BatchingModelExecutor batchingExecutor;
+    private final Map<String, VideoStream> streams = new LinkedHashMap<>();
+    private final List<Thread> workers = new ArrayList<>();
+    private volatile StreamFrameListener listener;
+    private volatile boolean running;
+
+    /**
+     * @param engines          所有流共享的推理引擎，加载一次即可供任意多路流使用
+     * @param inferenceWorkers 推理线程数，建议与引擎会话池大小一致
+     */
+    public MultiStreamManager(List<InferenceEngine> engines, int inferenceWorkers) {
+        this.engines = new CopyOnWriteArrayList<>(engines);
+        this.inferenceWorkers = Math.max(1, inferenceWorkers);
+        // 多个模型时并行推理，缩短单帧占用推理线程的时间
+        multiModelExecutor.setParallel(engines.size() > 1);
+    }
+
+    public void setListener(StreamFrameListener listener) {
+        this.listener = listener;
+    }
+
+    /**
+     * 启用跨流合批，需在 start 之前调用
+     *
+     * @param maxBatchSize  单次批量推理的最大帧数
+     * @param maxWaitMillis 凑批的最长等待时间，各流的延迟预算更紧时提前切分
+     */
+    public synchronized void enableBatching(int maxBatchSize, long maxWaitMillis) {
+        if (batchingExecutor != null) {
+            batchingExecutor.close();
+        }
+        batchingExecutor = new BatchingModelExecutor(maxBatchSize, maxWaitMillis);
+    }
+
+    public synchronized void start() {
+        if (running) {
+            return;
+        }
+        running = true;
+        for (int i = 0; i < inferenceWorkers; i++) {
+            Thread worker = new Thread(this::inferenceLoop, "multistream-inference-" + i);
+            worker.setDaemon(true);
+            workers.add(worker);
+            worker.start();
+        }
+    }
+
+    public synchronized VideoStream addStream(StreamConfig config) throws IOException {
+        if (streams.containsKey(config.getId())) {
+            throw new IllegalArgumentException("流已存在：" + config.getId());
+        }
+        VideoStream stream = new VideoStream(config, scheduler, frameBufferPool);
+        scheduler.register(stream);
+        try {
+            stream.start();
+        } catch (IOException e) {
+            scheduler.unregister(stream);
+            throw e;
+        }
+        streams.put(config.getId(), stream);
+        logger.info("接入流 " + config.getId() + "：" + config.getSource() + "，权重 " + config.getWeight()
+                + "，溢出策略 " + stream.getOverflowPolicy());
+        return stream;
+    }
+
+    public synchronized void removeStream(String id) {
+        VideoStream stream = streams.remove(id);
+        if (stream == null) {
+            return;
+        }
+        // 先移出调度器，阻塞在提交上的解码线程会随之返回
+        scheduler.unregister(stream);
+        stream.stop();
+        logger.info("移除流 " + id + "：" + stream.getMetrics());
+        if (stream.getDetectionScheduler().getSkippedFrames() > 0) {
+            logger.info("流 " + id + " " + stream.getDetectionScheduler());
+        }
+    }
+
+    // 各路流的指标快照，按接入顺序排列
+    public synchronized Map<String, StreamMetrics> getMetrics() {
+        Map<String, StreamMetrics> metrics = new LinkedHashMap<>();
+        for (Map.Entry<String, VideoStream> entry : streams.entrySet()) {
+            metrics.put(entry.getKey(), entry.getValue().getMetrics());
+        }
+        return metrics;
+    }
+
+    // 各路流的检测调度，提供跳过比例和估计节省的推理时间，按接入顺序排列
+    public synchronized Map<String, DetectionScheduler> getDetectionSchedulers() {
+        Map<String, DetectionScheduler> schedulers = new LinkedHashMap<>();
+        for (Map.Entry<String, VideoStream> entry : streams.entrySet()) {
+            schedulers.put(entry.getKey(), entry.getValue().getDetectionScheduler());
+        }
+        return schedulers;
+    }
+
+    // 所有流都已解码结束并处理完剩余的帧（只有本地文件会结束）
+    public boolean isIdle() {
+        return scheduler.isIdle();
+    }
+
+    public FrameBufferPool getFrameBufferPool() {
+        return frameBufferPool;
+    }
+
+    private void inferenceLoop() {
+        try {
+            while (running) {
+                VideoStream stream = scheduler.take(100, TimeUnit.MILLISECONDS);
+                if (stream == null) {
+                    continue;
+                }
+                FrameTask task = stream.inFlight;
+                try {
+                    process(stream, task);
+                    stream.getMetrics().recordProcessed(task.getDecodedNanos());
+                } catch (RuntimeException e) {
+                    stream.getMetrics().recordFailed();
+                    logger.log(Level.WARNING, "流 " + stream.getId() + " 第 " + task.getSequence() + " 帧处理失败", e);
+                } finally {
+                    stream.release(task);
+                    scheduler.complete(stream);
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void process(VideoStream stream, FrameTask task) {
+        DetectionScheduler detectionScheduler = stream.getDetectionScheduler();
+        task.setDetect(detectionScheduler.shouldDetect(task.isMotion()));
+        if (task.isDetect()) {
+            detect(stream, task);
+            detectionScheduler.recordDetection(task.getInferenceResults());
+        } else {
+            // 不检测的帧由跟踪器把目标推进一帧，用预测框代替推理结果；静止帧直接沿用上一次的框
+            boolean predict = stream.getConfig().isTrackingEnabled() && task.isMotion();
+            Tracker tracker = predict ? stream.getTracker() : null;
+            task.setInferenceResults(detectionScheduler.predictResults(tracker));
+        }
+
+        StreamFrameListener current = listener;
+        if (current != null) {
+            current.onFrame(stream.getId(), task);
+        }
+    }
+
+    // 预处理、推理并更新跟踪器
+    private void detect(VideoStream stream, FrameTask task) {
+        long start = System.nanoTime();
+        FramePreprocessor preprocessor = frameBufferPool.acquirePreprocessor();
+        PreprocessedFrame preprocessedFrame;
+        try {
+            preprocessedFrame = preprocessor.preprocess(task.getFrame(), engines);
+        } finally {
+            frameBufferPool.releasePreprocessor(preprocessor);
+        }
+        task.setPreprocessedFrame(preprocessedFrame);
+        BatchingModelExecutor batching = batchingExecutor;
+        if (batching != null) {
+            long deadlineNanos = task.getDecodedNanos() + stream.getConfig().getLatencyBudgetMillis() * 1_000_000;
+            task.setInferenceResults(batching.inferAll(preprocessedFrame, deadlineNanos));
+        } else {
+            task.setInferenceResults(multiModelExecutor.inferAll(preprocessedFrame));
+        }
+        preprocessedFrame.release();
+        task.setPreprocessedFrame(null);
+        stream.getDetectionScheduler().recordDetectionNanos(System.nanoTime() - start);
+
+        if (stream.getConfig().isTrackingEnabled()) {
+            List<BoundingBox> allBoundingBoxes = new ArrayList<>();
+            List<BoundingBox> lowConfidenceBoxes = new ArrayList<>();
+            for (InferenceResult result : task.getInferenceResults()) {
+                allBoundingBoxes.addAll(result.getBoundingBoxes());
+                lowConfidenceBoxes.addAll(result.getLowConfidenceBoxes());
+            }
+            stream.getTracker().update(allBoundingBoxes, lowConfidenceBoxes);
+            for (InferenceResult result : task.getInferenceResults()) {
+                result.promoteTrackedLowConfidenceBoxes();
+            }
+        }
+    }
+
+    // 停止所有流和推理线程，引擎由调用方关闭
+    @Override
+    public synchronized void close() {
+        for (String id : new ArrayList<>(streams.keySet())) {
+            removeStream(id);
+        }
+        running = false;
+        for (Thread worker : workers) {
+            worker.interrupt();
+        }
+        for (Thread worker : workers) {
+            try {
+                worker.join();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                break;
+            }
+        }
+        workers.clear();
+        multiModelExecutor.close();
+        if (batchingExecutor != null) {
+            batchingExecutor.close();
+        }
+        frameBufferPool.clear();
+    }
+}
@@ -0,0 +1,168 @@
+package com.ly.play.multistream;
+
+import com.ly.onnx.engine.EngineConfig;
+import com.ly.onnx.engine.InferenceEngine;
+import com.ly.onnx.model.ModelInfo;
+import com.ly.play.headless.HeadlessOptions;
+import com.ly.play.pipeline.DetectionScheduler;
+import com.ly.track.Trackers;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 多路流的无界面入口：模型只加载一次，各路流共享；定期打印每路流的帧率、延迟和丢帧情况。
+ * 只接入本地文件时全部处理完即退出，包含实时源时一直运行。
+ */
+public class MultiStreamRunner {
+
+    static {
+        nu.pattern.OpenCV.loadLocally();
+    }
+
+    private static final String USAGE = "用法：MultiStreamRunner --model <模型.onnx> --labels <标签.txt> [--model ... --labels ...]"
+            + " --stream <视频源> [--weight N] [--stream ...] [--workers N] [--report-seconds N] [--track] [--tracker simple|iou|sort|byte] [--cpu]"
+            + " [--detect-every K] [--adaptive-detect] [--motion-threshold R]"
+            + " [--batch N --batch-wait-ms N --latency-budget-ms N]";
+
+    // 读取当前选项的参数值，缺少时打印用法
+    private static String value(String[] args, int index) {
+        return HeadlessOptions.value(args, index, args[index - 1], USAGE);
+    }
+
+    public static void main(String[] args) throws Exception {
+        List<String> modelPaths = new ArrayList<>();
+        List<String> labelPaths = new ArrayList<>();
+        List<StreamConfig> streamConfigs = new ArrayList<>();
+        int workers = Math.max(1, Runtime.getRuntime().availableProcessors() / 4);
+        int reportSeconds = 5;
+        boolean tracking = false;
+        String tracker = "iou";
+        boolean cpuOnly = false;
+        int detectionInterval = 1;
+        boolean adaptiveDetection = false;
+        double motionThreshold = 0;
+        int maxBatchSize = 1;
+        long batchWaitMillis = 10;
+        long latencyBudgetMillis = 200;
+        for (int i = 0; i < args.length; i++) {
+            switch (args[i]) {
+                case "--model":
+                    modelPaths.add(value(args, ++i));
+                    break;
+                case "--labels":
+                    labelPaths.add(value(args, ++i));
+                    break;
+                case "--stream":
+                    streamConfigs.add(new StreamConfig("stream-" + streamConfigs.size(), value(args, ++i)));
+                    break;
+                case "--weight":
+                    // 作用于前一个 --stream
+                    if (streamConfigs.isEmpty()) {
+                        throw new IllegalArgumentException("--weight 需跟在 --stream 之后\n" + USAGE);
+                    }
+                    streamConfigs.get(streamConfigs.size() - 1).setWeight(Integer.parseInt(value(args, ++i)));
+                    break;
+                case "--workers":
+                    workers = Integer.parseInt(value(args, ++i));
+                    break;
+                case "--report-seconds":
+                    reportSeconds = Integer.parseInt(value(args, ++i));
+                    break;
+                case "--track":
+                    tracking = true;
+                    break;
+                case "--tracker":
+                    tracker = value(args, ++i);
+                    break;
+                case "--detect-every":
+                    detectionInterval = Integer.parseInt(value(args, ++i));
+                    break;
+                case "--adaptive-detect":
+                    adaptiveDetection = true;
+                    break;
+                case "--motion-threshold":
+                    motionThreshold = Double.parseDouble(value(args, ++i));
+                    break;
+                case "--cpu":
+                    cpuOnly = true;
+                    break;
+                case "--batch":
+                    maxBatchSize = Integer.parseInt(value(args, ++i));
+                    break;
+                case "--batch-wait-ms":
+                    batchWaitMillis = Long.parseLong(value(args, ++i));
+                    break;
+                case "--latency-budget-ms":
+                    latencyBudgetMillis = Long.parseLong(value(args, ++i));
+                    break;
+                default:
+                    throw new IllegalArgumentException("未知参数：" + args[i] + "\n" + USAGE);
+            }
+        }
+        if (modelPaths.isEmpty() || modelPaths.size() != labelPaths.size() || streamConfigs.isEmpty()) {
+            throw new IllegalArgumentException(USAGE);
+        }
+        // 提前校验名称，未知跟踪器在加载模型之前报错
+        Trackers.create(tracker);
+        HeadlessOptions.warnIfFrozenPredictions(detectionInterval, tracking, tracker);
+
+        boolean batching = maxBatchSize > 1;
+        if (batching) {
+            // 每路流同一时刻只有一帧在推理，推理线程数不少于流数才能凑满批次
+            workers = Math.max(workers, streamConfigs.size());
+        }
+
+        EngineConfig engineConfig = cpuOnly ? EngineConfig.cpu(0) : EngineConfig.defaultConfig();
+        engineConfig.setLogPerFrame(false);
+        if (tracking && "byte".equals(tracker)) {
+            // 两阶段关联需要引擎同时给出低置信度框
+            engineConfig.setLowConfidenceThreshold(Trackers.BYTE_LOW_CONFIDENCE);
+        }
+        // 合批时每个模型只有一个批处理线程在推理；否则每个工作线程租用一个会话，各自约 CPU 核数 / 线程数个算子线程
+        engineConfig.setSessionPoolSize(batching ? 1 : workers);
+        List<InferenceEngine> engines = new ArrayList<>();
+        for (int i = 0; i < modelPaths.size(); i++) {
+            InferenceEngine engine = new InferenceEngine(modelPaths.get(i), ModelInfo.readLabels(labelPaths.get(i)), engineConfig);
+            engines.add(engine);
+        }
+        for (InferenceEngine engine : engines) {
+            engine.awaitReady();
+        }
+
+        boolean hasLiveSource = false;
+        try (MultiStreamManager manager = new MultiStreamManager(engines, workers)) {
+            if (batching) {
+                manager.enableBatching(maxBatchSize, batchWaitMillis);
+            }
+            manager.start();
+            for (StreamConfig config : streamConfigs) {
+                config.setTrackingEnabled(tracking);
+                config.setTracker(tracker);
+                config.setDetectionInterval(detectionInterval);
+                config.setAdaptiveDetection(adaptiveDetection);
+                config.setMotionThreshold(motionThreshold);
+                config.setLatencyBudgetMillis(latencyBudgetMillis);
+                manager.addStream(config);
+                hasLiveSource |= config.isLive();
+            }
+            while (hasLiveSource || !manager.isIdle()) {
+                Thread.sleep(reportSeconds * 1000L);
+                for (Map.Entry<String, StreamMetrics> entry : manager.getMetrics().entrySet()) {
+                    System.out.println(entry.getKey() + "：" + entry.getValue());
+                }
+                for (Map.Entry<String, DetectionScheduler> entry : manager.getDetectionSchedulers().entrySet()) {
+                    if (entry.getValue().getSkippedFrames() > 0) {
+                        System.out.println(entry.getKey() + "：" + entry.getValue());
+                    }
+                }
+            }
+            System.out.println("帧缓冲区池：" + manager.getFrameBufferPool());
+        } finally {
+            for (InferenceEngine engine : engines) {
+                engine.close();
+            }
+        }
+    }
+}
@@ -0,0 +1,67 @@
+package com.ly.play.multistream;
+
+import com.ly.play.opencv.VideoSources;
+import com.ly.play.pipeline.OverflowPolicy;
+import lombok.Data;
+
+/**
+ * 单路视频流的配置
+ */
+@Data
+public class StreamConfig {
+
+    // 流的唯一标识，用于指标和结果回调
+    private String id;
+
+    // 摄像头编号、网络流地址或本地视频文件
+    private String source;
+
+    // 调度权重，权重为 2 的流获得的推理机会约为权重 1 的两倍
+    private int weight = 1;
+
+    // 等待推理的帧数上限
+    private int queueCapacity = 2;
+
+    // 等待队列满时的策略，为 null 时实时源只保留最新帧，本地文件阻塞解码
+    private OverflowPolicy overflowPolicy;
+
+    // 本地文件是否按原帧率读取；关闭时以最快速度解码
+    private boolean paced = true;
+
+    private boolean trackingEnabled;
+
+    // 跟踪器类型：simple、iou、sort 或 byte，见 Trackers.create
+    private String tracker = "iou";
+
+    // 每多少帧检测一次，其余帧的框由跟踪器预测；框要跟着目标移动需启用跟踪并使用 sort 或 byte 跟踪器
+    private int detectionInterval = 1;
+
+    // 出现新目标、目标丢失或同一目标置信度明显下降时提前检测
+    private boolean adaptiveDetection;
+
+    // 运动检测阈值（变化像素占比），大于 0 时静止帧跳过推理，沿用上一次的检测结果
+    private double motionThreshold;
+
+    // 启用跨流合批时，从解码到拿到推理结果允许的最长时间（毫秒）
+    private long latencyBudgetMillis = 200;
+
+    public StreamConfig() {
+    }
+
+    public StreamConfig(String id, String source) {
+        this.id = id;
+        this.source = source;
+    }
+
+    public boolean isLive() {
+        return VideoSources.isLiveSource(source);
+    }
+
+    // 实际生效的溢出策略
+    public OverflowPolicy effectiveOverflowPolicy() {
+        if (overflowPolicy != null) {
+            return overflowPolicy;
+        }
+        return isLive() ? OverflowPolicy.KEEP_LATEST : OverflowPolicy.BLOCK;
+    }
+}
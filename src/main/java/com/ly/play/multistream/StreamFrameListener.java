@@ -0,0 +1,12 @@
+package com.ly.play.multistream;
+
+import com.ly.play.pipeline.FrameTask;
+
+/**
+ * 接收每路流完成推理的帧，同一路流的帧按解码顺序回调。
+ * 回调在推理线程中执行，返回后帧的 Mat 会回到缓冲区池，需要保留图像时应自行拷贝。
+ */
+public interface StreamFrameListener {
+
+    void onFrame(String streamId, FrameTask task);
+}
@@ -0,0 +1,99 @@
+package com.ly.play.multistream;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 单路流的运行指标：解码、完成推理、丢弃和失败的帧数，以及按指数滑动平均估计的处理帧率和端到端延迟
+ */
+public class StreamMetrics {
+
+    // 指数滑动平均的平滑系数
+    private static final double ALPHA = 0.1;
+
+    private final AtomicLong decodedFrames = new AtomicLong();
+    private final AtomicLong processedFrames = new AtomicLong();
+    private final AtomicLong droppedFrames = new AtomicLong();
+    private final AtomicLong failedFrames = new AtomicLong();
+    // 实时源断流后重新打开的次数
+    private final AtomicLong reconnects = new AtomicLong();
+
+    // 帧间隔和延迟的滑动平均（纳秒）
+    private volatile double frameIntervalNanos;
+    private volatile double latencyNanos;
+    private long lastProcessedNanos;
+
+    void recordDecoded() {
+        decodedFrames.incrementAndGet();
+    }
+
+    void recordDropped() {
+        droppedFrames.incrementAndGet();
+    }
+
+    void recordFailed() {
+        failedFrames.incrementAndGet();
+    }
+
+    void recordReconnect() {
+        reconnects.incrementAndGet();
+    }
+
+    // 一帧完成推理和回调，decodedNanos 为该帧解码完成的时刻
+    synchronized void recordProcessed(long decodedNanos) {
+        long now = System.nanoTime();
+        processedFrames.incrementAndGet();
+        if (lastProcessedNanos != 0) {
+            frameIntervalNanos = smooth(frameIntervalNanos, now - lastProcessedNanos);
+        }
+        lastProcessedNanos = now;
+        latencyNanos = smooth(latencyNanos, now - decodedNanos);
+    }
+
+    private static double smooth(double average, long sample) {
+        return average == 0 ? sample : average + ALPHA * (sample - average);
+    }
+
+    public long getDecodedFrames() {
+        return decodedFrames.get();
+    }
+
+    public long getProcessedFrames() {
+        return processedFrames.get();
+    }
+
+    public long getDroppedFrames() {
+        return droppedFrames.get();
+    }
+
+    public long getFailedFrames() {
+        return failedFrames.get();
+    }
+
+    public long getReconnects() {
+        return reconnects.get();
+    }
+
+    // 最近的处理帧率
+    public double getFps() {
+        double interval = frameIntervalNanos;
+        return interval > 0 ? 1e9 / interval : 0;
+    }
+
+    // 最近的解码到完成推理的平均延迟（毫秒）
+    public double getLatencyMillis() {
+        return latencyNanos / 1e6;
+    }
+
+    // 丢帧比例
+    public double getDropRatio() {
+        long decoded = decodedFrames.get();
+        return decoded == 0 ? 0 : (double) droppedFrames.get() / decoded;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("%.1f FPS, 延迟 %.1f ms, 解码 %d, 完成 %d, 丢弃 %d (%.1f%%), 失败 %d, 重连 %d",
+                getFps(), getLatencyMillis(), getDecodedFrames(), getProcessedFrames(), getDroppedFrames(),
+                getDropRatio() * 100, getFailedFrames(), getReconnects());
+    }
+}
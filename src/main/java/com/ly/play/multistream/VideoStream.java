@@ -0,0 +1,210 @@
+package com.ly.play.multistream;
+
+import com.ly.play.opencv.VideoSources;
+import com.ly.play.pipeline.DetectionScheduler;
+import com.ly.play.pipeline.FrameBufferPool;
+import com.ly.play.pipeline.FrameTask;
+import com.ly.play.pipeline.MotionGate;
+import com.ly.play.pipeline.OverflowPolicy;
+import com.ly.track.Tracker;
+import com.ly.track.Trackers;
+import org.opencv.core.Mat;
+import org.opencv.videoio.VideoCapture;
+import org.opencv.videoio.Videoio;
+
+import java.io.IOException;
+import java.util.ArrayDeque;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * 一路视频流：独占一个解码线程和一个跟踪器，解码后的帧放入自己的等待队列，由 {@link FairScheduler} 分配推理机会。
+ * 等待队列和调度状态由调度器的锁保护。
+ */
+public class VideoStream {
+    private static final Logger logger = Logger.getLogger(VideoStream.class.getName());
+
+    // 实时源读取失败后的重试间隔
+    private static final long RECONNECT_MILLIS = 1000;
+    // 实时源连续读取失败多少次后重新打开；RTSP 会话断开后原来的 VideoCapture 不会恢复
+    private static final int MAX_READ_FAILURES = 3;
+
+    private final StreamConfig config;
+    private final OverflowPolicy overflowPolicy;
+    private final FairScheduler scheduler;
+    private final FrameBufferPool frameBufferPool;
+    private final StreamMetrics metrics = new StreamMetrics();
+    private final Tracker tracker;
+    private final DetectionScheduler detectionScheduler;
+    // 只在解码线程中使用，未启用时为 null
+    private final MotionGate motionGate;
+
+    // 解码线程重连时替换，stop() 在解码线程结束后释放
+    private VideoCapture capture;
+    private Thread decodeThread;
+    private volatile boolean running;
+    // 解码结束（文件读完或流被移除）
+    private volatile boolean finished;
+    private long nextSequence;
+
+    // 以下字段由调度器的锁保护
+    final ArrayDeque<FrameTask> pending = new ArrayDeque<>();
+    // 正在推理的帧，同一时刻每路流最多一帧，保证帧顺序且跟踪器只被一个线程使用
+    FrameTask inFlight;
+    // 平滑加权轮询的当前权重
+    long currentWeight;
+
+    VideoStream(StreamConfig config, FairScheduler scheduler, FrameBufferPool frameBufferPool) {
+        this.config = config;
+        this.overflowPolicy = config.effectiveOverflowPolicy();
+        this.scheduler = scheduler;
+        this.frameBufferPool = frameBufferPool;
+        this.tracker = Trackers.create(config.getTracker());
+        this.detectionScheduler = new DetectionScheduler(config.getDetectionInterval(), config.isAdaptiveDetection());
+        this.motionGate = config.getMotionThreshold() > 0 ? new MotionGate(config.getMotionThreshold()) : null;
+    }
+
+    void start() throws IOException {
+        capture = VideoSources.open(config.getSource());
+        running = true;
+        decodeThread = new Thread(this::decodeLoop, "stream-decode-" + config.getId());
+        decodeThread.setDaemon(true);
+        decodeThread.start();
+    }
+
+    // 停止解码并释放视频源，等待中的帧由调度器释放
+    void stop() {
+        running = false;
+        if (decodeThread != null) {
+            decodeThread.interrupt();
+            try {
+                decodeThread.join();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        if (capture != null) {
+            capture.release();
+        }
+        if (motionGate != null) {
+            motionGate.release();
+        }
+        finished = true;
+    }
+
+    private void decodeLoop() {
+        long frameDelayNanos = (long) (1e9 / VideoSources.frameRate(capture));
+        boolean paced = config.isPaced() && !config.isLive();
+        long nextFrameNanos = System.nanoTime();
+        int readFailures = 0;
+        try {
+            while (running) {
+                if (paced) {
+                    long sleepNanos = nextFrameNanos - System.nanoTime();
+                    if (sleepNanos > 0) {
+                        Thread.sleep(sleepNanos / 1_000_000, (int) (sleepNanos % 1_000_000));
+                    }
+                    nextFrameNanos += frameDelayNanos;
+                    // 落后一帧以上时不追赶，避免恢复后突发读帧
+                    if (nextFrameNanos < System.nanoTime() - frameDelayNanos) {
+                        nextFrameNanos = System.nanoTime();
+                    }
+                }
+                Mat frame = frameBufferPool.acquireMat();
+                if (!capture.read(frame) || frame.empty()) {
+                    frameBufferPool.releaseMat(frame);
+                    if (!config.isLive()) {
+                        break;
+                    }
+                    // 网络流断流时稍后重试，不结束该路流；连续失败则重新打开视频源
+                    readFailures++;
+                    logger.warning("流 " + config.getId() + " 读取失败（连续 " + readFailures + " 次），"
+                            + RECONNECT_MILLIS + " ms 后重试");
+                    Thread.sleep(RECONNECT_MILLIS);
+                    if (readFailures >= MAX_READ_FAILURES && reconnect()) {
+                        readFailures = 0;
+                    }
+                    continue;
+                }
+                readFailures = 0;
+                FrameTask task = new FrameTask(frame, (long) capture.get(Videoio.CAP_PROP_POS_MSEC));
+                task.setSequence(nextSequence++);
+                task.setMotion(motionGate == null || motionGate.hasMotion(frame));
+                metrics.recordDecoded();
+                scheduler.submit(this, task);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (Exception e) {
+            logger.log(Level.SEVERE, "流 " + config.getId() + " 解码失败", e);
+        } finally {
+            finished = true;
+            scheduler.wakeUp();
+        }
+    }
+
+    // 释放当前视频源并重新打开，失败时保留已释放的源（读取总是失败），下次读取失败时再试
+    private boolean reconnect() {
+        capture.release();
+        try {
+            capture = VideoSources.open(config.getSource());
+        } catch (IOException e) {
+            logger.warning("流 " + config.getId() + " 重新打开失败：" + e.getMessage());
+            return false;
+        }
+        metrics.recordReconnect();
+        // 重连前后画面不连续
+        if (motionGate != null) {
+            motionGate.reset();
+        }
+        detectionScheduler.requestDetection();
+        logger.info("流 " + config.getId() + " 已重新连接");
+        return true;
+    }
+
+    // 释放一帧占用的缓冲区
+    void release(FrameTask task) {
+        if (task.getPreprocessedFrame() != null) {
+            task.getPreprocessedFrame().release();
+            task.setPreprocessedFrame(null);
+        }
+        if (task.getFrame() != null) {
+            frameBufferPool.releaseMat(task.getFrame());
+            task.setFrame(null);
+        }
+    }
+
+    public String getId() {
+        return config.getId();
+    }
+
+    public StreamConfig getConfig() {
+        return config;
+    }
+
+    public OverflowPolicy getOverflowPolicy() {
+        return overflowPolicy;
+    }
+
+    public StreamMetrics getMetrics() {
+        return metrics;
+    }
+
+    Tracker getTracker() {
+        return tracker;
+    }
+
+    public DetectionScheduler getDetectionScheduler() {
+        return detectionScheduler;
+    }
+
+    // 未启用运动检测时为 null
+    public MotionGate getMotionGate() {
+        return motionGate;
+    }
+
+    // 解码已结束，等待队列中可能还有帧
+    boolean isFinished() {
+        return finished;
+    }
+}
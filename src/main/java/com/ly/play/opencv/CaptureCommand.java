@@ -0,0 +1,53 @@
+package com.ly.play.opencv;
+
+/**
+ * 发给采集线程的控制命令。播放期间只有采集（解码）线程访问 VideoCapture，
+ * 界面线程的跳转、暂停、恢复都通过命令队列交给它执行，不再与逐帧读取争用同一把锁。
+ */
+final class CaptureCommand {
+
+    enum Type {
+        // 相对当前解码位置跳转 offsetMillis 毫秒，负数为后退
+        SEEK,
+        PAUSE,
+        RESUME
+    }
+
+    private static final CaptureCommand PAUSE = new CaptureCommand(Type.PAUSE, 0, 0);
+    private static final CaptureCommand RESUME = new CaptureCommand(Type.RESUME, 0, 0);
+
+    private final Type type;
+    private final long offsetMillis;
+    // 跳转命令对应的代数，跳转之后解码的帧带上该代数，更早的帧即为过期帧
+    private final long generation;
+
+    private CaptureCommand(Type type, long offsetMillis, long generation) {
+        this.type = type;
+        this.offsetMillis = offsetMillis;
+        this.generation = generation;
+    }
+
+    static CaptureCommand seek(long offsetMillis, long generation) {
+        return new CaptureCommand(Type.SEEK, offsetMillis, generation);
+    }
+
+    static CaptureCommand pause() {
+        return PAUSE;
+    }
+
+    static CaptureCommand resume() {
+        return RESUME;
+    }
+
+    Type getType() {
+        return type;
+    }
+
+    long getOffsetMillis() {
+        return offsetMillis;
+    }
+
+    long getGeneration() {
+        return generation;
+    }
+}
@@ -0,0 +1,176 @@
+package com.ly.play.opencv;
+
+import org.opencv.videoio.VideoCapture;
+import org.opencv.videoio.Videoio;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.Arrays;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * 本地视频文件的关键帧索引：每个关键帧的呈现时间戳（毫秒），升序存放在基本类型数组中。
+ * <p>
+ * 建立索引时以原始数据包模式（CAP_PROP_FORMAT = -1）读取，只解复用不解码，但仍要扫完整个文件。
+ * 数据包按解码顺序到达，含 B 帧（尤其是开放 GOP）的文件中包序号与按呈现顺序计的 POS_FRAMES 对不上，
+ * 所以只记录数据包的时间戳，跳转时按时间戳定位。
+ * 只用于跳转对齐关键帧：落点本身就是关键帧，后端定位后不必再向前解码；精确跳转由后端自行完成，用不上索引。
+ * <p>
+ * 索引按文件大小和修改时间校验，缓存在 {@link #defaultCacheDir()} 下；视频旁边已有同名 .kfidx 文件时优先使用。
+ */
+public final class KeyframeIndex {
+    private static final Logger logger = Logger.getLogger(KeyframeIndex.class.getName());
+
+    private static final int MAGIC = 0x4B464958; // "KFIX"
+    private static final int VERSION = 2;
+    private static final String SUFFIX = ".kfidx";
+
+    private final double[] millis;
+    // 扫描时数出的数据包数，即总帧数，只用于日志
+    private final long frameCount;
+
+    KeyframeIndex(double[] millis, long frameCount) {
+        this.millis = millis;
+        this.frameCount = frameCount;
+    }
+
+    public static Path defaultCacheDir() {
+        return Paths.get(System.getProperty("user.home"), ".onnx-inference4j-play", "keyframes");
+    }
+
+    /**
+     * 读取已缓存的索引，没有或已失效时扫描视频建立并写入缓存目录
+     *
+     * @return 无法建立索引（如后端不支持原始数据包模式）时返回 null
+     */
+    public static KeyframeIndex loadOrBuild(String videoPath, Path cacheDir) throws IOException, InterruptedException {
+        File video = new File(videoPath);
+        if (!video.isFile()) {
+            return null;
+        }
+        long size = video.length();
+        long modified = video.lastModified();
+        Path sidecar = Paths.get(videoPath + SUFFIX);
+        Path cached = cacheDir.resolve(video.getName() + "-" + Integer.toHexString(video.getAbsolutePath().hashCode()) + SUFFIX);
+        for (Path file : new Path[]{sidecar, cached}) {
+            KeyframeIndex index = read(file, size, modified);
+            if (index != null) {
+                return index;
+            }
+        }
+        KeyframeIndex index = build(videoPath);
+        if (index != null) {
+            try {
+                index.write(cached, size, modified);
+            } catch (IOException e) {
+                logger.log(Level.WARNING, "无法写入关键帧索引缓存：" + cached, e);
+            }
+        }
+        return index;
+    }
+
+    // 以原始数据包模式扫描整个文件，记录关键帧的时间戳，线程被中断时放弃
+    static KeyframeIndex build(String videoPath) throws InterruptedException {
+        VideoCapture capture = new VideoCapture(videoPath, Videoio.CAP_FFMPEG);
+        try {
+            if (!capture.isOpened() || !capture.set(Videoio.CAP_PROP_FORMAT, -1)) {
+                return null;
+            }
+            double[] millis = new double[64];
+            int count = 0;
+            long frame = 0;
+            while (capture.grab()) {
+                if (Thread.currentThread().isInterrupted()) {
+                    throw new InterruptedException("关键帧索引建立被中断");
+                }
+                if (capture.get(Videoio.CAP_PROP_LRF_HAS_KEY_FRAME) != 0) {
+                    if (count == millis.length) {
+                        millis = Arrays.copyOf(millis, count * 2);
+                    }
+                    millis[count] = capture.get(Videoio.CAP_PROP_POS_MSEC);
+                    count++;
+                }
+                frame++;
+            }
+            if (count == 0) {
+                return null;
+            }
+            // 关键帧的呈现时间一般随解码顺序递增，排序只是以防万一
+            millis = Arrays.copyOf(millis, count);
+            Arrays.sort(millis);
+            return new KeyframeIndex(millis, frame);
+        } finally {
+            capture.release();
+        }
+    }
+
+    private static KeyframeIndex read(Path file, long size, long modified) {
+        if (!Files.isRegularFile(file)) {
+            return null;
+        }
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(file)))) {
+            if (in.readInt() != MAGIC || in.readInt() != VERSION || in.readLong() != size || in.readLong() != modified) {
+                return null;
+            }
+            long frameCount = in.readLong();
+            int count = in.readInt();
+            double[] millis = new double[count];
+            for (int i = 0; i < count; i++) {
+                millis[i] = in.readDouble();
+            }
+            return new KeyframeIndex(millis, frameCount);
+        } catch (IOException e) {
+            logger.log(Level.WARNING, "关键帧索引文件损坏，将重新建立：" + file, e);
+            return null;
+        }
+    }
+
+    // 先写临时文件再改名，避免并发加载读到半个文件
+    private void write(Path file, long size, long modified) throws IOException {
+        Files.createDirectories(file.getParent());
+        Path temp = Files.createTempFile(file.getParent(), file.getFileName().toString(), ".tmp");
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(temp)))) {
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            out.writeLong(size);
+            out.writeLong(modified);
+            out.writeLong(frameCount);
+            out.writeInt(millis.length);
+            for (double keyframeMillis : millis) {
+                out.writeDouble(keyframeMillis);
+            }
+        }
+        Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING);
+    }
+
+    // 不晚于该时间的最近关键帧的时间戳（毫秒），早于第一个关键帧时返回第一个
+    public double keyframeMillisAtOrBefore(double timeMillis) {
+        int i = Arrays.binarySearch(millis, timeMillis);
+        return millis[i >= 0 ? i : Math.max(0, -i - 2)];
+    }
+
+    // 不早于该时间的最近关键帧的时间戳（毫秒），之后没有关键帧时返回 NaN
+    public double keyframeMillisAtOrAfter(double timeMillis) {
+        int i = Arrays.binarySearch(millis, timeMillis);
+        int index = i >= 0 ? i : -i - 1;
+        return index < millis.length ? millis[index] : Double.NaN;
+    }
+
+    public int getKeyframeCount() {
+        return millis.length;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("%d 个关键帧，共 %d 帧，平均 GOP %.1f", millis.length, frameCount, (double) frameCount / millis.length);
+    }
+}
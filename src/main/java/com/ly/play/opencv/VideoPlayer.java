@@ -3,10 +3,21 @@ package com.ly.play.opencv;
 import com.ly.layout.VideoPanel;
 import com.ly.model_load.ModelManager;
 import com.ly.onnx.engine.InferenceEngine;
+import com.ly.onnx.engine.MultiModelExecutor;
 import com.ly.onnx.model.BoundingBox;
 import com.ly.onnx.model.InferenceResult;
+import com.ly.onnx.preprocess.FramePreprocessor;
+import com.ly.onnx.preprocess.PreprocessedFrame;
 import com.ly.onnx.utils.DrawImagesUtils;
-import com.ly.track.SimpleTracker;
+import com.ly.play.pipeline.DetectionScheduler;
+import com.ly.play.pipeline.FrameBufferPool;
+import com.ly.play.pipeline.FramePipeline;
+import com.ly.play.pipeline.FrameTask;
+import com.ly.play.pipeline.MotionGate;
+import com.ly.play.pipeline.PipelineConfig;
+import com.ly.play.pipeline.PresentationClock;
+import com.ly.track.IouTracker;
+import com.ly.track.Tracker;
 import org.opencv.core.*;
 import org.opencv.imgcodecs.Imgcodecs;
 import org.opencv.imgproc.Imgproc;
@@ -19,12 +30,12 @@ import java.io.*;
 import java.nio.file.Files;
 import java.nio.file.StandardCopyOption;
 import java.util.*;
-import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CopyOnWriteArrayList;
 import java.util.concurrent.LinkedBlockingQueue;
-import java.util.concurrent.TimeUnit;
-import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.logging.Logger;
 
+import static com.ly.onnx.utils.ImageUtils.imageTypeOf;
 import static com.ly.onnx.utils.ImageUtils.matToBufferedImage;
 
 public class VideoPlayer {
@@ -48,12 +59,22 @@ public class VideoPlayer {
     private VideoCapture videoCapture;
     private volatile boolean isPlaying = false;
     private volatile boolean isPaused = false;
-    private Thread frameReadingThread;
-    private Thread inferenceThread;
+    // 解码、预处理、推理、跟踪、渲染分阶段并行的流水线
+    private FramePipeline framePipeline;
+    private PipelineConfig pipelineConfig = new PipelineConfig();
+    // 当前输入是否为摄像头、RTSP 等实时源，实时源不做帧率控制，且下游跟不上时丢弃旧帧
+    private volatile boolean liveSource;
+    // 累计因处理跟不上而丢弃的帧数
+    private long droppedFrames;
+    // 当前播放的呈现时钟，提供目标帧率和实际帧率
+    private volatile PresentationClock presentationClock;
+
+    // 落后时单次最多连续跳过的帧数，超过后由呈现时钟重新对齐
+    private static final int MAX_CATCH_UP_FRAMES = 30;
     private VideoPanel videoPanel;
 
-    // 创建简单的跟踪器
-    SimpleTracker tracker = new SimpleTracker();
+    // 目标跟踪器，只在后处理线程中按帧顺序调用
+    private volatile Tracker tracker = new IouTracker();
 
     private long videoDuration = 0; // 毫秒
     private long currentTimestamp = 0; // 毫秒
@@ -61,14 +82,43 @@ public class VideoPlayer {
     private boolean isTrackingEnabled;
 
     private ModelManager modelManager;
-    private List<InferenceEngine> inferenceEngines = new ArrayList<>();
+    // 推理线程遍历的同时界面线程可能增删模型
+    private List<InferenceEngine> inferenceEngines = new CopyOnWriteArrayList<>();
 
-    // 定义阻塞队列来缓冲转换后的数据
-    private BlockingQueue<FrameData> frameDataQueue = new LinkedBlockingQueue<>(10); // 队列容量可根据需要调整
+    // 逐帧复用的解码 Mat、显示图像和预处理器（按输入尺寸分组，内含预处理临时缓冲区）
+    private final FrameBufferPool frameBufferPool = new FrameBufferPool();
 
-    // 添加一个锁对象用于同步 VideoCapture 访问
+    // 多模型推理执行器，可切换为各模型并行推理
+    private final MultiModelExecutor multiModelExecutor = MultiModelExecutor.withDefaultConcurrency();
+
+    // 加载、播放、停止等生命周期操作的锁，采集线程从不获取它，停止时可以在持锁状态下等待线程退出
     private final Object captureLock = new Object();
 
+    // 发给采集线程的跳转、暂停、恢复命令；播放期间只有采集线程访问 videoCapture，逐帧读取不加锁
+    private final LinkedBlockingQueue<CaptureCommand> captureCommands = new LinkedBlockingQueue<>();
+    // 采集线程读到末尾放弃 videoCapture 与命令提交方判断是否交给采集线程执行，两者在此锁下交接
+    private final Object commandLock = new Object();
+    // 每次跳转加一，此前解码、仍在途中的帧据此判定为过期
+    private final AtomicLong seekGeneration = new AtomicLong();
+
+    // 本地文件的关键帧索引，开启跳转对齐关键帧后在后台建立，建好之前跳转使用后端默认方式
+    private volatile KeyframeIndex keyframeIndex;
+    private Thread keyframeIndexThread;
+    // 当前加载的本地文件，开启跳转对齐关键帧时据此建立索引；摄像头和网络流为 null
+    private String indexableVideoPath;
+    // 跳转时只定位到最近的关键帧，不再向前解码到目标帧，适合快速拖动浏览
+    private volatile boolean snapToKeyframe;
+
+    // 每多少帧做一次检测，其余帧的框由跟踪器预测；自适应时目标变化会提前检测。开始播放时生效
+    private int detectionInterval = 1;
+    private boolean adaptiveDetection;
+    // 本次播放的检测调度
+    private volatile DetectionScheduler detectionScheduler;
+    // 运动检测阈值（变化像素占比），大于 0 时静止帧跳过推理并沿用上一次的检测结果。开始播放时生效
+    private double motionThreshold;
+    // 本次播放的运动检测，未启用时为 null
+    private MotionGate motionGate;
+
     public VideoPlayer(VideoPanel videoPanel, ModelManager modelManager) {
         this.videoPanel = videoPanel;
         this.modelManager = modelManager;
@@ -79,26 +129,35 @@ public class VideoPlayer {
         synchronized (captureLock) {
             isPlaying = false;
             isPaused = false;
+            stopPipeline();
+        }
+    }
 
-            if (frameReadingThread != null && frameReadingThread.isAlive()) {
-                frameReadingThread.interrupt();
-                try {
-                    frameReadingThread.join(); // 等待线程终止
-                } catch (InterruptedException e) {
-                    e.printStackTrace();
-                }
+    // 停止流水线线程并释放仍在处理中的帧
+    private void stopPipeline() {
+        if (framePipeline != null) {
+            framePipeline.stop();
+            // 未执行的命令随本次播放作废
+            captureCommands.clear();
+            logger.info("帧缓冲区池：" + frameBufferPool);
+            logger.info("播放帧率：" + presentationClock);
+            long dropped = framePipeline.getDroppedFrames();
+            if (dropped > 0) {
+                droppedFrames += dropped;
+                logger.info("本次播放丢弃 " + dropped + " 帧，溢出策略：" + framePipeline.getOverflowPolicy());
             }
-
-            if (inferenceThread != null && inferenceThread.isAlive()) {
-                inferenceThread.interrupt();
-                try {
-                    inferenceThread.join(); // 等待线程终止
-                } catch (InterruptedException e) {
-                    e.printStackTrace();
-                }
+            if (framePipeline.getFlushedFrames() > 0) {
+                logger.info("跳转作废在途帧 " + framePipeline.getFlushedFrames() + " 帧");
             }
-
-            frameDataQueue.clear();
+            if (detectionScheduler.getSkippedFrames() > 0) {
+                logger.info(detectionScheduler.toString());
+            }
+            if (motionGate != null) {
+                logger.info(motionGate.toString());
+                motionGate.release();
+                motionGate = null;
+            }
+            framePipeline = null;
         }
     }
 
@@ -107,12 +166,15 @@ public class VideoPlayer {
         synchronized (captureLock) {
             stopVideo(); // 停止任何现有的播放并释放资源
 
+            liveSource = VideoSources.isLiveSource(videoFilePathOrStreamUrl);
             if (videoFilePathOrStreamUrl.equals("0")) {
                 int cameraIndex = Integer.parseInt(videoFilePathOrStreamUrl);
                 videoCapture = new VideoCapture(cameraIndex);
                 if (!videoCapture.isOpened()) {
                     throw new Exception("无法打开摄像头");
                 }
+                // 尽量减小采集端缓冲，避免积压旧帧
+                videoCapture.set(Videoio.CAP_PROP_BUFFERSIZE, 1);
                 videoDuration = 0; // 摄像头没有固定的时长
                 playVideo();
             } else {
@@ -127,6 +189,13 @@ public class VideoPlayer {
                     fps = 25; // 默认帧率
                 }
                 videoDuration = (long) (frameCount / fps * 1000); // 转换为毫秒
+                if (!liveSource) {
+                    indexableVideoPath = videoFilePathOrStreamUrl;
+                    // 建立索引要扫完整个文件，只在需要对齐关键帧时才做
+                    if (snapToKeyframe) {
+                        startKeyframeIndexing(videoFilePathOrStreamUrl);
+                    }
+                }
             }
 
             // 显示第一帧
@@ -135,8 +204,10 @@ public class VideoPlayer {
             if (frameRead && !frame.empty()) {
                 BufferedImage bufferedImage = matToBufferedImage(frame);
                 videoPanel.updateImage(bufferedImage);
+                frame.release();
                 currentTimestamp = 0;
             } else {
+                frame.release();
                 throw new Exception("无法读取第一帧");
             }
 
@@ -160,6 +231,8 @@ public class VideoPlayer {
             if (isPlaying) {
                 if (isPaused) {
                     isPaused = false; // 恢复播放
+                    presentationClock.resume();
+                    captureCommands.offer(CaptureCommand.resume());
                 }
                 return;
             }
@@ -167,110 +240,226 @@ public class VideoPlayer {
             isPlaying = true;
             isPaused = false;
 
-            frameDataQueue.clear(); // 开始播放前清空队列
+            // 上一次播放自然结束时流水线线程已退出，这里只回收其残留的帧
+            stopPipeline();
+            presentationClock = new PresentationClock(VideoSources.frameRate(videoCapture));
+            detectionScheduler = new DetectionScheduler(detectionInterval, adaptiveDetection);
+            motionGate = motionThreshold > 0 ? new MotionGate(motionThreshold) : null;
+            framePipeline = new FramePipeline(pipelineConfig, new PlaybackStages(presentationClock, detectionScheduler, motionGate),
+                    pipelineConfig.policyFor(liveSource));
+            framePipeline.start();
+        }
+    }
+
+    // 播放时流水线各阶段的处理逻辑
+    private class PlaybackStages implements FramePipeline.Stages {
+        private final PresentationClock clock;
+        private final DetectionScheduler scheduler;
+        // 只由采集线程使用，可为 null
+        private final MotionGate motionGate;
+        // 上一帧的时间戳，读不到时间戳（恒为 0）时按帧间隔推算
+        private double lastPts = -1;
+        // 当前帧的时间戳
+        private double pts;
+        // 以下两项只由采集线程读写
+        private long generation = seekGeneration.get();
+        private boolean paused;
+        // 跟踪器上次更新时的跳转代数，只由后处理线程读写
+        private long trackedGeneration = generation;
+
+        PlaybackStages(PresentationClock clock, DetectionScheduler scheduler, MotionGate motionGate) {
+            this.clock = clock;
+            this.scheduler = scheduler;
+            this.motionGate = motionGate;
+        }
+
+        @Override
+        public boolean isStale(FrameTask task) {
+            return task.getGeneration() != seekGeneration.get();
         }
 
-        // 创建并启动帧读取和转换线程
-        frameReadingThread = new Thread(() -> {
+        @Override
+        public FrameTask decode() throws Exception {
+            Mat frame = frameBufferPool.acquireMat();
+            boolean decoded = false;
             try {
-                double fps;
-                synchronized (captureLock) {
-                    fps = videoCapture.get(Videoio.CAP_PROP_FPS);
-                }
-                if (fps <= 0 || Double.isNaN(fps)) {
-                    fps = 25; // 默认帧率
-                }
-                long frameDelay = (long) (1000 / fps);
-                while (isPlaying) {
-                    if (Thread.currentThread().isInterrupted()) {
-                        break;
-                    }
-                    if (isPaused) {
-                        Thread.sleep(10);
-                        continue;
-                    }
-                    Mat frame = new Mat();
-                    boolean frameRead;
-                    synchronized (captureLock) {
-                        frameRead = videoCapture.read(frame);
-                    }
-                    if (!frameRead || frame.empty()) {
-                        isPlaying = false;
+                while (true) {
+                    applyCommands();
+                    if (grabNext()) {
                         break;
                     }
-                    long startTime = System.currentTimeMillis();
-                    BufferedImage bufferedImage = matToBufferedImage(frame);
-                    Map<Integer, Object> stringObjectMap = preprocessImage(frame);
-                    // 创建 FrameData 对象并放入队列
-                    FrameData frameData = new FrameData(bufferedImage, stringObjectMap);
-                    frameDataQueue.put(frameData); // 阻塞，如果队列已满
-                    // 控制帧率
-                    synchronized (captureLock) {
-                        currentTimestamp = (long) (videoCapture.get(Videoio.CAP_PROP_POS_FRAMES) * 1000 / fps);
-                    }
-                    // 控制播放速度
-                    long processingTime = System.currentTimeMillis() - startTime;
-                    long sleepTime = frameDelay - processingTime;
-                    if (sleepTime > 0) {
-                        Thread.sleep(sleepTime);
+                    synchronized (commandLock) {
+                        if (captureCommands.isEmpty()) {
+                            isPlaying = false;
+                            return null;
+                        }
                     }
+                    // 读到末尾前收到了跳转等命令，执行后继续读取
+                }
+                if (!videoCapture.retrieve(frame) || frame.empty()) {
+                    isPlaying = false;
+                    return null;
                 }
-            } catch (Exception ex) {
-                ex.printStackTrace();
+                boolean motion = motionGate == null || motionGate.hasMotion(frame);
+                currentTimestamp = (long) pts;
+                FrameTask task = new FrameTask(frame, (long) pts);
+                task.setGeneration(generation);
+                task.setMotion(motion);
+                task.setDetect(scheduler.shouldDetect(motion));
+                decoded = true;
+                return task;
             } finally {
-                isPlaying = false;
+                if (!decoded) {
+                    frameBufferPool.releaseMat(frame);
+                }
             }
-        });
+        }
 
-        // 创建并启动推理线程
-        inferenceThread = new Thread(() -> {
-            try {
-                while (isPlaying || !frameDataQueue.isEmpty()) {
-                    if (Thread.currentThread().isInterrupted()) {
+        // 执行界面线程发来的命令；暂停时阻塞在命令队列上，直到收到恢复命令，不再轮询
+        private void applyCommands() throws InterruptedException {
+            CaptureCommand command;
+            while ((command = paused ? captureCommands.take() : captureCommands.poll()) != null) {
+                switch (command.getType()) {
+                    case SEEK:
+                        if (!seekBy(command.getOffsetMillis())) {
+                            logger.warning("无法跳转到指定帧，偏移 " + command.getOffsetMillis() + " 毫秒");
+                        }
+                        generation = command.getGeneration();
+                        lastPts = -1;
+                        clock.reset();
+                        // 跳转后的第一帧没有可供预测的目标，背景也需重新建立
+                        scheduler.requestDetection();
+                        if (motionGate != null) {
+                            motionGate.reset();
+                        }
                         break;
-                    }
-                    if (isPaused) {
-                        Thread.sleep(100);
-                        continue;
-                    }
+                    case PAUSE:
+                        paused = true;
+                        break;
+                    case RESUME:
+                        // 呈现时钟已由 playVideo 恢复并重新对齐
+                        paused = false;
+                        break;
+                }
+            }
+        }
 
-                    FrameData frameData = frameDataQueue.poll(100, TimeUnit.MILLISECONDS); // 等待数据
-                    if (frameData == null) {
-                        continue; // 没有数据，继续检查 isPlaying
-                    }
+        // 定位到下一帧，落后一帧以上时只 grab 不 retrieve，省掉像素转换和整条流水线的处理；实时源由采集端决定帧率
+        private boolean grabNext() {
+            int skipped = 0;
+            while (videoCapture.grab()) {
+                pts = nextPts(videoCapture.get(Videoio.CAP_PROP_POS_MSEC));
+                if (!liveSource && skipped < MAX_CATCH_UP_FRAMES && clock.isBehind(pts)) {
+                    clock.recordSkipped();
+                    skipped++;
+                    continue;
+                }
+                return true;
+            }
+            return false;
+        }
 
-                    BufferedImage bufferedImage = frameData.image;
-                    Map<Integer, Object> floatObjectMap = frameData.floatObjectMap;
+        private double nextPts(double containerPts) {
+            double pts = containerPts > 0 || lastPts < 0 ? containerPts : lastPts + 1000.0 / clock.getTargetFps();
+            lastPts = pts;
+            return pts;
+        }
 
-                    // 执行推理
-                    List<InferenceResult> inferenceResults = new ArrayList<>();
-                    for (InferenceEngine inferenceEngine : inferenceEngines) {
-                        // 假设 InferenceEngine 有 infer 方法接受 float 数组
-                        InferenceResult infer = inferenceEngine.infer(floatObjectMap);
-                        inferenceResults.add(infer);
-                    }
+        @Override
+        public void preprocess(FrameTask task) {
+            Mat frame = task.getFrame();
+            // 界面不可见（如窗口最小化）时不生成显示图像，整帧像素只留在本地内存中
+            if (videoPanel.isShowing()) {
+                BufferedImage image = frameBufferPool.acquireImage(frame.cols(), frame.rows(), imageTypeOf(frame));
+                task.setImage(matToBufferedImage(frame, image));
+            }
+            if (task.isDetect()) {
+                long start = System.nanoTime();
+                task.setPreprocessedFrame(preprocessImage(frame));
+                scheduler.recordDetectionNanos(System.nanoTime() - start);
+            }
+            frameBufferPool.releaseMat(frame);
+            task.setFrame(null);
+        }
 
-                    // 合并所有模型的推理结果
-                    List<BoundingBox> allBoundingBoxes = new ArrayList<>();
-                    for (InferenceResult result : inferenceResults) {
-                        allBoundingBoxes.addAll(result.getBoundingBoxes());
-                    }
-                    // 如果启用了目标跟踪，则更新边界框并分配 trackId
-                    if (isTrackingEnabled) {
-                        tracker.update(allBoundingBoxes);
-                    }
+        @Override
+        public void infer(FrameTask task) {
+            if (!task.isDetect()) {
+                return;
+            }
+            long start = System.nanoTime();
+            PreprocessedFrame preprocessedFrame = task.getPreprocessedFrame();
+            task.setInferenceResults(inferAll(preprocessedFrame));
+            scheduler.recordDetectionNanos(System.nanoTime() - start);
+            preprocessedFrame.release();
+            task.setPreprocessedFrame(null);
+        }
 
-                    // 绘制推理结果
-                    DrawImagesUtils.drawInferenceResult(bufferedImage, inferenceResults);
-                    // 更新绘制后图像
-                    videoPanel.updateImage(bufferedImage);
+        @Override
+        public void postprocess(FrameTask task) {
+            // 跳转之后画面不连续，已有目标不再有效
+            if (task.getGeneration() != trackedGeneration) {
+                trackedGeneration = task.getGeneration();
+                tracker.reset();
+                scheduler.reset();
+            }
+            // 不检测的帧由跟踪器把目标推进一帧，用预测框代替推理结果；静止帧直接沿用上一次的框
+            if (!task.isDetect()) {
+                task.setInferenceResults(scheduler.predictResults(isTrackingEnabled && task.isMotion() ? tracker : null));
+                return;
+            }
+            // 合并所有模型的推理结果
+            List<BoundingBox> allBoundingBoxes = new ArrayList<>();
+            List<BoundingBox> lowConfidenceBoxes = new ArrayList<>();
+            for (InferenceResult result : task.getInferenceResults()) {
+                allBoundingBoxes.addAll(result.getBoundingBoxes());
+                lowConfidenceBoxes.addAll(result.getLowConfidenceBoxes());
+            }
+            // 如果启用了目标跟踪，则更新边界框并分配 trackId
+            if (isTrackingEnabled) {
+                tracker.update(allBoundingBoxes, lowConfidenceBoxes);
+                for (InferenceResult result : task.getInferenceResults()) {
+                    result.promoteTrackedLowConfidenceBoxes();
                 }
-            } catch (Exception ex) {
-                ex.printStackTrace();
             }
-        });
-        frameReadingThread.start();
-        inferenceThread.start();
+            scheduler.recordDetection(task.getInferenceResults());
+        }
+
+        // 解码不等待呈现时刻，预处理、推理与等待重叠；显示前才按时间戳等待，实时源由采集端决定帧率。暂停时停在这里
+        @Override
+        public void render(FrameTask task) throws InterruptedException {
+            BufferedImage bufferedImage = task.getImage();
+            if (liveSource) {
+                clock.awaitResumed();
+            } else {
+                clock.awaitPresentation(task.getTimestampMillis());
+            }
+            if (bufferedImage == null) {
+                return;
+            }
+            // 绘制推理结果
+            DrawImagesUtils.drawInferenceResult(bufferedImage, task.getInferenceResults());
+            // 更新绘制后图像，换下的上一帧图像回到池中
+            frameBufferPool.releaseImage(videoPanel.updateImage(bufferedImage));
+            task.setImage(null);
+            clock.recordPresented();
+        }
+
+        @Override
+        public void release(FrameTask task) {
+            if (task.getPreprocessedFrame() != null) {
+                task.getPreprocessedFrame().release();
+                task.setPreprocessedFrame(null);
+            }
+            if (task.getFrame() != null) {
+                frameBufferPool.releaseMat(task.getFrame());
+                task.setFrame(null);
+            }
+            if (task.getImage() != null) {
+                frameBufferPool.releaseImage(task.getImage());
+                task.setImage(null);
+            }
+        }
     }
 
     // 添加重播方法
@@ -291,52 +480,120 @@ public class VideoPlayer {
         }
     }
 
-    // 添加 rewind 和 fastForward 方法，使用帧索引而非毫秒
+    // 后退和快进精确跳转时按帧索引，对齐关键帧时按关键帧时间戳
     public void rewind(long millis) throws Exception {
+        seek(-millis, "无法后退视频到指定帧。");
+    }
+
+    public void fastForward(long millis) throws Exception {
+        seek(millis, "无法快进视频到指定帧。");
+    }
+
+    // 播放中把跳转交给采集线程执行，并作废仍在流水线中的旧帧；未在播放时直接跳转
+    private void seek(long offsetMillis, String failureMessage) throws Exception {
         synchronized (captureLock) {
-            if (videoCapture != null && videoCapture.isOpened()) {
-                double fps = videoCapture.get(Videoio.CAP_PROP_FPS);
-                if (fps <= 0 || Double.isNaN(fps)) {
-                    fps = 25; // 默认帧率
-                }
-                long framesToRewind = (long) (millis * fps / 1000);
-                long currentFrame = (long) videoCapture.get(Videoio.CAP_PROP_POS_FRAMES);
-                long newFrame = currentFrame - framesToRewind;
-                if (newFrame < 0) newFrame = 0;
-                logger.info("Rewinding " + millis + " ms (" + framesToRewind + " frames) from frame " + currentFrame + " to frame " + newFrame);
-                boolean success = videoCapture.set(Videoio.CAP_PROP_POS_FRAMES, newFrame);
-                if (!success) {
-                    throw new Exception("无法后退视频到指定帧。");
-                }
-                currentTimestamp = (long) (newFrame * 1000 / fps);
-            } else {
+            if (videoCapture == null || !videoCapture.isOpened()) {
                 throw new Exception("视频未加载或未打开。");
             }
+            synchronized (commandLock) {
+                long generation = seekGeneration.incrementAndGet();
+                if (isPlaying) {
+                    captureCommands.offer(CaptureCommand.seek(offsetMillis, generation));
+                    return;
+                }
+            }
+            if (!seekBy(offsetMillis)) {
+                throw new Exception(failureMessage);
+            }
         }
     }
 
-    public void fastForward(long millis) throws Exception {
-        synchronized (captureLock) {
-            if (videoCapture != null && videoCapture.isOpened()) {
-                double fps = videoCapture.get(Videoio.CAP_PROP_FPS);
-                if (fps <= 0 || Double.isNaN(fps)) {
-                    fps = 25; // 默认帧率
-                }
-                long framesToFastForward = (long) (millis * fps / 1000);
-                long currentFrame = (long) videoCapture.get(Videoio.CAP_PROP_POS_FRAMES);
-                long newFrame = currentFrame + framesToFastForward;
-                double frameCount = videoCapture.get(Videoio.CAP_PROP_FRAME_COUNT);
-                if (frameCount > 0 && newFrame > frameCount) {
-                    newFrame = (long) frameCount;
+    // 相对当前解码位置跳转，只能由当前持有 videoCapture 的线程调用
+    private boolean seekBy(long offsetMillis) {
+        KeyframeIndex index = keyframeIndex;
+        if (snapToKeyframe && index != null && seekToKeyframe(index, offsetMillis)) {
+            return true;
+        }
+        // 精确跳转交给后端：FFmpeg 后端自己定位到目标之前的关键帧，再逐帧解码到目标帧
+        double fps = VideoSources.frameRate(videoCapture);
+        long offsetFrames = (long) (offsetMillis * fps / 1000);
+        long currentFrame = (long) videoCapture.get(Videoio.CAP_PROP_POS_FRAMES);
+        long newFrame = Math.max(0, currentFrame + offsetFrames);
+        double frameCount = videoCapture.get(Videoio.CAP_PROP_FRAME_COUNT);
+        if (frameCount > 0 && newFrame > frameCount) {
+            newFrame = (long) frameCount;
+        }
+        logger.info("Seeking " + offsetMillis + " ms (" + offsetFrames + " frames) from frame " + currentFrame + " to frame " + newFrame);
+        if (!videoCapture.set(Videoio.CAP_PROP_POS_FRAMES, newFrame)) {
+            return false;
+        }
+        currentTimestamp = (long) (newFrame * 1000 / fps);
+        return true;
+    }
+
+    // 按时间戳跳到目标附近的关键帧：后退取不晚于目标的，快进取不早于目标的，落点方向与跳转方向一致。
+    // 落点就是关键帧，后端定位后不必再向前解码。目标之后没有关键帧时返回 false，改用精确跳转
+    private boolean seekToKeyframe(KeyframeIndex index, long offsetMillis) {
+        double currentMillis = videoCapture.get(Videoio.CAP_PROP_POS_MSEC);
+        double targetMillis = Math.max(0, currentMillis + offsetMillis);
+        double keyframeMillis = offsetMillis > 0
+                ? index.keyframeMillisAtOrAfter(targetMillis)
+                : index.keyframeMillisAtOrBefore(targetMillis);
+        if (Double.isNaN(keyframeMillis)) {
+            return false;
+        }
+        logger.info("Seeking " + offsetMillis + " ms from " + (long) currentMillis + " ms to keyframe at " + (long) keyframeMillis + " ms");
+        if (!videoCapture.set(Videoio.CAP_PROP_POS_MSEC, keyframeMillis)) {
+            return false;
+        }
+        currentTimestamp = (long) keyframeMillis;
+        return true;
+    }
+
+    // 在后台读取或建立关键帧索引，不阻塞加载和播放
+    private void startKeyframeIndexing(String videoPath) {
+        Thread thread = new Thread(() -> {
+            try {
+                long start = System.nanoTime();
+                KeyframeIndex index = KeyframeIndex.loadOrBuild(videoPath, KeyframeIndex.defaultCacheDir());
+                if (index == null) {
+                    logger.info("无法建立关键帧索引，跳转使用后端默认方式：" + videoPath);
+                    return;
                 }
-                logger.info("Fast forwarding " + millis + " ms (" + framesToFastForward + " frames) from frame " + currentFrame + " to frame " + newFrame);
-                boolean success = videoCapture.set(Videoio.CAP_PROP_POS_FRAMES, newFrame);
-                if (!success) {
-                    throw new Exception("无法快进视频到指定帧。");
+                synchronized (captureLock) {
+                    // 期间已加载了其他视频时丢弃
+                    if (keyframeIndexThread != Thread.currentThread()) {
+                        return;
+                    }
+                    keyframeIndex = index;
                 }
-                currentTimestamp = (long) (newFrame * 1000 / fps);
-            } else {
-                throw new Exception("视频未加载或未打开。");
+                logger.info("关键帧索引就绪，耗时 " + (System.nanoTime() - start) / 1_000_000 + " ms：" + index);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } catch (IOException e) {
+                logger.warning("读取关键帧索引失败：" + e.getMessage());
+            }
+        }, "keyframe-index");
+        thread.setDaemon(true);
+        keyframeIndexThread = thread;
+        thread.start();
+    }
+
+    private void stopKeyframeIndexing() {
+        if (keyframeIndexThread != null) {
+            keyframeIndexThread.interrupt();
+            keyframeIndexThread = null;
+        }
+        keyframeIndex = null;
+        indexableVideoPath = null;
+    }
+
+    // 设置跳转是否只定位到最近的关键帧：更快，但落点与目标最多相差一个 GOP。开启时在后台为当前文件建立索引
+    public void setSnapToKeyframe(boolean snapToKeyframe) {
+        synchronized (captureLock) {
+            this.snapToKeyframe = snapToKeyframe;
+            if (snapToKeyframe && keyframeIndexThread == null && indexableVideoPath != null) {
+                startKeyframeIndexing(indexableVideoPath);
             }
         }
     }
@@ -344,10 +601,13 @@ public class VideoPlayer {
     // 暂停视频
     public void pauseVideo() {
         synchronized (captureLock) {
-            if (!isPlaying) {
+            if (!isPlaying || isPaused) {
                 return;
             }
             isPaused = true;
+            // 解码线程停在命令队列上，渲染线程停在呈现时钟上，已在流水线中的帧不再继续显示
+            presentationClock.pause();
+            captureCommands.offer(CaptureCommand.pause());
         }
     }
 
@@ -356,130 +616,97 @@ public class VideoPlayer {
         this.isTrackingEnabled = enabled;
     }
 
-    // 定义一个内部类来存储帧数据
-    private static class FrameData {
-        public BufferedImage image;
-        public Map<Integer, Object> floatObjectMap;
-
-        public FrameData(BufferedImage image, Map<Integer, Object> floatObjectMap) {
-            this.image = image;
-            this.floatObjectMap = floatObjectMap;
-        }
-    }
-
-    // 可选的预处理方法
-    public Map<Integer, Object> preprocessImage(Mat image) {
-        int origWidth = image.width();
-        int origHeight = image.height();
-        Map<Integer, Object> dynamicInput = new HashMap<>();
-        //定义索引
-        AtomicInteger index = new AtomicInteger(0);
-        for (InferenceEngine inferenceEngine : this.inferenceEngines) {
-
-            long[] inputShape = inferenceEngine.getInputShape();
-            int targetWidth = (int) inputShape[2];
-            int targetHeight = (int) inputShape[3];
-            // 计算缩放因子
-            float scalingFactor = Math.min((float) targetWidth / origWidth, (float) targetHeight / origHeight);
-            //检查是否存在输入大小一致的 如果存在则跳过
-            if (!dynamicInput.isEmpty()) {
-                boolean flag = true;  // 初始设为 true 表示需要跳过
-                for (Map.Entry<Integer, Object> entry : dynamicInput.entrySet()) {
-                    Map<String, Object> input = (Map<String, Object>) entry.getValue();
-                    Integer targetHeightValue = (Integer) input.get("targetHeight");
-                    Integer targetWidthValue = (Integer) input.get("targetWidth");
-                    if (inputShape[2] == targetHeightValue && inputShape[3] == targetWidthValue) {
-                        flag = false;  // 如果找到相同尺寸，设为 false 表示不需要跳过
-                    }
-                }
+    // 更换目标跟踪器，下一帧起生效
+    public void setTracker(Tracker tracker) {
+        this.tracker = tracker;
+    }
 
-                if (!flag) {  // 如果找到相同尺寸，跳过处理
-                    if (inferenceEngine.getIndex() == null) {
-                        inferenceEngine.setIndex(index.get());
-                    }
-                    continue;
-                } else {
-                    index.getAndIncrement();
-                }
-            }
+    /**
+     * 设置检测间隔，下次开始播放时生效
+     *
+     * @param interval 每多少帧检测一次，其余帧的框由跟踪器预测；未启用跟踪时沿用上一次检测的框。
+     *                 默认的 IouTracker 没有运动模型，框会停在原处，需配合 {@link #setTracker} 换成 SortTracker 或 ByteTracker
+     * @param adaptive 出现新目标、目标丢失或同一目标置信度明显下降时提前检测
+     */
+    public void setDetectionInterval(int interval, boolean adaptive) {
+        if (interval < 1) {
+            throw new IllegalArgumentException("检测间隔必须大于 0: " + interval);
+        }
+        synchronized (captureLock) {
+            this.detectionInterval = interval;
+            this.adaptiveDetection = adaptive;
+        }
+    }
 
-            // 计算新的图像尺寸
-            int newWidth = Math.round(origWidth * scalingFactor);
-            int newHeight = Math.round(origHeight * scalingFactor);
-
-            // 调整图像尺寸
-            Mat resizedImage = new Mat();
-            Imgproc.resize(image, resizedImage, new Size(newWidth, newHeight), 0, 0, Imgproc.INTER_AREA);
-
-            // 获取图像的尺寸
-            int rows = resizedImage.rows();
-            int cols = resizedImage.cols();
-            // 准备存储浮点型数据的数组
-            float[] floatData = new float[rows * cols * 3];
-
-            // 获取原始字节数据
-            byte[] pixelData = new byte[rows * cols * 3];
-            resizedImage.get(0, 0, pixelData);
-
-            // 手动处理像素数据
-            for (int i = 0; i < rows * cols; i++) {
-                int byteIndex = i * 3;
-                int floatIndex = i * 3;
-                // 读取 BGR 值并转换为 0.0 - 1.0 之间的浮点数
-                float b = (pixelData[byteIndex] & 0xFF) / 255.0f;
-                float g = (pixelData[byteIndex + 1] & 0xFF) / 255.0f;
-                float r = (pixelData[byteIndex + 2] & 0xFF) / 255.0f;
-                // 将 BGR 转换为 RGB，并存储到浮点数组中
-                floatData[floatIndex] = r;
-                floatData[floatIndex + 1] = g;
-                floatData[floatIndex + 2] = b;
-            }
-
-            // 将浮点数组转换回 Mat 对象
-            Mat floatImage = new Mat(rows, cols, CvType.CV_32FC3);
-            floatImage.put(0, 0, floatData);
-
-            resizedImage = floatImage;
-
-            // 创建填充后的图像
-            Mat paddedImage = Mat.zeros(new Size(targetWidth, targetHeight), CvType.CV_32FC3);
-            int xOffset = (targetWidth - newWidth) / 2;
-            int yOffset = (targetHeight - newHeight) / 2;
-            Rect roi = new Rect(xOffset, yOffset, newWidth, newHeight);
-            resizedImage.copyTo(paddedImage.submat(roi));
-
-            // 将图像数据转换为数组
-            int imageSize = targetWidth * targetHeight;
-            float[] chwData = new float[3 * imageSize];
-            float[] hwcData = new float[3 * imageSize];
-            paddedImage.get(0, 0, hwcData);
-
-            // 转换为 CHW 格式
-            int channelSize = imageSize;
-            for (int c = 0; c < 3; c++) {
-                for (int i = 0; i < imageSize; i++) {
-                    chwData[c * channelSize + i] = hwcData[i * 3 + c];
-                }
-            }
-            // 释放图像资源
-            resizedImage.release();
-            paddedImage.release();
-            floatImage.release();
-            // 将预处理结果和偏移信息存入 Map
-            Map<String, Object> result = new HashMap<>();
-            result.put("inputData", chwData);
-            result.put("origWidth", origWidth);
-            result.put("origHeight", origHeight);
-            result.put("targetWidth", targetWidth);
-            result.put("targetHeight", targetHeight);
-            result.put("scalingFactor", scalingFactor);
-            result.put("xOffset", xOffset);
-            result.put("yOffset", yOffset);
-            inferenceEngine.setIndex(index.get());
-            dynamicInput.put(index.get(), result);
+    /**
+     * 设置运动检测阈值，下次开始播放时生效。固定机位长时间画面不变时，静止帧不做推理，沿用上一次的检测结果
+     *
+     * @param minChangedRatio 缩小后的灰度画面中变化像素的占比达到该值才做检测，如 0.002；不大于 0 时关闭
+     */
+    public void setMotionThreshold(double minChangedRatio) {
+        synchronized (captureLock) {
+            this.motionThreshold = minChangedRatio;
+        }
+    }
+
+    // 本次播放的检测调度，提供跳过比例和估计节省的推理时间；未播放过时为 null
+    public DetectionScheduler getDetectionScheduler() {
+        return detectionScheduler;
+    }
+
+    // 设置是否并行执行多个模型的推理
+    public void setParallelInference(boolean enabled) {
+        multiModelExecutor.setParallel(enabled);
+    }
+
+    // 累计丢弃的帧数，包括正在播放的这一次
+    public long getDroppedFrames() {
+        synchronized (captureLock) {
+            return droppedFrames + (framePipeline != null ? framePipeline.getDroppedFrames() : 0);
+        }
+    }
+
+    // 视频的目标帧率，未在播放时为 0
+    public double getTargetFps() {
+        PresentationClock clock = presentationClock;
+        return clock != null ? clock.getTargetFps() : 0;
+    }
+
+    // 最近实际显示的帧率
+    public double getAchievedFps() {
+        PresentationClock clock = presentationClock;
+        return clock != null ? clock.getAchievedFps() : 0;
+    }
+
+    // 为追赶播放进度而跳过解码的帧数
+    public long getSkippedFrames() {
+        PresentationClock clock = presentationClock;
+        return clock != null ? clock.getSkippedFrames() : 0;
+    }
+
+    // 帧缓冲区池及其分配统计
+    public FrameBufferPool getFrameBufferPool() {
+        return frameBufferPool;
+    }
+
+    // 设置流水线各阶段的线程数和队列容量，下次开始播放时生效
+    public void setPipelineConfig(PipelineConfig pipelineConfig) {
+        this.pipelineConfig = pipelineConfig;
+    }
+
+    // 预处理：每种模型输入尺寸只处理一次
+    public PreprocessedFrame preprocessImage(Mat image) {
+        FramePreprocessor preprocessor = frameBufferPool.acquirePreprocessor();
+        try {
+            return preprocessor.preprocess(image, inferenceEngines);
+        } finally {
+            frameBufferPool.releasePreprocessor(preprocessor);
         }
+    }
 
-        return dynamicInput;
+    // 按模型顺序对一帧执行所有已就绪模型的推理
+    private List<InferenceResult> inferAll(PreprocessedFrame preprocessedFrame) {
+        return multiModelExecutor.inferAll(preprocessedFrame);
     }
 
     public List<InferenceEngine> getInferenceEngines() {
@@ -491,31 +718,14 @@ public class VideoPlayer {
         synchronized (captureLock) {
             isPlaying = false;
             isPaused = false;
-
-            if (frameReadingThread != null && frameReadingThread.isAlive()) {
-                frameReadingThread.interrupt();
-                try {
-                    frameReadingThread.join(); // 等待线程终止
-                } catch (InterruptedException e) {
-                    e.printStackTrace();
-                }
-            }
-
-            if (inferenceThread != null && inferenceThread.isAlive()) {
-                inferenceThread.interrupt();
-                try {
-                    inferenceThread.join(); // 等待线程终止
-                } catch (InterruptedException e) {
-                    e.printStackTrace();
-                }
-            }
+            stopPipeline();
 
             if (videoCapture != null) {
                 videoCapture.release();
                 videoCapture = null;
             }
-
-            frameDataQueue.clear();
+            stopKeyframeIndexing();
+            frameBufferPool.clear();
         }
     }
 
@@ -544,24 +754,27 @@ public class VideoPlayer {
         BufferedImage bufferedImage = matToBufferedImage(image);
 
         // 预处理图片
-        Map<Integer, Object> preprocessedData = preprocessImage(image);
+        PreprocessedFrame preprocessedFrame = preprocessImage(image);
+        image.release();
 
         // 执行推理
-        List<InferenceResult> inferenceResults = new ArrayList<>();
-        for (InferenceEngine inferenceEngine : inferenceEngines) {
-            InferenceResult infer = inferenceEngine.infer(preprocessedData);
-            inferenceResults.add(infer);
-        }
+        List<InferenceResult> inferenceResults = inferAll(preprocessedFrame);
+        preprocessedFrame.release();
 
         // 合并所有模型的推理结果
         List<BoundingBox> allBoundingBoxes = new ArrayList<>();
+        List<BoundingBox> lowConfidenceBoxes = new ArrayList<>();
         for (InferenceResult result : inferenceResults) {
             allBoundingBoxes.addAll(result.getBoundingBoxes());
+            lowConfidenceBoxes.addAll(result.getLowConfidenceBoxes());
         }
 
         // 如果启用了目标跟踪，则更新边界框并分配 trackId
         if (isTrackingEnabled) {
-            tracker.update(allBoundingBoxes);
+            tracker.update(allBoundingBoxes, lowConfidenceBoxes);
+            for (InferenceResult result : inferenceResults) {
+                result.promoteTrackedLowConfidenceBoxes();
+            }
         }
 
         // 绘制推理结果
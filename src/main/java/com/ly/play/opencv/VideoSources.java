@@ -0,0 +1,56 @@
+package com.ly.play.opencv;
+
+import org.opencv.videoio.VideoCapture;
+import org.opencv.videoio.Videoio;
+
+import java.io.IOException;
+
+/**
+ * 视频源的识别与打开：摄像头编号、网络流地址或本地视频文件
+ */
+public final class VideoSources {
+
+    private VideoSources() {
+    }
+
+    // 摄像头编号或网络流地址视为实时源
+    public static boolean isLiveSource(String source) {
+        if (isCameraIndex(source)) {
+            return true;
+        }
+        String lower = source.toLowerCase();
+        return lower.startsWith("rtsp://") || lower.startsWith("rtmp://") || lower.startsWith("udp://")
+                || lower.startsWith("http://") || lower.startsWith("https://");
+    }
+
+    public static boolean isCameraIndex(String source) {
+        return source.matches("\\d+");
+    }
+
+    // 打开视频源，摄像头会尽量减小采集端缓冲以免积压旧帧
+    public static VideoCapture open(String source) throws IOException {
+        VideoCapture capture;
+        if (isCameraIndex(source)) {
+            capture = new VideoCapture(Integer.parseInt(source));
+            if (!capture.isOpened()) {
+                throw new IOException("无法打开摄像头：" + source);
+            }
+            capture.set(Videoio.CAP_PROP_BUFFERSIZE, 1);
+        } else {
+            capture = new VideoCapture(source, Videoio.CAP_FFMPEG);
+            if (!capture.isOpened()) {
+                throw new IOException("无法打开视频源：" + source);
+            }
+        }
+        return capture;
+    }
+
+    // 视频帧率，无法获取时返回默认的 25
+    public static double frameRate(VideoCapture capture) {
+        double fps = capture.get(Videoio.CAP_PROP_FPS);
+        if (fps <= 0 || Double.isNaN(fps)) {
+            fps = 25; // 默认帧率
+        }
+        return fps;
+    }
+}
@@ -0,0 +1,244 @@
+package com.ly.play.pipeline;
+
+import com.ly.onnx.model.BoundingBox;
+import com.ly.onnx.model.InferenceResult;
+import com.ly.track.Tracker;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 检测间隔调度：每 K 帧做一次完整的预处理和推理，其余帧的框由跟踪器预测，画面和叠加层仍按视频帧率刷新。
+ * 只有带运动模型的跟踪器（sort、byte）会把框推进到当前帧，simple、iou 跟踪器预测的框停在上一次检测的位置。
+ * <p>
+ * 自适应模式下，上一次检测出现新目标、跟踪目标变少或同一目标的置信度比前一次检测明显下降时提前检测。
+ * 按目标比较前后两次的置信度，而不是与固定阈值比较：引擎保留的框本就低至置信度阈值，一直偏低的目标不会反复触发。
+ * 是否检测在解码时决定，检测结果却在后处理时才记录，触发的检测落在此时刚解码的帧上，比触发它的帧晚了流水线中在途的帧数
+ * （解码、预处理队列与重排缓冲区的深度），而不是紧接着的下一帧；在途的帧仍按原间隔处理。
+ * 跳转等画面不连续的情况由调用方通过 {@link #requestDetection()} 要求立即检测。
+ * <p>
+ * 配合 {@link MotionGate} 时，静止帧不检测也不推进跟踪器，直接沿用上一次的框；静止之后重新出现运动的第一帧立即检测。
+ * 解码线程调用 {@link #shouldDetect()}，后处理线程记录检测结果和生成预测结果，方法都是线程安全的。
+ */
+public class DetectionScheduler {
+
+    // 自适应模式下，同一目标的置信度降到上一次检测的该比例以下时提前检测
+    private static final float DEFAULT_CONFIDENCE_DROP_RATIO = 0.6f;
+
+    private final int interval;
+    private final boolean adaptive;
+    private final float confidenceDropRatio;
+
+    // 距上一次检测已经过的帧数
+    private int framesSinceDetection;
+    // 下一次调用 shouldDetect 的帧必须检测，初始为 true 保证第一帧有结果
+    private boolean detectNext = true;
+    // 上一帧是否有运动
+    private boolean lastMotion = true;
+
+    // 上一次检测的结果，按模型顺序排列，跳过检测的帧以它为模板生成预测结果
+    private List<InferenceResult> lastResults = Collections.emptyList();
+    private long maxTrackId;
+    private int lastTrackedCount = -1;
+    // 上一次检测中各跟踪目标的置信度
+    private Map<Long, Float> lastConfidences = Collections.emptyMap();
+
+    private long detectedFrames;
+    private long predictedFrames;
+    private long staticFrames;
+    // 检测帧预处理和推理的累计耗时，用于估算跳过的帧省下的时间
+    private long detectionNanos;
+
+    /**
+     * @param interval 每多少帧检测一次，1 表示每帧检测
+     * @param adaptive 是否在目标变化时提前检测
+     */
+    public DetectionScheduler(int interval, boolean adaptive) {
+        this(interval, adaptive, DEFAULT_CONFIDENCE_DROP_RATIO);
+    }
+
+    /**
+     * @param confidenceDropRatio 同一目标的置信度降到上一次检测的该比例以下时提前检测，仅自适应模式使用
+     */
+    public DetectionScheduler(int interval, boolean adaptive, float confidenceDropRatio) {
+        if (interval < 1) {
+            throw new IllegalArgumentException("检测间隔必须大于 0: " + interval);
+        }
+        this.interval = interval;
+        this.adaptive = adaptive;
+        this.confidenceDropRatio = confidenceDropRatio;
+    }
+
+    // 解码每一帧时调用，决定该帧是否做检测
+    public boolean shouldDetect() {
+        return shouldDetect(true);
+    }
+
+    /**
+     * 解码每一帧时调用，决定该帧是否做检测
+     *
+     * @param motion 运动检测的结果，静止帧除非被要求立即检测，否则不检测
+     */
+    public synchronized boolean shouldDetect(boolean motion) {
+        if (motion && !lastMotion) {
+            detectNext = true;
+        }
+        lastMotion = motion;
+        if (detectNext) {
+            detectNext = false;
+            framesSinceDetection = 0;
+            detectedFrames++;
+            return true;
+        }
+        if (!motion) {
+            staticFrames++;
+            return false;
+        }
+        if (++framesSinceDetection >= interval) {
+            framesSinceDetection = 0;
+            detectedFrames++;
+            return true;
+        }
+        predictedFrames++;
+        return false;
+    }
+
+    // 下一个解码的帧立即检测，用于跳转之后或画面出现新的运动
+    public synchronized void requestDetection() {
+        detectNext = true;
+    }
+
+    // 累计检测帧的预处理、推理耗时，可分阶段多次调用
+    public synchronized void recordDetectionNanos(long nanos) {
+        detectionNanos += nanos;
+    }
+
+    // 记录一次检测的结果，在跟踪器分配 trackId 之后调用；触发的提前检测作用于此后解码的第一帧
+    public synchronized void recordDetection(List<InferenceResult> results) {
+        lastResults = results;
+        if (!adaptive) {
+            return;
+        }
+        int tracked = 0;
+        long maxId = maxTrackId;
+        boolean dropped = false;
+        Map<Long, Float> confidences = new HashMap<>();
+        for (InferenceResult result : results) {
+            for (BoundingBox box : result.getBoundingBoxes()) {
+                if (box.getTrackId() <= 0) {
+                    continue;
+                }
+                tracked++;
+                maxId = Math.max(maxId, box.getTrackId());
+                confidences.put(box.getTrackId(), box.getConfidence());
+                Float last = lastConfidences.get(box.getTrackId());
+                if (last != null && box.getConfidence() < last * confidenceDropRatio) {
+                    dropped = true;
+                }
+            }
+        }
+        // 编号递增分配，出现更大的编号说明有新目标进入画面
+        boolean appeared = maxId > maxTrackId;
+        boolean lost = lastTrackedCount >= 0 && tracked < lastTrackedCount;
+        maxTrackId = maxId;
+        lastTrackedCount = tracked;
+        lastConfidences = confidences;
+        if (appeared || lost || dropped) {
+            detectNext = true;
+        }
+    }
+
+    /**
+     * 生成跳过检测的帧的推理结果：沿用上一次检测的按模型划分，框换成跟踪器预测到当前帧的位置。
+     * 跟踪器已不再匹配的目标不输出；未分配编号的框和 tracker 为 null 时沿用上一次检测的框，静止帧应传入 null。
+     * 跟踪器每帧都要推进，应按解码顺序调用。
+     */
+    public List<InferenceResult> predictResults(Tracker tracker) {
+        List<InferenceResult> last;
+        synchronized (this) {
+            last = lastResults;
+        }
+        Map<Long, BoundingBox> predicted = new HashMap<>();
+        if (tracker != null) {
+            for (BoundingBox box : tracker.predict()) {
+                predicted.put(box.getTrackId(), box);
+            }
+        }
+        List<InferenceResult> results = new ArrayList<>(last.size());
+        for (InferenceResult lastResult : last) {
+            InferenceResult result = new InferenceResult();
+            for (BoundingBox box : lastResult.getBoundingBoxes()) {
+                if (tracker == null || box.getTrackId() == 0) {
+                    result.getBoundingBoxes().add(box);
+                    continue;
+                }
+                BoundingBox prediction = predicted.get(box.getTrackId());
+                if (prediction != null) {
+                    result.getBoundingBoxes().add(prediction);
+                }
+            }
+            results.add(result);
+        }
+        return results;
+    }
+
+    // 重新开始计数，下一帧检测
+    public synchronized void reset() {
+        framesSinceDetection = 0;
+        detectNext = true;
+        lastResults = Collections.emptyList();
+        lastTrackedCount = -1;
+        lastConfidences = Collections.emptyMap();
+        lastMotion = true;
+    }
+
+    public int getInterval() {
+        return interval;
+    }
+
+    public boolean isAdaptive() {
+        return adaptive;
+    }
+
+    public synchronized long getDetectedFrames() {
+        return detectedFrames;
+    }
+
+    public synchronized long getPredictedFrames() {
+        return predictedFrames;
+    }
+
+    // 因画面静止跳过检测的帧数
+    public synchronized long getStaticFrames() {
+        return staticFrames;
+    }
+
+    // 跳过检测的帧数，包括按间隔预测的和静止的
+    public synchronized long getSkippedFrames() {
+        return predictedFrames + staticFrames;
+    }
+
+    // 跳过检测的帧占比
+    public synchronized double getSkipRatio() {
+        long total = detectedFrames + predictedFrames + staticFrames;
+        return total > 0 ? (double) (predictedFrames + staticFrames) / total : 0;
+    }
+
+    // 按检测帧的平均耗时估算跳过检测省下的时间（毫秒）
+    public synchronized double getSavedMillis() {
+        if (detectedFrames == 0) {
+            return 0;
+        }
+        return detectionNanos / 1e6 / detectedFrames * (predictedFrames + staticFrames);
+    }
+
+    @Override
+    public synchronized String toString() {
+        return String.format("检测间隔 %d%s：检测 %d 帧，预测 %d 帧，静止 %d 帧，跳过 %.1f%%，约节省 %.1f s",
+                interval, adaptive ? "（自适应）" : "", detectedFrames, predictedFrames, staticFrames,
+                getSkipRatio() * 100, getSavedMillis() / 1000);
+    }
+}
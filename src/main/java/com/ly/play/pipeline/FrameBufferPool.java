@@ -0,0 +1,163 @@
+package com.ly.play.pipeline;
+
+import com.ly.onnx.preprocess.FramePreprocessor;
+import org.opencv.core.Mat;
+
+import java.awt.image.BufferedImage;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 流水线逐帧使用的缓冲区池：解码用的 Mat、显示用的 BufferedImage 以及预处理器（内含缩放用的 Mat 和临时数组）。
+ * 稳定运行后每帧都复用池中的缓冲区，不再分配新的本地内存和大数组，
+ * 本地内存也不必等 GC 回收 Mat 时才释放。
+ * <p>
+ * 帧在渲染完成（或被丢弃）后归还缓冲区；池中空闲缓冲区超过上限时直接释放。
+ */
+public class FrameBufferPool {
+
+    // 每类缓冲区最多保留的空闲数量
+    private static final int DEFAULT_MAX_IDLE = 16;
+
+    private final int maxIdle;
+
+    private final Queue<Mat> freeMats = new ConcurrentLinkedQueue<>();
+    private final Queue<BufferedImage> freeImages = new ConcurrentLinkedQueue<>();
+    private final Queue<FramePreprocessor> freePreprocessors = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger idleMats = new AtomicInteger();
+    private final AtomicInteger idleImages = new AtomicInteger();
+
+    // 统计：取出的帧数和实际新分配的次数
+    private final AtomicLong frames = new AtomicLong();
+    private final AtomicLong matAllocations = new AtomicLong();
+    private final AtomicLong imageAllocations = new AtomicLong();
+    private final AtomicLong imageAllocatedBytes = new AtomicLong();
+    private final AtomicLong preprocessorAllocations = new AtomicLong();
+
+    public FrameBufferPool() {
+        this(DEFAULT_MAX_IDLE);
+    }
+
+    public FrameBufferPool(int maxIdle) {
+        this.maxIdle = maxIdle;
+    }
+
+    // 取出一个用于解码的 Mat；尺寸与上一次相同时 VideoCapture.read 会复用其本地内存
+    public Mat acquireMat() {
+        frames.incrementAndGet();
+        Mat mat = freeMats.poll();
+        if (mat != null) {
+            idleMats.decrementAndGet();
+            return mat;
+        }
+        matAllocations.incrementAndGet();
+        return new Mat();
+    }
+
+    public void releaseMat(Mat mat) {
+        if (mat == null) {
+            return;
+        }
+        if (idleMats.incrementAndGet() > maxIdle) {
+            idleMats.decrementAndGet();
+            mat.release();
+            return;
+        }
+        freeMats.offer(mat);
+    }
+
+    // 取出指定尺寸和类型的图像，池中图像尺寸不符时丢弃并重新分配
+    public BufferedImage acquireImage(int width, int height, int type) {
+        BufferedImage image;
+        while ((image = freeImages.poll()) != null) {
+            idleImages.decrementAndGet();
+            if (image.getWidth() == width && image.getHeight() == height && image.getType() == type) {
+                return image;
+            }
+        }
+        imageAllocations.incrementAndGet();
+        int channels = type == BufferedImage.TYPE_BYTE_GRAY ? 1 : 3;
+        imageAllocatedBytes.addAndGet((long) width * height * channels);
+        return new BufferedImage(width, height, type);
+    }
+
+    public void releaseImage(BufferedImage image) {
+        if (image == null) {
+            return;
+        }
+        if (idleImages.incrementAndGet() > maxIdle) {
+            idleImages.decrementAndGet();
+            return;
+        }
+        freeImages.offer(image);
+    }
+
+    // 取出一个预处理器，使用期间由调用线程独占
+    public FramePreprocessor acquirePreprocessor() {
+        FramePreprocessor preprocessor = freePreprocessors.poll();
+        if (preprocessor == null) {
+            preprocessorAllocations.incrementAndGet();
+            preprocessor = new FramePreprocessor();
+        }
+        return preprocessor;
+    }
+
+    public void releasePreprocessor(FramePreprocessor preprocessor) {
+        // 预处理器数量受预处理线程数限制，不设上限
+        freePreprocessors.offer(preprocessor);
+    }
+
+    // 释放池中所有空闲缓冲区的本地内存
+    public void clear() {
+        Mat mat;
+        while ((mat = freeMats.poll()) != null) {
+            idleMats.decrementAndGet();
+            mat.release();
+        }
+        while (freeImages.poll() != null) {
+            idleImages.decrementAndGet();
+        }
+        FramePreprocessor preprocessor;
+        while ((preprocessor = freePreprocessors.poll()) != null) {
+            preprocessor.release();
+        }
+    }
+
+    public long getFrames() {
+        return frames.get();
+    }
+
+    public long getMatAllocations() {
+        return matAllocations.get();
+    }
+
+    public long getImageAllocations() {
+        return imageAllocations.get();
+    }
+
+    public long getImageAllocatedBytes() {
+        return imageAllocatedBytes.get();
+    }
+
+    public long getPreprocessorAllocations() {
+        return preprocessorAllocations.get();
+    }
+
+    // 平均每帧新分配的缓冲区数量，稳定运行后应趋近于 0
+    public double getAllocationsPerFrame() {
+        long frameCount = frames.get();
+        if (frameCount == 0) {
+            return 0;
+        }
+        return (double) (matAllocations.get() + imageAllocations.get() + preprocessorAllocations.get()) / frameCount;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("帧数=%d, Mat 分配=%d, 图像分配=%d (%.1f MB), 预处理器分配=%d, 每帧分配=%.3f",
+                getFrames(), getMatAllocations(), getImageAllocations(), getImageAllocatedBytes() / 1048576.0,
+                getPreprocessorAllocations(), getAllocationsPerFrame());
+    }
+}
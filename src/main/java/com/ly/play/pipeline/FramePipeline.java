@@ -0,0 +1,370 @@
+package com.ly.play.pipeline;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * 分阶段的视频处理流水线：
+ * <pre>
+ * 解码(1) → 预处理(N) → 推理(M) → 按顺序号重排 → 后处理/跟踪(1) → 渲染(1)
+ * </pre>
+ * 阶段之间以有界队列连接，各阶段独立占用线程，帧延迟受最慢阶段而不是所有工作之和限制。
+ * 预处理和推理可以多线程乱序完成，重排缓冲区按解码顺序号恢复顺序后再进入跟踪和渲染。
+ * 每个阶段具体做什么由 {@link Stages} 提供。
+ * <p>
+ * 下游跟不上时解码队列按 {@link OverflowPolicy} 处理：阻塞解码，或丢弃旧帧以保证实时源的画面延迟。
+ * 跳转后仍在途的旧帧由 {@link Stages#isStale} 判定为过期，每个阶段开始前检查，不再做无用的处理。
+ */
+public class FramePipeline {
+    private static final Logger logger = Logger.getLogger(FramePipeline.class.getName());
+
+    private static final long POLL_MILLIS = 50;
+
+    /**
+     * 流水线各阶段的处理逻辑
+     */
+    public interface Stages {
+        // 解码下一帧，返回 null 表示输入结束
+        FrameTask decode() throws Exception;
+
+        void preprocess(FrameTask task) throws Exception;
+
+        void infer(FrameTask task) throws Exception;
+
+        // 按解码顺序调用
+        void postprocess(FrameTask task) throws Exception;
+
+        // 按解码顺序调用
+        void render(FrameTask task) throws Exception;
+
+        // 帧完成渲染、被丢弃或处理失败后释放其资源
+        void release(FrameTask task);
+
+        // 帧是否已过期（如跳转之前解码的帧），过期帧在进入下一阶段前被丢弃
+        default boolean isStale(FrameTask task) {
+            return false;
+        }
+    }
+
+    private final PipelineConfig config;
+    private final Stages stages;
+    private final OverflowPolicy overflowPolicy;
+
+    private final BlockingQueue<FrameTask> decodedQueue;
+    private final BlockingQueue<FrameTask> preprocessedQueue;
+    private final ReorderBuffer<FrameTask> reorderBuffer;
+    private final BlockingQueue<FrameTask> postprocessedQueue;
+
+    private final AtomicInteger activePreprocessWorkers = new AtomicInteger();
+    private final AtomicInteger activeInferenceWorkers = new AtomicInteger();
+    private volatile boolean decodeFinished;
+    private volatile boolean postprocessFinished;
+
+    // 因解码队列溢出而丢弃的帧数
+    private final AtomicLong droppedFrames = new AtomicLong();
+    // 因过期而在途中丢弃的帧数
+    private final AtomicLong flushedFrames = new AtomicLong();
+
+    private final List<Thread> threads = new ArrayList<>();
+    private long nextSequence;
+
+    public FramePipeline(PipelineConfig config, Stages stages) {
+        this(config, stages, config.getOverflowPolicy());
+    }
+
+    public FramePipeline(PipelineConfig config, Stages stages, OverflowPolicy overflowPolicy) {
+        this.config = config;
+        this.stages = stages;
+        this.overflowPolicy = overflowPolicy;
+        int capacity = Math.max(1, config.getQueueCapacity());
+        this.decodedQueue = new ArrayBlockingQueue<>(capacity);
+        this.preprocessedQueue = new ArrayBlockingQueue<>(capacity);
+        this.postprocessedQueue = new ArrayBlockingQueue<>(capacity);
+        // 重排缓冲区需要容纳解码之后、跟踪之前所有可能在途的帧，否则会互相等待
+        int inFlight = 2 * capacity + config.getPreprocessWorkers() + config.getInferenceWorkers() + 1;
+        this.reorderBuffer = new ReorderBuffer<>(inFlight);
+    }
+
+    public synchronized void start() {
+        threads.add(new Thread(this::decodeLoop, "pipeline-decode"));
+        int preprocessWorkers = Math.max(1, config.getPreprocessWorkers());
+        activePreprocessWorkers.set(preprocessWorkers);
+        for (int i = 0; i < preprocessWorkers; i++) {
+            threads.add(new Thread(this::preprocessLoop, "pipeline-preprocess-" + i));
+        }
+        int inferenceWorkers = Math.max(1, config.getInferenceWorkers());
+        activeInferenceWorkers.set(inferenceWorkers);
+        for (int i = 0; i < inferenceWorkers; i++) {
+            threads.add(new Thread(this::inferenceLoop, "pipeline-inference-" + i));
+        }
+        threads.add(new Thread(this::postprocessLoop, "pipeline-postprocess"));
+        threads.add(new Thread(this::renderLoop, "pipeline-render"));
+        for (Thread thread : threads) {
+            thread.setDaemon(true);
+            thread.start();
+        }
+    }
+
+    // 停止所有阶段并释放仍在流水线中的帧
+    public synchronized void stop() {
+        for (Thread thread : threads) {
+            thread.interrupt();
+        }
+        for (Thread thread : threads) {
+            try {
+                thread.join();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                break;
+            }
+        }
+        threads.clear();
+        drain(decodedQueue);
+        drain(preprocessedQueue);
+        drain(postprocessedQueue);
+        for (FrameTask task : reorderBuffer.reset(nextSequence)) {
+            stages.release(task);
+        }
+    }
+
+    // 等待所有阶段处理完剩余的帧
+    public void awaitCompletion() throws InterruptedException {
+        List<Thread> running;
+        synchronized (this) {
+            running = new ArrayList<>(threads);
+        }
+        for (Thread thread : running) {
+            thread.join();
+        }
+    }
+
+    private void decodeLoop() {
+        try {
+            while (!Thread.currentThread().isInterrupted()) {
+                FrameTask task = stages.decode();
+                if (task == null) {
+                    break;
+                }
+                task.setSequence(nextSequence++);
+                enqueueDecoded(task);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (Exception e) {
+            logger.log(Level.SEVERE, "解码失败", e);
+        } finally {
+            decodeFinished = true;
+        }
+    }
+
+    // 按溢出策略把解码后的帧放入队列
+    private void enqueueDecoded(FrameTask task) throws InterruptedException {
+        switch (overflowPolicy) {
+            case DROP_OLDEST:
+                while (!decodedQueue.offer(task)) {
+                    drop(decodedQueue.poll());
+                }
+                break;
+            case KEEP_LATEST:
+                FrameTask stale;
+                while ((stale = decodedQueue.poll()) != null) {
+                    drop(stale);
+                }
+                // 只有解码线程入队，清空后 put 不会阻塞
+                handOff(decodedQueue, task);
+                break;
+            default:
+                handOff(decodedQueue, task);
+                break;
+        }
+    }
+
+    // 丢弃尚未预处理的帧
+    private void drop(FrameTask task) throws InterruptedException {
+        if (task == null) {
+            return;
+        }
+        droppedFrames.incrementAndGet();
+        stages.release(task);
+        reorderBuffer.skip(task.getSequence());
+    }
+
+    private void preprocessLoop() {
+        try {
+            while (true) {
+                FrameTask task = decodedQueue.poll(POLL_MILLIS, TimeUnit.MILLISECONDS);
+                if (task == null) {
+                    if (decodeFinished && decodedQueue.isEmpty()) {
+                        break;
+                    }
+                    continue;
+                }
+                if (flushIfStale(task, true)) {
+                    continue;
+                }
+                try {
+                    stages.preprocess(task);
+                } catch (Exception e) {
+                    fail("预处理失败", task, e);
+                    continue;
+                }
+                handOff(preprocessedQueue, task);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            activePreprocessWorkers.decrementAndGet();
+        }
+    }
+
+    private void inferenceLoop() {
+        try {
+            while (true) {
+                FrameTask task = preprocessedQueue.poll(POLL_MILLIS, TimeUnit.MILLISECONDS);
+                if (task == null) {
+                    if (activePreprocessWorkers.get() == 0 && preprocessedQueue.isEmpty()) {
+                        break;
+                    }
+                    continue;
+                }
+                if (flushIfStale(task, true)) {
+                    continue;
+                }
+                try {
+                    stages.infer(task);
+                } catch (Exception e) {
+                    fail("推理失败", task, e);
+                    continue;
+                }
+                handOffToReorder(task);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            activeInferenceWorkers.decrementAndGet();
+        }
+    }
+
+    private void postprocessLoop() {
+        try {
+            while (true) {
+                FrameTask task = reorderBuffer.poll(POLL_MILLIS, TimeUnit.MILLISECONDS);
+                if (task == null) {
+                    if (activeInferenceWorkers.get() == 0 && reorderBuffer.isEmpty()) {
+                        break;
+                    }
+                    continue;
+                }
+                if (flushIfStale(task, false)) {
+                    continue;
+                }
+                try {
+                    stages.postprocess(task);
+                } catch (Exception e) {
+                    logger.log(Level.WARNING, "后处理失败，帧 " + task.getSequence(), e);
+                    stages.release(task);
+                    continue;
+                }
+                handOff(postprocessedQueue, task);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            postprocessFinished = true;
+        }
+    }
+
+    private void renderLoop() {
+        try {
+            while (true) {
+                FrameTask task = postprocessedQueue.poll(POLL_MILLIS, TimeUnit.MILLISECONDS);
+                if (task == null) {
+                    if (postprocessFinished && postprocessedQueue.isEmpty()) {
+                        break;
+                    }
+                    continue;
+                }
+                if (flushIfStale(task, false)) {
+                    continue;
+                }
+                try {
+                    stages.render(task);
+                } catch (InterruptedException e) {
+                    // 等待呈现时被 stop() 中断，不算渲染失败
+                    throw e;
+                } catch (Exception e) {
+                    logger.log(Level.WARNING, "渲染失败，帧 " + task.getSequence(), e);
+                } finally {
+                    stages.release(task);
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    // 把帧交给下一阶段；等待队列空位时被 stop() 中断则先释放该帧，否则它不在任何队列中，其缓冲区会泄漏
+    private void handOff(BlockingQueue<FrameTask> queue, FrameTask task) throws InterruptedException {
+        try {
+            queue.put(task);
+        } catch (InterruptedException e) {
+            stages.release(task);
+            throw e;
+        }
+    }
+
+    private void handOffToReorder(FrameTask task) throws InterruptedException {
+        try {
+            reorderBuffer.put(task.getSequence(), task);
+        } catch (InterruptedException e) {
+            stages.release(task);
+            throw e;
+        }
+    }
+
+    // 重排之前的阶段处理失败时，释放该帧并通知重排缓冲区跳过其顺序号
+    private void fail(String message, FrameTask task, Exception e) throws InterruptedException {
+        logger.log(Level.WARNING, message + "，帧 " + task.getSequence(), e);
+        stages.release(task);
+        reorderBuffer.skip(task.getSequence());
+    }
+
+    // 过期帧直接释放；尚未进入重排缓冲区的帧还需跳过其顺序号
+    private boolean flushIfStale(FrameTask task, boolean beforeReorder) throws InterruptedException {
+        if (!stages.isStale(task)) {
+            return false;
+        }
+        flushedFrames.incrementAndGet();
+        stages.release(task);
+        if (beforeReorder) {
+            reorderBuffer.skip(task.getSequence());
+        }
+        return true;
+    }
+
+    public long getDroppedFrames() {
+        return droppedFrames.get();
+    }
+
+    public long getFlushedFrames() {
+        return flushedFrames.get();
+    }
+
+    public OverflowPolicy getOverflowPolicy() {
+        return overflowPolicy;
+    }
+
+    private void drain(BlockingQueue<FrameTask> queue) {
+        FrameTask task;
+        while ((task = queue.poll()) != null) {
+            stages.release(task);
+        }
+    }
+}
@@ -0,0 +1,52 @@
+package com.ly.play.pipeline;
+
+import com.ly.onnx.model.InferenceResult;
+import com.ly.onnx.preprocess.PreprocessedFrame;
+import lombok.Data;
+import org.opencv.core.Mat;
+
+import java.awt.image.BufferedImage;
+import java.util.List;
+
+/**
+ * 在流水线各阶段之间传递的一帧，同一时刻只属于一个阶段
+ */
+@Data
+public class FrameTask {
+
+    // 解码顺序号，用于在乱序完成后恢复显示顺序
+    private long sequence;
+
+    // 解码得到的原始帧
+    private Mat frame;
+
+    // 解码时的跳转代数，与当前代数不同的帧已过期
+    private long generation;
+
+    // 帧的时间戳（毫秒）
+    private long timestampMillis;
+
+    // 解码完成时的 System.nanoTime()，用于统计端到端延迟
+    private long decodedNanos;
+
+    // 是否对该帧做检测，为 false 时跳过预处理和推理，结果由跟踪器预测
+    private boolean detect = true;
+
+    // 运动检测的结果，静止帧沿用上一次的检测结果，不推进跟踪器
+    private boolean motion = true;
+
+    // 用于显示和绘制的图像
+    private BufferedImage image;
+
+    // 模型输入预处理结果，推理完成后释放
+    private PreprocessedFrame preprocessedFrame;
+
+    // 按模型顺序排列的推理结果
+    private List<InferenceResult> inferenceResults;
+
+    public FrameTask(Mat frame, long timestampMillis) {
+        this.frame = frame;
+        this.timestampMillis = timestampMillis;
+        this.decodedNanos = System.nanoTime();
+    }
+}
@@ -0,0 +1,140 @@
+package com.ly.play.pipeline;
+
+import org.opencv.core.Core;
+import org.opencv.core.CvType;
+import org.opencv.core.Mat;
+import org.opencv.core.Size;
+import org.opencv.imgproc.Imgproc;
+
+/**
+ * 运动检测：把解码帧缩小为灰度图，与缓慢更新的背景做差，变化像素占比低于阈值时判定画面静止。
+ * 固定机位的画面大部分时间不变，静止帧不做预处理和推理，沿用上一次的检测结果，见 {@link DetectionScheduler}。
+ * <p>
+ * 背景用 accumulateWeighted 按滑动平均更新，光照渐变和停下不动的物体会逐渐并入背景。
+ * {@link #hasMotion(Mat)} 只应由解码线程按帧顺序调用，缩小、差分用的 Mat 逐帧复用。
+ */
+public class MotionGate {
+
+    // 缩小后的宽度，高度按原始宽高比
+    private static final int SAMPLE_WIDTH = 160;
+    // 灰度差超过该值的像素视为变化，滤掉传感器噪声和压缩噪点
+    private static final double PIXEL_THRESHOLD = 25;
+    // 背景更新速度，约 1 / alpha 帧后完全吸收新的静止画面
+    private static final double BACKGROUND_ALPHA = 0.05;
+
+    // 变化像素占比不低于该值时认为有运动
+    private final double minChangedRatio;
+
+    private final Size sampleSize = new Size();
+    private final Mat sample = new Mat();
+    private final Mat gray = new Mat();
+    private final Mat background = new Mat();
+    private final Mat backgroundGray = new Mat();
+    private final Mat difference = new Mat();
+    private boolean initialized;
+
+    // 统计信息，解码线程写入，其他线程读取
+    private long checkedFrames;
+    private long staticFrames;
+    private long totalNanos;
+    private double lastChangedRatio;
+
+    /**
+     * @param minChangedRatio 变化像素占缩小后画面的比例达到该值才算有运动，如 0.002
+     */
+    public MotionGate(double minChangedRatio) {
+        this.minChangedRatio = minChangedRatio;
+    }
+
+    // 判断当前帧相对背景是否有运动，并用当前帧更新背景；第一帧和重置后的第一帧总是返回 true
+    public boolean hasMotion(Mat frame) {
+        long start = System.nanoTime();
+        sampleSize.width = SAMPLE_WIDTH;
+        sampleSize.height = Math.max(1, Math.round((double) frame.rows() * SAMPLE_WIDTH / frame.cols()));
+        Imgproc.resize(frame, sample, sampleSize, 0, 0, Imgproc.INTER_AREA);
+        toGray(sample, gray);
+
+        double changedRatio;
+        if (!initialized || !background.size().equals(gray.size())) {
+            gray.convertTo(background, CvType.CV_32F);
+            initialized = true;
+            changedRatio = 1;
+        } else {
+            background.convertTo(backgroundGray, CvType.CV_8U);
+            Core.absdiff(gray, backgroundGray, difference);
+            Imgproc.threshold(difference, difference, PIXEL_THRESHOLD, 255, Imgproc.THRESH_BINARY);
+            changedRatio = (double) Core.countNonZero(difference) / difference.total();
+            Imgproc.accumulateWeighted(gray, background, BACKGROUND_ALPHA);
+        }
+        boolean motion = changedRatio >= minChangedRatio;
+
+        synchronized (this) {
+            checkedFrames++;
+            if (!motion) {
+                staticFrames++;
+            }
+            totalNanos += System.nanoTime() - start;
+            lastChangedRatio = changedRatio;
+        }
+        return motion;
+    }
+
+    private static void toGray(Mat source, Mat target) {
+        switch (source.channels()) {
+            case 1:
+                source.copyTo(target);
+                break;
+            case 4:
+                Imgproc.cvtColor(source, target, Imgproc.COLOR_BGRA2GRAY);
+                break;
+            default:
+                Imgproc.cvtColor(source, target, Imgproc.COLOR_BGR2GRAY);
+        }
+    }
+
+    // 画面不连续（如跳转）时丢弃背景，下一帧重新建立
+    public void reset() {
+        initialized = false;
+    }
+
+    // 释放本地内存，之后不能再使用
+    public void release() {
+        sample.release();
+        gray.release();
+        background.release();
+        backgroundGray.release();
+        difference.release();
+    }
+
+    public double getMinChangedRatio() {
+        return minChangedRatio;
+    }
+
+    public synchronized long getCheckedFrames() {
+        return checkedFrames;
+    }
+
+    public synchronized long getStaticFrames() {
+        return staticFrames;
+    }
+
+    // 判定为静止的帧占比
+    public synchronized double getStaticRatio() {
+        return checkedFrames > 0 ? (double) staticFrames / checkedFrames : 0;
+    }
+
+    // 每帧运动检测的平均耗时（毫秒）
+    public synchronized double getAverageMillis() {
+        return checkedFrames > 0 ? totalNanos / 1e6 / checkedFrames : 0;
+    }
+
+    public synchronized double getLastChangedRatio() {
+        return lastChangedRatio;
+    }
+
+    @Override
+    public synchronized String toString() {
+        return String.format("运动检测：静止 %d/%d 帧（%.1f%%），平均耗时 %.2f ms",
+                staticFrames, checkedFrames, getStaticRatio() * 100, getAverageMillis());
+    }
+}
@@ -0,0 +1,13 @@
+package com.ly.play.pipeline;
+
+/**
+ * 解码队列已满（下游处理跟不上输入）时的处理策略
+ */
+public enum OverflowPolicy {
+    // 阻塞解码线程直到队列有空位，不丢帧，适合本地视频文件
+    BLOCK,
+    // 丢弃队列中最旧的一帧后放入新帧
+    DROP_OLDEST,
+    // 丢弃队列中所有未处理的帧，只保留最新一帧，延迟最低，适合摄像头和网络流
+    KEEP_LATEST
+}
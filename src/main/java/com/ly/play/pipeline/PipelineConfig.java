@@ -0,0 +1,29 @@
+package com.ly.play.pipeline;
+
+import lombok.Data;
+
+/**
+ * 流水线各阶段的线程数和队列容量，按瓶颈所在阶段分配 CPU 核心
+ */
+@Data
+public class PipelineConfig {
+
+    // 预处理（Mat 转 BufferedImage 及模型输入预处理）线程数
+    private int preprocessWorkers = 2;
+
+    // 推理线程数，大于 1 时需要引擎会话支持并发（见 SessionPool）
+    private int inferenceWorkers = 1;
+
+    // 相邻阶段之间队列的容量
+    private int queueCapacity = 4;
+
+    // 本地文件的解码队列溢出策略
+    private OverflowPolicy overflowPolicy = OverflowPolicy.BLOCK;
+
+    // 摄像头、RTSP 等实时源的解码队列溢出策略，优先保证画面延迟
+    private OverflowPolicy liveOverflowPolicy = OverflowPolicy.KEEP_LATEST;
+
+    public OverflowPolicy policyFor(boolean liveSource) {
+        return liveSource ? liveOverflowPolicy : overflowPolicy;
+    }
+}
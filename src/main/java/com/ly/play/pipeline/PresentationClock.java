@@ -0,0 +1,146 @@
+package com.ly.play.pipeline;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 按容器时间戳（PTS）控制播放速度的呈现时钟。
+ * 第一帧时把 PTS 与 System.nanoTime() 对齐，之后每帧的呈现时刻都由 PTS 相对起点推算，
+ * 而不是在上一帧基础上累加固定间隔，单帧的延迟不会累积成永久漂移。
+ * <p>
+ * 渲染线程在显示前调用 {@link #awaitPresentation(double)}；解码线程用 {@link #isBehind(double)} 判断，
+ * 落后超过一帧时跳过解码（只 grab 不 retrieve）追赶。时间戳跳变（跳转、暂停恢复）或落后过多时重新对齐。
+ */
+public class PresentationClock {
+
+    // 偏离超过该值时重新对齐，而不是快进追赶或长时间等待
+    private static final long RESYNC_NANOS = TimeUnit.SECONDS.toNanos(1);
+
+    // 实际帧率滑动平均的平滑系数
+    private static final double ALPHA = 0.05;
+
+    private final double targetFps;
+    private final long frameIntervalNanos;
+
+    // 对齐点：originPtsMillis 对应的 nanoTime
+    private boolean anchored;
+    private double originPtsMillis;
+    private long originNanos;
+
+    private final AtomicLong skippedFrames = new AtomicLong();
+
+    private boolean paused;
+
+    // 上一次呈现的时刻和呈现间隔的滑动平均
+    private long lastPresentedNanos;
+    private double presentedIntervalNanos;
+
+    public PresentationClock(double targetFps) {
+        this.targetFps = targetFps;
+        this.frameIntervalNanos = (long) (1e9 / targetFps);
+    }
+
+    // 下一帧重新对齐，用于开始播放、暂停恢复和跳转之后
+    public synchronized void reset() {
+        anchored = false;
+        lastPresentedNanos = 0;
+    }
+
+    // 暂停呈现：等待呈现的帧停在 awaitPresentation 中，流水线中已解码的帧不会继续显示
+    public synchronized void pause() {
+        paused = true;
+    }
+
+    // 恢复呈现，并以恢复后的第一帧重新对齐，不把暂停时长当作落后
+    public synchronized void resume() {
+        paused = false;
+        reset();
+        notifyAll();
+    }
+
+    // 暂停期间阻塞，直到恢复
+    public synchronized void awaitResumed() throws InterruptedException {
+        while (paused) {
+            wait();
+        }
+    }
+
+    /**
+     * 距离该 PTS 的呈现时刻还有多少纳秒，负数表示已落后。
+     * 尚未对齐或偏离超过阈值时以该帧重新对齐并返回 0。
+     */
+    public synchronized long untilPresentation(double ptsMillis) {
+        long now = System.nanoTime();
+        if (anchored) {
+            long target = originNanos + (long) ((ptsMillis - originPtsMillis) * 1_000_000);
+            long remaining = target - now;
+            if (Math.abs(remaining) <= RESYNC_NANOS) {
+                return remaining;
+            }
+        }
+        anchored = true;
+        originPtsMillis = ptsMillis;
+        originNanos = now;
+        return 0;
+    }
+
+    /**
+     * 是否已落后一帧以上，此时应跳过该帧。
+     * 只读取对齐点而不重新对齐：解码线程领先渲染线程若干帧，对齐由等待呈现的一方完成。
+     */
+    public synchronized boolean isBehind(double ptsMillis) {
+        if (!anchored) {
+            return false;
+        }
+        long remaining = originNanos + (long) ((ptsMillis - originPtsMillis) * 1_000_000) - System.nanoTime();
+        return remaining < -frameIntervalNanos && remaining >= -RESYNC_NANOS;
+    }
+
+    // 等到该 PTS 的呈现时刻，已到或已落后时立即返回；暂停期间一直等待，恢复后重新计算
+    public synchronized void awaitPresentation(double ptsMillis) throws InterruptedException {
+        while (true) {
+            awaitResumed();
+            long remaining = untilPresentation(ptsMillis);
+            if (remaining <= 0) {
+                return;
+            }
+            TimeUnit.NANOSECONDS.timedWait(this, remaining);
+        }
+    }
+
+    public void recordSkipped() {
+        skippedFrames.incrementAndGet();
+    }
+
+    // 一帧实际显示时调用，用于统计实际帧率
+    public synchronized void recordPresented() {
+        long now = System.nanoTime();
+        if (lastPresentedNanos != 0) {
+            long interval = now - lastPresentedNanos;
+            presentedIntervalNanos = presentedIntervalNanos == 0
+                    ? interval : presentedIntervalNanos + ALPHA * (interval - presentedIntervalNanos);
+        }
+        lastPresentedNanos = now;
+    }
+
+    public double getTargetFps() {
+        return targetFps;
+    }
+
+    public long getFrameIntervalNanos() {
+        return frameIntervalNanos;
+    }
+
+    public synchronized double getAchievedFps() {
+        return presentedIntervalNanos > 0 ? 1e9 / presentedIntervalNanos : 0;
+    }
+
+    public long getSkippedFrames() {
+        return skippedFrames.get();
+    }
+
+    @Override
+    public String toString() {
+        return String.format("目标 %.1f FPS，实际 %.1f FPS，追赶跳过 %d 帧", getTargetFps(), getAchievedFps(), getSkippedFrames());
+    }
+}
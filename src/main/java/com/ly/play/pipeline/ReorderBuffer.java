@@ -0,0 +1,98 @@
+package com.ly.play.pipeline;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 按顺序号恢复顺序的有界环形缓冲区。
+ * 生产者以任意顺序放入带顺序号的元素，消费者严格按顺序号取出；
+ * 中途被丢弃或处理失败的顺序号需要调用 {@link #skip(long)}，否则消费者会一直等待。
+ * 顺序号超前当前位置一个容量以上时生产者阻塞，容量应不小于流水线中可能同时在途的帧数。
+ */
+public class ReorderBuffer<T> {
+
+    private static final Object SKIPPED = new Object();
+
+    private final Object[] slots;
+    private long nextSequence;
+
+    public ReorderBuffer(int capacity) {
+        this.slots = new Object[capacity];
+    }
+
+    public synchronized void put(long sequence, T item) throws InterruptedException {
+        store(sequence, item);
+    }
+
+    // 标记某个顺序号不会到达
+    public synchronized void skip(long sequence) throws InterruptedException {
+        store(sequence, SKIPPED);
+    }
+
+    private void store(long sequence, Object value) throws InterruptedException {
+        if (sequence < nextSequence) {
+            return;
+        }
+        while (sequence - nextSequence >= slots.length) {
+            wait();
+            if (sequence < nextSequence) {
+                return;
+            }
+        }
+        slots[(int) (sequence % slots.length)] = value;
+        notifyAll();
+    }
+
+    /**
+     * 取出下一个顺序号的元素，在超时前未到达时返回 null
+     */
+    @SuppressWarnings("unchecked")
+    public synchronized T poll(long timeout, TimeUnit unit) throws InterruptedException {
+        long deadline = System.nanoTime() + unit.toNanos(timeout);
+        while (true) {
+            int slot = (int) (nextSequence % slots.length);
+            Object value = slots[slot];
+            if (value != null) {
+                slots[slot] = null;
+                nextSequence++;
+                notifyAll();
+                if (value == SKIPPED) {
+                    continue;
+                }
+                return (T) value;
+            }
+            long remaining = deadline - System.nanoTime();
+            if (remaining <= 0) {
+                return null;
+            }
+            TimeUnit.NANOSECONDS.timedWait(this, remaining);
+        }
+    }
+
+    public synchronized boolean isEmpty() {
+        for (Object slot : slots) {
+            if (slot != null) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * 清空缓冲区并从指定顺序号重新开始，返回被清掉的元素以便释放资源
+     */
+    @SuppressWarnings("unchecked")
+    public synchronized List<T> reset(long sequence) {
+        List<T> removed = new ArrayList<>();
+        for (int i = 0; i < slots.length; i++) {
+            if (slots[i] != null && slots[i] != SKIPPED) {
+                removed.add((T) slots[i]);
+            }
+            slots[i] = null;
+        }
+        nextSequence = sequence;
+        notifyAll();
+        return removed;
+    }
+}
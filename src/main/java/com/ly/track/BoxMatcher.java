@@ -0,0 +1,280 @@
+package com.ly.track;
+
+import com.ly.onnx.postprocess.SpatialGrid;
+
+import java.util.Arrays;
+
+/**
+ * 跟踪目标与检测框的最优匹配：以 1 - IoU 为代价，只匹配同一标签、IoU 不低于阈值的框。
+ * <p>
+ * 先用与 NMS 相同的 {@link SpatialGrid} 找出空间上相邻的候选对，避免 N×M 全量比较；
+ * 再按候选对把目标和检测框划分为互不相连的连通分量，每个分量单独用匈牙利算法求最优匹配。
+ * 密集场景中分量通常只有几个框，总代价远小于在整个矩阵上求解。
+ * 所有中间数据放在复用的基本类型数组中。
+ */
+final class BoxMatcher {
+
+    private final SpatialGrid grid = new SpatialGrid();
+    private final HungarianSolver solver = new HungarianSolver();
+
+    // 匹配结果：trackMatch[t] 为目标 t 匹配的检测框下标，detectionMatch[d] 为检测框 d 匹配的目标下标，未匹配为 -1
+    private int[] trackMatch = new int[16];
+    private int[] detectionMatch = new int[16];
+
+    // 候选对
+    private int pairCount;
+    private int[] pairTrack = new int[64];
+    private int[] pairDetection = new int[64];
+    private float[] pairIou = new float[64];
+
+    // 并查集，前 trackCount 个节点为目标，之后为检测框
+    private int[] parent = new int[32];
+    private int[] component = new int[32];
+    private int[] componentStart = new int[32];
+    private int[] orderedPairs = new int[64];
+
+    // 单个分量内的局部下标和代价矩阵
+    private int[] localOfTrack = new int[16];
+    private int[] localOfDetection = new int[16];
+    private int[] localTracks = new int[16];
+    private int[] localDetections = new int[16];
+    private double[] cost = new double[64];
+    private float[] localIou = new float[64];
+    private int[] assignment = new int[16];
+
+    BoxMatcher() {
+        Arrays.fill(localOfTrack, -1);
+        Arrays.fill(localOfDetection, -1);
+    }
+
+    /**
+     * 计算匹配，结果通过 {@link #trackMatch(int)} 和 {@link #detectionMatch(int)} 读取
+     *
+     * @param tracks     目标框，坐标为 (x1, y1, x2, y2)
+     * @param detections 检测框
+     */
+    void match(Boxes tracks, Boxes detections, float minIou) {
+        int trackCount = tracks.count;
+        int detectionCount = detections.count;
+        if (trackMatch.length < trackCount) {
+            trackMatch = new int[Math.max(trackCount, trackMatch.length * 2)];
+        }
+        if (detectionMatch.length < detectionCount) {
+            detectionMatch = new int[Math.max(detectionCount, detectionMatch.length * 2)];
+        }
+        Arrays.fill(trackMatch, 0, trackCount, -1);
+        Arrays.fill(detectionMatch, 0, detectionCount, -1);
+        if (trackCount == 0 || detectionCount == 0) {
+            return;
+        }
+
+        collectPairs(tracks, detections, minIou);
+        if (pairCount == 0) {
+            return;
+        }
+        int components = groupPairs(trackCount, detectionCount);
+        for (int c = 0; c < components; c++) {
+            solveComponent(componentStart[c], componentStart[c + 1], minIou);
+        }
+    }
+
+    int trackMatch(int track) {
+        return trackMatch[track];
+    }
+
+    int detectionMatch(int detection) {
+        return detectionMatch[detection];
+    }
+
+    // 通过网格找出同一标签、IoU 不低于阈值的候选对
+    private void collectPairs(Boxes tracks, Boxes detections, float minIou) {
+        // 网格只登记目标框，边长取目标框平均边长
+        float minX = Float.MAX_VALUE;
+        float minY = Float.MAX_VALUE;
+        float maxX = -Float.MAX_VALUE;
+        float maxY = -Float.MAX_VALUE;
+        double sizeSum = 0;
+        for (int t = 0; t < tracks.count; t++) {
+            minX = Math.min(minX, tracks.x1[t]);
+            minY = Math.min(minY, tracks.y1[t]);
+            maxX = Math.max(maxX, tracks.x2[t]);
+            maxY = Math.max(maxY, tracks.y2[t]);
+            sizeSum += Math.max(tracks.x2[t] - tracks.x1[t], tracks.y2[t] - tracks.y1[t]);
+        }
+        grid.reset(minX, minY, maxX, maxY, (float) (sizeSum / tracks.count), tracks.count);
+        for (int t = 0; t < tracks.count; t++) {
+            grid.insert(t, tracks.x1[t], tracks.y1[t], tracks.x2[t], tracks.y2[t]);
+        }
+        pairCount = 0;
+        for (int d = 0; d < detections.count; d++) {
+            int found = grid.query(detections.x1[d], detections.y1[d], detections.x2[d], detections.y2[d]);
+            for (int k = 0; k < found; k++) {
+                int t = grid.result(k);
+                if (!tracks.labels[t].equals(detections.labels[d])) {
+                    continue;
+                }
+                float iou = Boxes.iou(tracks, t, detections, d);
+                if (iou >= minIou) {
+                    addPair(t, d, iou);
+                }
+            }
+        }
+    }
+
+    private void addPair(int track, int detection, float iou) {
+        if (pairCount == pairTrack.length) {
+            int capacity = pairCount * 2;
+            pairTrack = Arrays.copyOf(pairTrack, capacity);
+            pairDetection = Arrays.copyOf(pairDetection, capacity);
+            pairIou = Arrays.copyOf(pairIou, capacity);
+        }
+        pairTrack[pairCount] = track;
+        pairDetection[pairCount] = detection;
+        pairIou[pairCount] = iou;
+        pairCount++;
+    }
+
+    // 用并查集划分连通分量，把候选对按分量连续排列到 orderedPairs，返回分量数
+    private int groupPairs(int trackCount, int detectionCount) {
+        int nodes = trackCount + detectionCount;
+        if (parent.length < nodes) {
+            parent = new int[nodes];
+            component = new int[nodes];
+        }
+        for (int i = 0; i < nodes; i++) {
+            parent[i] = i;
+            component[i] = -1;
+        }
+        for (int k = 0; k < pairCount; k++) {
+            int a = find(pairTrack[k]);
+            int b = find(trackCount + pairDetection[k]);
+            if (a != b) {
+                parent[a] = b;
+            }
+        }
+        int components = 0;
+        for (int k = 0; k < pairCount; k++) {
+            int root = find(pairTrack[k]);
+            if (component[root] < 0) {
+                component[root] = components++;
+            }
+        }
+        if (componentStart.length < components + 1) {
+            componentStart = new int[components + 1];
+        }
+        Arrays.fill(componentStart, 0, components + 1, 0);
+        for (int k = 0; k < pairCount; k++) {
+            componentStart[component[find(pairTrack[k])] + 1]++;
+        }
+        for (int c = 0; c < components; c++) {
+            componentStart[c + 1] += componentStart[c];
+        }
+        if (orderedPairs.length < pairCount) {
+            orderedPairs = new int[pairTrack.length];
+        }
+        for (int k = 0; k < pairCount; k++) {
+            orderedPairs[componentStart[component[find(pairTrack[k])]]++] = k;
+        }
+        // 写入游标此时指向下一个分量的起始位置，整体后移一位复原
+        System.arraycopy(componentStart, 0, componentStart, 1, components);
+        componentStart[0] = 0;
+        return components;
+    }
+
+    private int find(int node) {
+        while (parent[node] != node) {
+            parent[node] = parent[parent[node]];
+            node = parent[node];
+        }
+        return node;
+    }
+
+    // 对分量内 orderedPairs[from, to) 的候选对求最优匹配
+    private void solveComponent(int from, int to, float minIou) {
+        if (to - from == 1) {
+            int k = orderedPairs[from];
+            trackMatch[pairTrack[k]] = pairDetection[k];
+            detectionMatch[pairDetection[k]] = pairTrack[k];
+            return;
+        }
+        int tracks = 0;
+        int detections = 0;
+        for (int i = from; i < to; i++) {
+            int k = orderedPairs[i];
+            tracks = localIndex(pairTrack[k], tracks, true);
+            detections = localIndex(pairDetection[k], detections, false);
+        }
+        // 匈牙利算法要求行数不大于列数，目标多于检测框时转置
+        boolean transposed = tracks > detections;
+        int rows = transposed ? detections : tracks;
+        int cols = transposed ? tracks : detections;
+        int cells = rows * cols;
+        if (cost.length < cells) {
+            cost = new double[cells];
+            localIou = new float[cells];
+        }
+        Arrays.fill(cost, 0, cells, 1.0);
+        Arrays.fill(localIou, 0, cells, 0f);
+        for (int i = from; i < to; i++) {
+            int k = orderedPairs[i];
+            int t = localOfTrack[pairTrack[k]];
+            int d = localOfDetection[pairDetection[k]];
+            int cell = transposed ? d * cols + t : t * cols + d;
+            cost[cell] = 1.0 - pairIou[k];
+            localIou[cell] = pairIou[k];
+        }
+        if (assignment.length < rows) {
+            assignment = new int[Math.max(rows, assignment.length * 2)];
+        }
+        solver.solve(cost, rows, cols, assignment);
+        for (int r = 0; r < rows; r++) {
+            int c = assignment[r];
+            // 非候选对的代价为 1，被迫分配到的不算匹配
+            if (localIou[r * cols + c] < minIou) {
+                continue;
+            }
+            int track = localTracks[transposed ? c : r];
+            int detection = localDetections[transposed ? r : c];
+            trackMatch[track] = detection;
+            detectionMatch[detection] = track;
+        }
+        // 复原局部下标，供下一个分量使用
+        for (int t = 0; t < tracks; t++) {
+            localOfTrack[localTracks[t]] = -1;
+        }
+        for (int d = 0; d < detections; d++) {
+            localOfDetection[localDetections[d]] = -1;
+        }
+    }
+
+    // 为分量内首次出现的目标或检测框分配局部下标，返回新的数量
+    private int localIndex(int global, int count, boolean track) {
+        int[] localOf = track ? localOfTrack : localOfDetection;
+        if (localOf.length <= global) {
+            int capacity = Math.max(global + 1, localOf.length * 2);
+            int previous = localOf.length;
+            localOf = Arrays.copyOf(localOf, capacity);
+            Arrays.fill(localOf, previous, capacity, -1);
+            if (track) {
+                localOfTrack = localOf;
+            } else {
+                localOfDetection = localOf;
+            }
+        }
+        if (localOf[global] >= 0) {
+            return count;
+        }
+        int[] locals = track ? localTracks : localDetections;
+        if (locals.length == count) {
+            locals = Arrays.copyOf(locals, count * 2);
+            if (track) {
+                localTracks = locals;
+            } else {
+                localDetections = locals;
+            }
+        }
+        localOf[global] = count;
+        locals[count] = global;
+        return count + 1;
+    }
+}
@@ -0,0 +1,97 @@
+package com.ly.track;
+
+import com.ly.onnx.model.BoundingBox;
+
+import java.util.Arrays;
+
+/**
+ * 一组矩形框，按坐标分量存放在基本类型数组中（左上角 x1, y1，右下角 x2, y2），附带标签和置信度，容量按需增长并复用
+ */
+final class Boxes {
+
+    int count;
+    float[] x1;
+    float[] y1;
+    float[] x2;
+    float[] y2;
+    String[] labels;
+    float[] scores;
+
+    Boxes(int capacity) {
+        x1 = new float[capacity];
+        y1 = new float[capacity];
+        x2 = new float[capacity];
+        y2 = new float[capacity];
+        labels = new String[capacity];
+        scores = new float[capacity];
+    }
+
+    void clear() {
+        Arrays.fill(labels, 0, count, null);
+        count = 0;
+    }
+
+    int add(float left, float top, float right, float bottom, String label, float score) {
+        if (count == x1.length) {
+            int capacity = Math.max(16, count * 2);
+            x1 = Arrays.copyOf(x1, capacity);
+            y1 = Arrays.copyOf(y1, capacity);
+            x2 = Arrays.copyOf(x2, capacity);
+            y2 = Arrays.copyOf(y2, capacity);
+            labels = Arrays.copyOf(labels, capacity);
+            scores = Arrays.copyOf(scores, capacity);
+        }
+        x1[count] = left;
+        y1[count] = top;
+        x2[count] = right;
+        y2[count] = bottom;
+        labels[count] = label;
+        scores[count] = score;
+        return count++;
+    }
+
+    int add(BoundingBox box) {
+        return add(box.getX(), box.getY(), box.getX() + box.getWidth(), box.getY() + box.getHeight(), box.getLabel(), box.getConfidence());
+    }
+
+    void set(int i, BoundingBox box) {
+        x1[i] = box.getX();
+        y1[i] = box.getY();
+        x2[i] = box.getX() + box.getWidth();
+        y2[i] = box.getY() + box.getHeight();
+        labels[i] = box.getLabel();
+        scores[i] = box.getConfidence();
+    }
+
+    // 第 i 个框转为带 trackId 的 BoundingBox
+    BoundingBox toBoundingBox(int i, long trackId) {
+        int x = Math.round(x1[i]);
+        int y = Math.round(y1[i]);
+        BoundingBox box = new BoundingBox(x, y, Math.round(x2[i]) - x, Math.round(y2[i]) - y, labels[i], scores[i]);
+        box.setTrackId(trackId);
+        return box;
+    }
+
+    // 用最后一个框覆盖第 i 个，删除时不保持顺序
+    void removeBySwap(int i) {
+        int last = --count;
+        x1[i] = x1[last];
+        y1[i] = y1[last];
+        x2[i] = x2[last];
+        y2[i] = y2[last];
+        labels[i] = labels[last];
+        scores[i] = scores[last];
+        labels[last] = null;
+    }
+
+    static float iou(Boxes a, int i, Boxes b, int j) {
+        float w = Math.min(a.x2[i], b.x2[j]) - Math.max(a.x1[i], b.x1[j]);
+        float h = Math.min(a.y2[i], b.y2[j]) - Math.max(a.y1[i], b.y1[j]);
+        if (w <= 0 || h <= 0) {
+            return 0;
+        }
+        float intersection = w * h;
+        float union = (a.x2[i] - a.x1[i]) * (a.y2[i] - a.y1[i]) + (b.x2[j] - b.x1[j]) * (b.y2[j] - b.y1[j]) - intersection;
+        return union > 0 ? intersection / union : 0;
+    }
+}
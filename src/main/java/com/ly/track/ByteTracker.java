@@ -0,0 +1,174 @@
+package com.ly.track;
+
+import com.ly.onnx.model.BoundingBox;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * ByteTrack 风格的两阶段关联：所有目标先预测到当前帧，与高置信度检测框做第一次匹配；
+ * 仍未匹配的目标再与低置信度框（多为被遮挡、模糊的同一物体）做第二次匹配，IoU 要求更高。
+ * 低置信度框只用于延续已有目标，不会新建目标，因此可以调高检测阈值而不在遮挡时丢失编号。
+ * <p>
+ * 运动模型与 {@link SortTracker} 相同，状态存放在 {@link KalmanBoxFilter} 的扁平数组中。
+ * 低置信度框由引擎的 lowConfidenceThreshold 在同一次解码中给出，见 {@link #update(List, List)}。
+ */
+public class ByteTracker implements Tracker {
+
+    private final float minIou;
+    private final float lowConfidenceMinIou;
+    private final int maxLostFrames;
+
+    private final BoxMatcher matcher = new BoxMatcher();
+    private final KalmanBoxFilter filter = new KalmanBoxFilter(64);
+    // 各目标预测到当前帧的框，与滤波器、编号、丢失帧数按下标对应
+    private final Boxes predicted = new Boxes(64);
+    private long[] trackIds = new long[64];
+    private int[] lostFrames = new int[64];
+
+    private final Boxes detections = new Boxes(64);
+    private final Boxes lowConfidenceDetections = new Boxes(64);
+    // 第一次匹配后剩余的目标，及其在 predicted 中的下标
+    private final Boxes remaining = new Boxes(64);
+    private int[] remainingTracks = new int[64];
+    private boolean[] detectionMatched = new boolean[64];
+    private long nextTrackId;
+
+    public ByteTracker() {
+        this(0.2f, 0.5f, 30);
+    }
+
+    /**
+     * @param minIou              第一次匹配（高置信度框）的最小 IoU
+     * @param lowConfidenceMinIou 第二次匹配（低置信度框）的最小 IoU
+     * @param maxLostFrames       目标连续未匹配多少帧后移除
+     */
+    public ByteTracker(float minIou, float lowConfidenceMinIou, int maxLostFrames) {
+        this.minIou = minIou;
+        this.lowConfidenceMinIou = lowConfidenceMinIou;
+        this.maxLostFrames = maxLostFrames;
+    }
+
+    @Override
+    public List<BoundingBox> update(List<BoundingBox> boxes) {
+        return update(boxes, Collections.<BoundingBox>emptyList());
+    }
+
+    @Override
+    public List<BoundingBox> update(List<BoundingBox> boxes, List<BoundingBox> lowConfidenceBoxes) {
+        load(boxes, detections);
+        load(lowConfidenceBoxes, lowConfidenceDetections);
+        for (int t = 0; t < predicted.count; t++) {
+            filter.predict(t);
+            filter.toBox(t, predicted, t);
+        }
+
+        // 第一次：所有目标与高置信度框
+        matcher.match(predicted, detections, minIou);
+        if (detectionMatched.length < detections.count) {
+            detectionMatched = new boolean[detections.x1.length];
+        }
+        for (int d = 0; d < detections.count; d++) {
+            detectionMatched[d] = matcher.detectionMatch(d) >= 0;
+        }
+        remaining.clear();
+        for (int t = 0; t < predicted.count; t++) {
+            int d = matcher.trackMatch(t);
+            if (d >= 0) {
+                matched(t, detections, d, boxes.get(d));
+            } else {
+                int r = remaining.add(predicted.x1[t], predicted.y1[t], predicted.x2[t], predicted.y2[t], predicted.labels[t], predicted.scores[t]);
+                if (r >= remainingTracks.length) {
+                    remainingTracks = Arrays.copyOf(remainingTracks, remaining.x1.length);
+                }
+                remainingTracks[r] = t;
+            }
+        }
+
+        // 第二次：剩余目标与低置信度框
+        matcher.match(remaining, lowConfidenceDetections, lowConfidenceMinIou);
+        for (int r = 0; r < remaining.count; r++) {
+            int t = remainingTracks[r];
+            int d = matcher.trackMatch(r);
+            if (d >= 0) {
+                matched(t, lowConfidenceDetections, d, lowConfidenceBoxes.get(d));
+            } else {
+                lostFrames[t]++;
+            }
+        }
+        // 倒序删除，交换到当前位置的末尾元素已经处理过
+        for (int t = predicted.count - 1; t >= 0; t--) {
+            if (lostFrames[t] > maxLostFrames) {
+                removeTrack(t);
+            }
+        }
+
+        // 只有未匹配的高置信度框新建目标
+        for (int d = 0; d < detections.count; d++) {
+            if (!detectionMatched[d]) {
+                addTrack(boxes.get(d), d);
+            }
+        }
+        return boxes;
+    }
+
+    @Override
+    public List<BoundingBox> predict() {
+        List<BoundingBox> boxes = new ArrayList<>(predicted.count);
+        for (int t = 0; t < predicted.count; t++) {
+            filter.predict(t);
+            filter.toBox(t, predicted, t);
+            if (lostFrames[t] == 0) {
+                boxes.add(predicted.toBoundingBox(t, trackIds[t]));
+            }
+        }
+        return boxes;
+    }
+
+    private static void load(List<BoundingBox> source, Boxes target) {
+        target.clear();
+        for (BoundingBox box : source) {
+            target.add(box);
+        }
+    }
+
+    private void matched(int t, Boxes from, int d, BoundingBox box) {
+        filter.update(t, from.x1[d], from.y1[d], from.x2[d], from.y2[d]);
+        predicted.scores[t] = from.scores[d];
+        lostFrames[t] = 0;
+        box.setTrackId(trackIds[t]);
+    }
+
+    private void addTrack(BoundingBox box, int d) {
+        int t = predicted.add(detections.x1[d], detections.y1[d], detections.x2[d], detections.y2[d], detections.labels[d], detections.scores[d]);
+        if (t >= trackIds.length) {
+            trackIds = Arrays.copyOf(trackIds, predicted.x1.length);
+            lostFrames = Arrays.copyOf(lostFrames, predicted.x1.length);
+        }
+        filter.ensureCapacity(predicted.x1.length);
+        filter.init(t, detections.x1[d], detections.y1[d], detections.x2[d], detections.y2[d]);
+        trackIds[t] = ++nextTrackId;
+        lostFrames[t] = 0;
+        box.setTrackId(trackIds[t]);
+    }
+
+    private void removeTrack(int t) {
+        int last = predicted.count - 1;
+        trackIds[t] = trackIds[last];
+        lostFrames[t] = lostFrames[last];
+        filter.copy(last, t);
+        predicted.removeBySwap(t);
+    }
+
+    @Override
+    public void reset() {
+        predicted.clear();
+    }
+
+    // 当前跟踪中的目标数，包括暂时丢失、仍在外推的
+    public int getTrackCount() {
+        return predicted.count;
+    }
+}
@@ -0,0 +1,87 @@
+package com.ly.track;
+
+import java.util.Arrays;
+
+/**
+ * 匈牙利算法（最短增广路，O(n²m)）求解最小代价的一一匹配，缓冲区在多次求解之间复用。
+ * 代价矩阵按行主序存放在一维数组中，要求行数不大于列数。
+ */
+final class HungarianSolver {
+
+    private double[] u = new double[0];
+    private double[] v = new double[0];
+    private double[] minv = new double[0];
+    private int[] p = new int[0];
+    private int[] way = new int[0];
+    private boolean[] used = new boolean[0];
+
+    /**
+     * @param cost       rows × cols 的代价矩阵，cost[r * cols + c]
+     * @param assignment 输出，assignment[r] 为第 r 行匹配到的列
+     */
+    void solve(double[] cost, int rows, int cols, int[] assignment) {
+        ensureCapacity(rows, cols);
+        Arrays.fill(u, 0, rows + 1, 0);
+        Arrays.fill(v, 0, cols + 1, 0);
+        Arrays.fill(p, 0, cols + 1, 0);
+        // 下标从 1 开始，列 0 是增广路的虚拟起点
+        for (int i = 1; i <= rows; i++) {
+            p[0] = i;
+            int j0 = 0;
+            Arrays.fill(minv, 0, cols + 1, Double.POSITIVE_INFINITY);
+            Arrays.fill(used, 0, cols + 1, false);
+            do {
+                used[j0] = true;
+                int i0 = p[j0];
+                int rowOffset = (i0 - 1) * cols;
+                double delta = Double.POSITIVE_INFINITY;
+                int j1 = 0;
+                for (int j = 1; j <= cols; j++) {
+                    if (!used[j]) {
+                        double current = cost[rowOffset + j - 1] - u[i0] - v[j];
+                        if (current < minv[j]) {
+                            minv[j] = current;
+                            way[j] = j0;
+                        }
+                        if (minv[j] < delta) {
+                            delta = minv[j];
+                            j1 = j;
+                        }
+                    }
+                }
+                for (int j = 0; j <= cols; j++) {
+                    if (used[j]) {
+                        u[p[j]] += delta;
+                        v[j] -= delta;
+                    } else {
+                        minv[j] -= delta;
+                    }
+                }
+                j0 = j1;
+            } while (p[j0] != 0);
+            do {
+                int j1 = way[j0];
+                p[j0] = p[j1];
+                j0 = j1;
+            } while (j0 != 0);
+        }
+        for (int j = 1; j <= cols; j++) {
+            if (p[j] != 0) {
+                assignment[p[j] - 1] = j - 1;
+            }
+        }
+    }
+
+    private void ensureCapacity(int rows, int cols) {
+        if (u.length < rows + 1) {
+            u = new double[rows + 1];
+        }
+        if (v.length < cols + 1) {
+            v = new double[cols + 1];
+            minv = new double[cols + 1];
+            p = new int[cols + 1];
+            way = new int[cols + 1];
+            used = new boolean[cols + 1];
+        }
+    }
+}
@@ -0,0 +1,119 @@
+package com.ly.track;
+
+import com.ly.onnx.model.BoundingBox;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * 基于 IoU 的多目标跟踪器：每帧以 1 - IoU 为代价，对同一标签的目标和检测框求全局最优匹配，
+ * 不会像逐个贪心匹配那样把检测框分给先遍历到的、并非最近的目标。
+ * <p>
+ * 候选对由均匀网格筛出，只比较空间上相邻的框；目标状态按下标存放在基本类型数组中，稳定运行时逐帧不分配对象。
+ * 连续 {@code maxLostFrames} 帧未匹配的目标被移除。
+ */
+public class IouTracker implements Tracker {
+
+    private final float minIou;
+    private final int maxLostFrames;
+
+    private final BoxMatcher matcher = new BoxMatcher();
+    // 跟踪目标的框、编号和连续丢失帧数，按下标对应
+    private final Boxes tracks = new Boxes(64);
+    private long[] trackIds = new long[64];
+    private int[] lostFrames = new int[64];
+    private final Boxes detections = new Boxes(64);
+    private long nextTrackId;
+
+    public IouTracker() {
+        this(0.3f, 10);
+    }
+
+    /**
+     * @param minIou        目标与检测框被视为同一物体的最小 IoU
+     * @param maxLostFrames 目标连续未匹配多少帧后移除
+     */
+    public IouTracker(float minIou, int maxLostFrames) {
+        this.minIou = minIou;
+        this.maxLostFrames = maxLostFrames;
+    }
+
+    @Override
+    public List<BoundingBox> update(List<BoundingBox> boxes) {
+        detections.clear();
+        for (BoundingBox box : boxes) {
+            detections.add(box);
+        }
+        matcher.match(tracks, detections, minIou);
+
+        // 先处理已有目标：匹配到的更新位置，未匹配的累计丢失帧数，超过上限的移除
+        int trackCount = tracks.count;
+        for (int t = 0; t < trackCount; t++) {
+            int d = matcher.trackMatch(t);
+            if (d >= 0) {
+                BoundingBox box = boxes.get(d);
+                tracks.set(t, box);
+                lostFrames[t] = 0;
+                box.setTrackId(trackIds[t]);
+            } else {
+                lostFrames[t]++;
+            }
+        }
+        // 倒序删除，交换到当前位置的末尾元素已经处理过
+        for (int t = tracks.count - 1; t >= 0; t--) {
+            if (lostFrames[t] > maxLostFrames) {
+                removeTrack(t);
+            }
+        }
+
+        // 未匹配的检测框成为新目标
+        for (int d = 0; d < detections.count; d++) {
+            if (matcher.detectionMatch(d) < 0) {
+                BoundingBox box = boxes.get(d);
+                addTrack(box);
+            }
+        }
+        return boxes;
+    }
+
+    // 没有运动模型，返回目标最后的位置
+    @Override
+    public List<BoundingBox> predict() {
+        List<BoundingBox> boxes = new ArrayList<>(tracks.count);
+        for (int t = 0; t < tracks.count; t++) {
+            if (lostFrames[t] == 0) {
+                boxes.add(tracks.toBoundingBox(t, trackIds[t]));
+            }
+        }
+        return boxes;
+    }
+
+    private void addTrack(BoundingBox box) {
+        int t = tracks.add(box);
+        if (t >= trackIds.length) {
+            trackIds = Arrays.copyOf(trackIds, tracks.x1.length);
+            lostFrames = Arrays.copyOf(lostFrames, tracks.x1.length);
+        }
+        trackIds[t] = ++nextTrackId;
+        lostFrames[t] = 0;
+        box.setTrackId(trackIds[t]);
+    }
+
+    private void removeTrack(int t) {
+        int last = tracks.count - 1;
+        trackIds[t] = trackIds[last];
+        lostFrames[t] = lostFrames[last];
+        tracks.removeBySwap(t);
+    }
+
+    @Override
+    public void reset() {
+        tracks.clear();
+    }
+
+    // 当前跟踪中的目标数，包括暂时丢失的
+    public int getTrackCount() {
+        return tracks.count;
+    }
+}
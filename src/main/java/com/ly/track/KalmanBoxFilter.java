@@ -0,0 +1,195 @@
+package com.ly.track;
+
+import java.util.Arrays;
+
+/**
+ * 一组目标框的匀速卡尔曼滤波（SORT 的运动模型），所有目标的状态和协方差连续存放在扁平的 double 数组中。
+ * <p>
+ * 状态为 [cx, cy, s, r, vcx, vcy, vs]：中心点、面积、宽高比及前三者的速度，宽高比视为不变；
+ * 观测为 [cx, cy, s, r]。预测和更新只读写数组和预先分配的临时缓冲区，不产生对象。
+ */
+final class KalmanBoxFilter {
+
+    static final int DIM_X = 7;
+    static final int DIM_Z = 4;
+    private static final int COV = DIM_X * DIM_X;
+
+    // 观测噪声和过程噪声的对角线，取 SORT 的默认值
+    private static final double[] R = {1, 1, 10, 10};
+    private static final double[] Q = {1, 1, 1, 1, 0.01, 0.01, 0.0001};
+    // 初始协方差：位置较可信，速度未知
+    private static final double[] P0 = {10, 10, 10, 10, 10000, 10000, 10000};
+
+    private double[] state;
+    private double[] covariance;
+
+    // 更新用的临时缓冲区
+    private final double[] innovation = new double[DIM_Z];
+    private final double[] innovationCov = new double[DIM_Z * DIM_Z];
+    private final double[] inverse = new double[DIM_Z * DIM_Z];
+    private final double[] augmented = new double[DIM_Z * DIM_Z * 2];
+    private final double[] gain = new double[DIM_X * DIM_Z];
+    private final double[] observedRows = new double[DIM_Z * DIM_X];
+
+    KalmanBoxFilter(int capacity) {
+        state = new double[capacity * DIM_X];
+        covariance = new double[capacity * COV];
+    }
+
+    void ensureCapacity(int capacity) {
+        if (state.length < capacity * DIM_X) {
+            int grown = Math.max(capacity, state.length / DIM_X * 2);
+            state = Arrays.copyOf(state, grown * DIM_X);
+            covariance = Arrays.copyOf(covariance, grown * COV);
+        }
+    }
+
+    // 以观测框初始化第 i 个目标，速度为 0
+    void init(int i, float x1, float y1, float x2, float y2) {
+        int xo = i * DIM_X;
+        toMeasurement(x1, y1, x2, y2, state, xo);
+        state[xo + 4] = 0;
+        state[xo + 5] = 0;
+        state[xo + 6] = 0;
+        int po = i * COV;
+        Arrays.fill(covariance, po, po + COV, 0);
+        for (int d = 0; d < DIM_X; d++) {
+            covariance[po + d * DIM_X + d] = P0[d];
+        }
+    }
+
+    // 预测第 i 个目标下一帧的状态：x = F x，P = F P Fᵀ + Q
+    void predict(int i) {
+        int xo = i * DIM_X;
+        // 面积不能预测为负
+        if (state[xo + 2] + state[xo + 6] <= 0) {
+            state[xo + 6] = 0;
+        }
+        state[xo] += state[xo + 4];
+        state[xo + 1] += state[xo + 5];
+        state[xo + 2] += state[xo + 6];
+
+        // F = I + E，E 只把速度加到对应位置分量上，F P Fᵀ 可按行、列原地累加
+        int po = i * COV;
+        for (int r = 0; r < 3; r++) {
+            int row = po + r * DIM_X;
+            int velocityRow = po + (r + 4) * DIM_X;
+            for (int c = 0; c < DIM_X; c++) {
+                covariance[row + c] += covariance[velocityRow + c];
+            }
+        }
+        for (int r = 0; r < DIM_X; r++) {
+            int row = po + r * DIM_X;
+            for (int c = 0; c < 3; c++) {
+                covariance[row + c] += covariance[row + c + 4];
+            }
+        }
+        for (int d = 0; d < DIM_X; d++) {
+            covariance[po + d * DIM_X + d] += Q[d];
+        }
+    }
+
+    // 用观测框更新第 i 个目标
+    void update(int i, float x1, float y1, float x2, float y2) {
+        int xo = i * DIM_X;
+        int po = i * COV;
+        toMeasurement(x1, y1, x2, y2, innovation, 0);
+        for (int a = 0; a < DIM_Z; a++) {
+            innovation[a] -= state[xo + a];
+        }
+        // S = H P Hᵀ + R，H 取状态的前 4 个分量
+        for (int a = 0; a < DIM_Z; a++) {
+            for (int b = 0; b < DIM_Z; b++) {
+                innovationCov[a * DIM_Z + b] = covariance[po + a * DIM_X + b] + (a == b ? R[a] : 0);
+            }
+        }
+        invert4(innovationCov, inverse);
+        // K = P Hᵀ S⁻¹
+        for (int r = 0; r < DIM_X; r++) {
+            int row = po + r * DIM_X;
+            for (int a = 0; a < DIM_Z; a++) {
+                double sum = 0;
+                for (int b = 0; b < DIM_Z; b++) {
+                    sum += covariance[row + b] * inverse[b * DIM_Z + a];
+                }
+                gain[r * DIM_Z + a] = sum;
+            }
+        }
+        // x = x + K y，P = P - K H P
+        System.arraycopy(covariance, po, observedRows, 0, DIM_Z * DIM_X);
+        for (int r = 0; r < DIM_X; r++) {
+            double correction = 0;
+            for (int a = 0; a < DIM_Z; a++) {
+                correction += gain[r * DIM_Z + a] * innovation[a];
+            }
+            state[xo + r] += correction;
+            int row = po + r * DIM_X;
+            for (int c = 0; c < DIM_X; c++) {
+                double sum = 0;
+                for (int a = 0; a < DIM_Z; a++) {
+                    sum += gain[r * DIM_Z + a] * observedRows[a * DIM_X + c];
+                }
+                covariance[row + c] -= sum;
+            }
+        }
+    }
+
+    // 把第 i 个目标的当前状态写成框，存入 boxes 的第 j 个位置（标签不变）
+    void toBox(int i, Boxes boxes, int j) {
+        int xo = i * DIM_X;
+        double area = Math.max(state[xo + 2], 0);
+        double width = Math.sqrt(area * state[xo + 3]);
+        double height = width > 0 ? area / width : 0;
+        boxes.x1[j] = (float) (state[xo] - width / 2);
+        boxes.y1[j] = (float) (state[xo + 1] - height / 2);
+        boxes.x2[j] = (float) (state[xo] + width / 2);
+        boxes.y2[j] = (float) (state[xo + 1] + height / 2);
+    }
+
+    // 复制第 from 个目标的状态到第 to 个位置，用于交换删除
+    void copy(int from, int to) {
+        System.arraycopy(state, from * DIM_X, state, to * DIM_X, DIM_X);
+        System.arraycopy(covariance, from * COV, covariance, to * COV, COV);
+    }
+
+    // 框转为观测 [cx, cy, s, r]
+    private static void toMeasurement(float x1, float y1, float x2, float y2, double[] out, int offset) {
+        double width = x2 - x1;
+        double height = y2 - y1;
+        out[offset] = x1 + width / 2;
+        out[offset + 1] = y1 + height / 2;
+        out[offset + 2] = width * height;
+        out[offset + 3] = height > 0 ? width / height : 1;
+    }
+
+    // 高斯-约当消元求 4×4 矩阵的逆，S 对称正定，无需选主元
+    private void invert4(double[] matrix, double[] result) {
+        int width = DIM_Z * 2;
+        for (int r = 0; r < DIM_Z; r++) {
+            for (int c = 0; c < DIM_Z; c++) {
+                augmented[r * width + c] = matrix[r * DIM_Z + c];
+                augmented[r * width + DIM_Z + c] = r == c ? 1 : 0;
+            }
+        }
+        for (int p = 0; p < DIM_Z; p++) {
+            double pivot = augmented[p * width + p];
+            for (int c = 0; c < width; c++) {
+                augmented[p * width + c] /= pivot;
+            }
+            for (int r = 0; r < DIM_Z; r++) {
+                if (r == p) {
+                    continue;
+                }
+                double factor = augmented[r * width + p];
+                if (factor != 0) {
+                    for (int c = 0; c < width; c++) {
+                        augmented[r * width + c] -= factor * augmented[p * width + c];
+                    }
+                }
+            }
+        }
+        for (int r = 0; r < DIM_Z; r++) {
+            System.arraycopy(augmented, r * width + DIM_Z, result, r * DIM_Z, DIM_Z);
+        }
+    }
+}
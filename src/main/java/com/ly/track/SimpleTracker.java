@@ -8,11 +8,12 @@ import java.util.*;
 import java.util.List;
 
 
-public class SimpleTracker {
+public class SimpleTracker implements Tracker {
     private Map<Long, TrackedObject> trackedObjects = new HashMap<>(); // 使用自定义 TrackedObject 来跟踪
     private long currentTrackId = 0;
 
     // 跟踪器更新方法
+    @Override
     public List<BoundingBox> update(List<BoundingBox> detections) {
         List<BoundingBox> updatedResults = new ArrayList<>();
 
@@ -53,6 +54,24 @@ public class SimpleTracker {
         return updatedResults;
     }
 
+    // 没有运动模型，返回目标最后的位置
+    @Override
+    public List<BoundingBox> predict() {
+        List<BoundingBox> boxes = new ArrayList<>(trackedObjects.size());
+        for (Map.Entry<Long, TrackedObject> entry : trackedObjects.entrySet()) {
+            BoundingBox last = entry.getValue().boundingBox;
+            BoundingBox box = new BoundingBox(last.getX(), last.getY(), last.getWidth(), last.getHeight(), last.getLabel(), last.getConfidence());
+            box.setTrackId(entry.getKey());
+            boxes.add(box);
+        }
+        return boxes;
+    }
+
+    @Override
+    public void reset() {
+        trackedObjects.clear();
+    }
+
     // 计算目标的中心点
     private Point getCenter(BoundingBox box) {
         int centerX = box.getX() + box.getWidth() / 2;
@@ -0,0 +1,123 @@
+package com.ly.track;
+
+import com.ly.onnx.model.BoundingBox;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * SORT 风格的跟踪器：每个目标带一个匀速卡尔曼滤波器，先把目标预测到当前帧，再与检测框按 IoU 做最优匹配。
+ * 目标在两次检测之间移动较远（如隔帧检测）时，预测位置仍能与新的检测框重叠，编号不会因此中断。
+ * <p>
+ * 滤波状态和协方差存放在 {@link KalmanBoxFilter} 的扁平数组中，稳定运行时逐帧不分配对象。
+ */
+public class SortTracker implements Tracker {
+
+    private final float minIou;
+    private final int maxLostFrames;
+
+    private final BoxMatcher matcher = new BoxMatcher();
+    private final KalmanBoxFilter filter = new KalmanBoxFilter(64);
+    // 各目标预测到当前帧的框，与滤波器、编号、丢失帧数按下标对应
+    private final Boxes predicted = new Boxes(64);
+    private long[] trackIds = new long[64];
+    private int[] lostFrames = new int[64];
+    private final Boxes detections = new Boxes(64);
+    private long nextTrackId;
+
+    public SortTracker() {
+        this(0.3f, 10);
+    }
+
+    /**
+     * @param minIou        预测框与检测框被视为同一物体的最小 IoU
+     * @param maxLostFrames 目标连续未匹配多少帧后移除，期间按速度继续外推
+     */
+    public SortTracker(float minIou, int maxLostFrames) {
+        this.minIou = minIou;
+        this.maxLostFrames = maxLostFrames;
+    }
+
+    @Override
+    public List<BoundingBox> update(List<BoundingBox> boxes) {
+        detections.clear();
+        for (BoundingBox box : boxes) {
+            detections.add(box);
+        }
+        for (int t = 0; t < predicted.count; t++) {
+            filter.predict(t);
+            filter.toBox(t, predicted, t);
+        }
+        matcher.match(predicted, detections, minIou);
+
+        for (int t = 0; t < predicted.count; t++) {
+            int d = matcher.trackMatch(t);
+            if (d >= 0) {
+                filter.update(t, detections.x1[d], detections.y1[d], detections.x2[d], detections.y2[d]);
+                predicted.scores[t] = detections.scores[d];
+                lostFrames[t] = 0;
+                boxes.get(d).setTrackId(trackIds[t]);
+            } else {
+                lostFrames[t]++;
+            }
+        }
+        // 倒序删除，交换到当前位置的末尾元素已经处理过
+        for (int t = predicted.count - 1; t >= 0; t--) {
+            if (lostFrames[t] > maxLostFrames) {
+                removeTrack(t);
+            }
+        }
+
+        for (int d = 0; d < detections.count; d++) {
+            if (matcher.detectionMatch(d) < 0) {
+                addTrack(boxes.get(d), d);
+            }
+        }
+        return boxes;
+    }
+
+    @Override
+    public List<BoundingBox> predict() {
+        List<BoundingBox> boxes = new ArrayList<>(predicted.count);
+        for (int t = 0; t < predicted.count; t++) {
+            filter.predict(t);
+            filter.toBox(t, predicted, t);
+            if (lostFrames[t] == 0) {
+                boxes.add(predicted.toBoundingBox(t, trackIds[t]));
+            }
+        }
+        return boxes;
+    }
+
+    private void addTrack(BoundingBox box, int d) {
+        int t = predicted.add(detections.x1[d], detections.y1[d], detections.x2[d], detections.y2[d], detections.labels[d], detections.scores[d]);
+        if (t >= trackIds.length) {
+            trackIds = Arrays.copyOf(trackIds, predicted.x1.length);
+            lostFrames = Arrays.copyOf(lostFrames, predicted.x1.length);
+        }
+        filter.ensureCapacity(predicted.x1.length);
+        filter.init(t, detections.x1[d], detections.y1[d], detections.x2[d], detections.y2[d]);
+        trackIds[t] = ++nextTrackId;
+        lostFrames[t] = 0;
+        box.setTrackId(trackIds[t]);
+    }
+
+    private void removeTrack(int t) {
+        int last = predicted.count - 1;
+        trackIds[t] = trackIds[last];
+        lostFrames[t] = lostFrames[last];
+        filter.copy(last, t);
+        predicted.removeBySwap(t);
+    }
+
+    @Override
+    public void reset() {
+        predicted.clear();
+    }
+
+    // 当前跟踪中的目标数，包括暂时丢失、仍在外推的
+    public int getTrackCount() {
+        return predicted.count;
+    }
+}
@@ -0,0 +1,32 @@
+package com.ly.track;
+
+import com.ly.onnx.model.BoundingBox;
+
+import java.util.List;
+
+/**
+ * 多目标跟踪器：逐帧输入检测框，为每个框分配跨帧稳定的 trackId。
+ * 同一实例只应由一个线程按帧顺序调用。
+ */
+public interface Tracker {
+
+    // 用本帧的检测结果更新跟踪状态，并为每个检测框设置 trackId
+    List<BoundingBox> update(List<BoundingBox> detections);
+
+    /**
+     * 同时提供低置信度框的更新，默认忽略低置信度框。
+     * 支持二次关联的跟踪器只为能延续已有目标的低置信度框设置 trackId，其余保持为 0。
+     */
+    default List<BoundingBox> update(List<BoundingBox> detections, List<BoundingBox> lowConfidenceDetections) {
+        return update(detections);
+    }
+
+    /**
+     * 不做检测的帧调用：把所有目标推进一帧，返回最近一次检测时仍被匹配到的目标的预测框（带 trackId）。
+     * 没有运动模型的跟踪器返回目标最后的位置。
+     */
+    List<BoundingBox> predict();
+
+    // 清空所有跟踪目标，用于跳转或切换视频源之后
+    void reset();
+}
@@ -0,0 +1,37 @@
+package com.ly.track;
+
+/**
+ * 按名称创建跟踪器，供命令行参数选择
+ */
+public final class Trackers {
+
+    // byte 跟踪器两阶段关联需要引擎同时给出的低置信度框下限
+    public static final float BYTE_LOW_CONFIDENCE = 0.1f;
+
+    private Trackers() {
+    }
+
+    // 是否带运动模型：隔帧检测时只有这类跟踪器能把框推进到当前帧，其余的框停在上一次检测的位置
+    public static boolean predictsMotion(String name) {
+        return "sort".equals(name) || "byte".equals(name);
+    }
+
+    /**
+     * @param name simple（逐个贪心匹配）、iou（IoU 最优匹配）、sort（卡尔曼预测 + IoU 最优匹配）
+     *             或 byte（在 sort 基础上用低置信度框做二次关联，需引擎配置 lowConfidenceThreshold）
+     */
+    public static Tracker create(String name) {
+        switch (name) {
+            case "simple":
+                return new SimpleTracker();
+            case "iou":
+                return new IouTracker();
+            case "sort":
+                return new SortTracker();
+            case "byte":
+                return new ByteTracker();
+            default:
+                throw new IllegalArgumentException("未知跟踪器：" + name + "，可选 simple、iou、sort、byte");
+        }
+    }
+}
@@ -0,0 +1,146 @@
+package com.ly.onnx.postprocess;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+
+/**
+ * 网格 NMS 与逐对比较的暴力实现对照
+ */
+public class NonMaximumSuppressionTest {
+
+    private static final float IOU_THRESHOLD = 0.5f;
+    private static final float SIGMA = 0.5f;
+    private static final float SCORE_THRESHOLD = 0.25f;
+
+    @Test
+    public void hardNmsMatchesBruteForce() {
+        for (long seed = 1; seed <= 20; seed++) {
+            for (boolean classAware : new boolean[]{true, false}) {
+                for (int topK : new int[]{0, 10}) {
+                    DetectionBuffer boxes = randomBoxes(new Random(seed), 300);
+                    int[] expected = bruteForceHard(boxes, classAware, topK);
+                    int[] actual = new NonMaximumSuppression(IOU_THRESHOLD, classAware, topK, false, SIGMA, SCORE_THRESHOLD)
+                            .apply(boxes);
+                    assertArrayEquals("seed " + seed + ", classAware " + classAware + ", topK " + topK, expected, actual);
+                }
+            }
+        }
+    }
+
+    @Test
+    public void softNmsMatchesBruteForce() {
+        for (long seed = 1; seed <= 20; seed++) {
+            for (boolean classAware : new boolean[]{true, false}) {
+                DetectionBuffer boxes = randomBoxes(new Random(seed), 300);
+                float[] expectedScores = new float[boxes.size()];
+                int[] expected = bruteForceSoft(boxes, classAware, expectedScores);
+                int[] actual = new NonMaximumSuppression(IOU_THRESHOLD, classAware, 0, true, SIGMA, SCORE_THRESHOLD)
+                        .apply(boxes);
+                String message = "seed " + seed + ", classAware " + classAware;
+                assertArrayEquals(message, expected, actual);
+                for (int i : actual) {
+                    assertEquals(message, expectedScores[i], boxes.score(i), 1e-6f);
+                }
+            }
+        }
+    }
+
+    @Test
+    public void emptyInputKeepsNothing() {
+        int[] kept = new NonMaximumSuppression(IOU_THRESHOLD, true, 0, false, SIGMA, SCORE_THRESHOLD)
+                .apply(new DetectionBuffer());
+        assertEquals(0, kept.length);
+    }
+
+    // 在 640×640 范围内随机生成互相重叠的候选框，3 个类别
+    private static DetectionBuffer randomBoxes(Random random, int count) {
+        DetectionBuffer boxes = new DetectionBuffer(16);
+        for (int i = 0; i < count; i++) {
+            float width = 20 + random.nextFloat() * 100;
+            float height = 20 + random.nextFloat() * 100;
+            float x = random.nextFloat() * (640 - width);
+            float y = random.nextFloat() * (640 - height);
+            boxes.add(x, y, x + width, y + height, 0.3f + random.nextFloat() * 0.7f, random.nextInt(3));
+        }
+        return boxes;
+    }
+
+    // 按分数从高到低逐个与所有已保留的框比较
+    private static int[] bruteForceHard(DetectionBuffer boxes, boolean classAware, int topK) {
+        Integer[] order = new Integer[boxes.size()];
+        for (int i = 0; i < order.length; i++) {
+            order[i] = i;
+        }
+        Arrays.sort(order, (a, b) -> boxes.score(a) != boxes.score(b)
+                ? Float.compare(boxes.score(b), boxes.score(a)) : Integer.compare(b, a));
+        List<Integer> kept = new ArrayList<>();
+        for (int i : order) {
+            if (topK > 0 && kept.size() >= topK) {
+                break;
+            }
+            boolean suppressed = false;
+            for (int j : kept) {
+                if ((!classAware || boxes.classId(i) == boxes.classId(j)) && iou(boxes, i, j) > IOU_THRESHOLD) {
+                    suppressed = true;
+                    break;
+                }
+            }
+            if (!suppressed) {
+                kept.add(i);
+            }
+        }
+        return kept.stream().mapToInt(Integer::intValue).toArray();
+    }
+
+    // 每轮线性查找当前分数最高的框，衰减其余所有框
+    private static int[] bruteForceSoft(DetectionBuffer boxes, boolean classAware, float[] scores) {
+        int n = boxes.size();
+        boolean[] removed = new boolean[n];
+        for (int i = 0; i < n; i++) {
+            scores[i] = boxes.score(i);
+        }
+        List<Integer> kept = new ArrayList<>();
+        while (kept.size() < n) {
+            int best = -1;
+            for (int i = 0; i < n; i++) {
+                if (!removed[i] && (best < 0 || scores[i] > scores[best])) {
+                    best = i;
+                }
+            }
+            if (scores[best] < SCORE_THRESHOLD) {
+                break;
+            }
+            removed[best] = true;
+            kept.add(best);
+            for (int j = 0; j < n; j++) {
+                if (removed[j] || (classAware && boxes.classId(best) != boxes.classId(j))) {
+                    continue;
+                }
+                float overlap = iou(boxes, best, j);
+                if (overlap > 0) {
+                    scores[j] *= (float) Math.exp(-(overlap * overlap) / SIGMA);
+                }
+            }
+        }
+        return kept.stream().mapToInt(Integer::intValue).toArray();
+    }
+
+    private static float iou(DetectionBuffer boxes, int a, int b) {
+        float interWidth = Math.min(boxes.x2(a), boxes.x2(b)) - Math.max(boxes.x1(a), boxes.x1(b));
+        float interHeight = Math.min(boxes.y2(a), boxes.y2(b)) - Math.max(boxes.y1(a), boxes.y1(b));
+        if (interWidth <= 0 || interHeight <= 0) {
+            return 0;
+        }
+        float intersection = interWidth * interHeight;
+        float areaA = (boxes.x2(a) - boxes.x1(a)) * (boxes.y2(a) - boxes.y1(a));
+        float areaB = (boxes.x2(b) - boxes.x1(b)) * (boxes.y2(b) - boxes.y1(b));
+        return intersection / (areaA + areaB - intersection);
+    }
+}
@@ -0,0 +1,110 @@
+package com.ly.onnx.preprocess;
+
+import org.opencv.core.*;
+import org.opencv.imgcodecs.Imgcodecs;
+import org.opencv.imgproc.Imgproc;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.FloatBuffer;
+
+/**
+ * 对比原预处理路径（缩放 → byte[] → float[] → float Mat → 填充 Mat → HWC float[] → CHW）
+ * 与 {@link LetterboxPreprocessor} 融合路径的耗时，并校验两者输出一致。
+ * <p>
+ * 位于测试源码目录，不随程序打包；在 IDE 中运行，或编译测试代码后以测试类路径运行：
+ * java com.ly.onnx.preprocess.PreprocessBenchmark [图片路径] [输入边长] [迭代次数]
+ */
+public class PreprocessBenchmark {
+
+    static {
+        nu.pattern.OpenCV.loadLocally();
+    }
+
+    public static void main(String[] args) {
+        String imagePath = args.length > 0 ? args[0] : "test/Snipaste_2024-10-10_23-55-18.jpg";
+        int inputSize = args.length > 1 ? Integer.parseInt(args[1]) : 640;
+        int iterations = args.length > 2 ? Integer.parseInt(args[2]) : 200;
+
+        Mat image = Imgcodecs.imread(imagePath);
+        if (image.empty()) {
+            throw new IllegalArgumentException("无法读取图片文件：" + imagePath);
+        }
+        int origWidth = image.width();
+        int origHeight = image.height();
+        float scalingFactor = Math.min((float) inputSize / origWidth, (float) inputSize / origHeight);
+        int newWidth = Math.round(origWidth * scalingFactor);
+        int newHeight = Math.round(origHeight * scalingFactor);
+        int xOffset = (inputSize - newWidth) / 2;
+        int yOffset = (inputSize - newHeight) / 2;
+
+        FloatBuffer fused = ByteBuffer.allocateDirect(3 * inputSize * inputSize * Float.BYTES)
+                .order(ByteOrder.nativeOrder()).asFloatBuffer();
+        LetterboxPreprocessor preprocessor = new LetterboxPreprocessor();
+
+        // 预热
+        for (int i = 0; i < 20; i++) {
+            legacy(image, newWidth, newHeight, inputSize, inputSize, xOffset, yOffset);
+            preprocessor.preprocess(image, newWidth, newHeight, inputSize, inputSize, xOffset, yOffset, fused);
+        }
+
+        long legacyStart = System.nanoTime();
+        float[] legacyOutput = null;
+        for (int i = 0; i < iterations; i++) {
+            legacyOutput = legacy(image, newWidth, newHeight, inputSize, inputSize, xOffset, yOffset);
+        }
+        long legacyNanos = System.nanoTime() - legacyStart;
+
+        long fusedStart = System.nanoTime();
+        for (int i = 0; i < iterations; i++) {
+            preprocessor.preprocess(image, newWidth, newHeight, inputSize, inputSize, xOffset, yOffset, fused);
+        }
+        long fusedNanos = System.nanoTime() - fusedStart;
+
+        float maxDiff = 0;
+        for (int i = 0; i < legacyOutput.length; i++) {
+            maxDiff = Math.max(maxDiff, Math.abs(legacyOutput[i] - fused.get(i)));
+        }
+
+        System.out.println("图片：" + imagePath + "（" + origWidth + "x" + origHeight + "），输入：" + inputSize + "x" + inputSize);
+        System.out.printf("原预处理：%.3f ms/帧%n", legacyNanos / 1e6 / iterations);
+        System.out.printf("融合预处理：%.3f ms/帧%n", fusedNanos / 1e6 / iterations);
+        System.out.println("输出最大差值：" + maxDiff);
+        preprocessor.release();
+    }
+
+    // 原 VideoPlayer.preprocessImage 中的单尺寸处理流程，仅用于对比
+    private static float[] legacy(Mat image, int newWidth, int newHeight, int targetWidth, int targetHeight,
+                                  int xOffset, int yOffset) {
+        Mat resizedImage = new Mat();
+        Imgproc.resize(image, resizedImage, new Size(newWidth, newHeight), 0, 0, Imgproc.INTER_AREA);
+        int rows = resizedImage.rows();
+        int cols = resizedImage.cols();
+        float[] floatData = new float[rows * cols * 3];
+        byte[] pixelData = new byte[rows * cols * 3];
+        resizedImage.get(0, 0, pixelData);
+        for (int i = 0; i < rows * cols; i++) {
+            int byteIndex = i * 3;
+            floatData[byteIndex] = (pixelData[byteIndex + 2] & 0xFF) / 255.0f;
+            floatData[byteIndex + 1] = (pixelData[byteIndex + 1] & 0xFF) / 255.0f;
+            floatData[byteIndex + 2] = (pixelData[byteIndex] & 0xFF) / 255.0f;
+        }
+        Mat floatImage = new Mat(rows, cols, CvType.CV_32FC3);
+        floatImage.put(0, 0, floatData);
+        Mat paddedImage = Mat.zeros(new Size(targetWidth, targetHeight), CvType.CV_32FC3);
+        floatImage.copyTo(paddedImage.submat(new Rect(xOffset, yOffset, newWidth, newHeight)));
+        int imageSize = targetWidth * targetHeight;
+        float[] chwData = new float[3 * imageSize];
+        float[] hwcData = new float[3 * imageSize];
+        paddedImage.get(0, 0, hwcData);
+        for (int c = 0; c < 3; c++) {
+            for (int i = 0; i < imageSize; i++) {
+                chwData[c * imageSize + i] = hwcData[i * 3 + c];
+            }
+        }
+        resizedImage.release();
+        paddedImage.release();
+        floatImage.release();
+        return chwData;
+    }
+}
@@ -0,0 +1,31 @@
+package com.ly.play.opencv;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class KeyframeIndexTest {
+
+    private final KeyframeIndex index = new KeyframeIndex(new double[]{0, 2000, 4000.5, 10000}, 300);
+
+    @Test
+    public void findsKeyframeAtOrBefore() {
+        assertEquals(0, index.keyframeMillisAtOrBefore(0), 0);
+        assertEquals(0, index.keyframeMillisAtOrBefore(1999), 0);
+        assertEquals(2000, index.keyframeMillisAtOrBefore(2000), 0);
+        assertEquals(4000.5, index.keyframeMillisAtOrBefore(9999), 0);
+        assertEquals(10000, index.keyframeMillisAtOrBefore(60000), 0);
+        // 早于第一个关键帧时落在第一个上
+        assertEquals(0, index.keyframeMillisAtOrBefore(-5), 0);
+    }
+
+    @Test
+    public void findsKeyframeAtOrAfter() {
+        assertEquals(0, index.keyframeMillisAtOrAfter(0), 0);
+        assertEquals(2000, index.keyframeMillisAtOrAfter(1), 0);
+        assertEquals(4000.5, index.keyframeMillisAtOrAfter(4000.5), 0);
+        assertEquals(10000, index.keyframeMillisAtOrAfter(4001), 0);
+        assertTrue(Double.isNaN(index.keyframeMillisAtOrAfter(10001)));
+    }
+}
@@ -0,0 +1,192 @@
+package com.ly.play.pipeline;
+
+import com.ly.onnx.model.BoundingBox;
+import com.ly.onnx.model.InferenceResult;
+import com.ly.track.Tracker;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+public class DetectionSchedulerTest {
+
+    @Test
+    public void detectsEveryIntervalFrames() {
+        DetectionScheduler scheduler = new DetectionScheduler(3, false);
+        boolean[] expected = {true, false, false, true, false, false, true, false, false};
+        for (int frame = 0; frame < expected.length; frame++) {
+            assertEquals("frame " + frame, expected[frame], scheduler.shouldDetect());
+        }
+        assertEquals(3, scheduler.getDetectedFrames());
+        assertEquals(6, scheduler.getPredictedFrames());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void rejectsNonPositiveInterval() {
+        new DetectionScheduler(0, false);
+    }
+
+    // 自适应触发只作用于记录检测结果之后才调用 shouldDetect 的帧，在途的帧不受影响
+    @Test
+    public void adaptiveTriggerAppliesToFramesDecodedAfterRecording() {
+        DetectionScheduler scheduler = new DetectionScheduler(10, true);
+        assertTrue(scheduler.shouldDetect());
+        // 第一帧的结果记录之前已解码、仍在途的两帧
+        assertFalse(scheduler.shouldDetect());
+        assertFalse(scheduler.shouldDetect());
+        // 检测结果出现新目标，触发的检测落在此后解码的帧上
+        scheduler.recordDetection(results(box(1, 0.9f)));
+        assertTrue(scheduler.shouldDetect());
+        assertFalse(scheduler.shouldDetect());
+
+        scheduler.recordDetection(results(box(1, 0.9f), box(2, 0.9f)));
+        assertTrue(scheduler.shouldDetect());
+        assertFalse(scheduler.shouldDetect());
+
+        // 目标数量不变、置信度正常时不提前检测
+        scheduler.recordDetection(results(box(1, 0.9f), box(2, 0.9f)));
+        assertFalse(scheduler.shouldDetect());
+
+        // 目标丢失
+        scheduler.recordDetection(results(box(1, 0.9f)));
+        assertTrue(scheduler.shouldDetect());
+
+        // 同一目标置信度明显下降
+        scheduler.recordDetection(results(box(1, 0.3f)));
+        assertTrue(scheduler.shouldDetect());
+    }
+
+    // 一直偏低的目标不触发，只比较同一目标前后两次的置信度
+    @Test
+    public void adaptiveTriggerComparesConfidencePerTrack() {
+        DetectionScheduler scheduler = new DetectionScheduler(10, true);
+        assertTrue(scheduler.shouldDetect());
+        scheduler.recordDetection(results(box(1, 0.3f), box(2, 0.9f)));
+        assertTrue(scheduler.shouldDetect());
+
+        scheduler.recordDetection(results(box(1, 0.28f), box(2, 0.85f)));
+        assertFalse(scheduler.shouldDetect());
+        // 编号 2 下降到 0.4，低于 0.85 的六成
+        scheduler.recordDetection(results(box(1, 0.3f), box(2, 0.4f)));
+        assertTrue(scheduler.shouldDetect());
+        // 新的低置信度再作为之后比较的基准
+        scheduler.recordDetection(results(box(1, 0.3f), box(2, 0.38f)));
+        assertFalse(scheduler.shouldDetect());
+        // 未分配编号的低置信度框不参与
+        scheduler.recordDetection(results(box(1, 0.3f), box(2, 0.38f), box(0, 0.1f)));
+        assertFalse(scheduler.shouldDetect());
+    }
+
+    @Test
+    public void nonAdaptiveIgnoresDetectionChanges() {
+        DetectionScheduler scheduler = new DetectionScheduler(10, false);
+        assertTrue(scheduler.shouldDetect());
+        scheduler.recordDetection(results(box(1, 0.9f), box(2, 0.2f)));
+        assertFalse(scheduler.shouldDetect());
+    }
+
+    @Test
+    public void staticFramesSkipDetectionUntilMotionReturns() {
+        DetectionScheduler scheduler = new DetectionScheduler(2, false);
+        assertTrue(scheduler.shouldDetect(true));
+        for (int frame = 0; frame < 5; frame++) {
+            assertFalse(scheduler.shouldDetect(false));
+        }
+        // 静止之后重新出现运动的第一帧立即检测
+        assertTrue(scheduler.shouldDetect(true));
+        assertFalse(scheduler.shouldDetect(true));
+        assertEquals(5, scheduler.getStaticFrames());
+        assertEquals(6, scheduler.getSkippedFrames());
+    }
+
+    @Test
+    public void requestDetectionForcesNextFrame() {
+        DetectionScheduler scheduler = new DetectionScheduler(5, false);
+        assertTrue(scheduler.shouldDetect());
+        assertFalse(scheduler.shouldDetect());
+        scheduler.requestDetection();
+        assertTrue(scheduler.shouldDetect());
+        assertFalse(scheduler.shouldDetect());
+        // 静止帧被要求检测时也检测
+        scheduler.requestDetection();
+        assertTrue(scheduler.shouldDetect(false));
+    }
+
+    @Test
+    public void predictsTrackedBoxesAndReusesUntracked() {
+        DetectionScheduler scheduler = new DetectionScheduler(3, false);
+        BoundingBox tracked = box(1, 0.9f);
+        BoundingBox lost = box(2, 0.9f);
+        BoundingBox untracked = box(0, 0.9f);
+        scheduler.recordDetection(results(tracked, lost, untracked));
+
+        BoundingBox moved = new BoundingBox(15, 10, 20, 20, "a", 0.9f);
+        moved.setTrackId(1);
+        List<InferenceResult> predicted = scheduler.predictResults(trackerPredicting(moved));
+        assertEquals(1, predicted.size());
+        assertEquals(Arrays.asList(moved, untracked), predicted.get(0).getBoundingBoxes());
+
+        // 静止帧不推进跟踪器，原样沿用
+        List<InferenceResult> reused = scheduler.predictResults(null);
+        assertEquals(Arrays.asList(tracked, lost, untracked), reused.get(0).getBoundingBoxes());
+    }
+
+    @Test
+    public void resetForcesDetectionAndClearsResults() {
+        DetectionScheduler scheduler = new DetectionScheduler(4, false);
+        assertTrue(scheduler.shouldDetect());
+        scheduler.recordDetection(results(box(1, 0.9f)));
+        assertFalse(scheduler.shouldDetect());
+        scheduler.reset();
+        assertTrue(scheduler.predictResults(null).isEmpty());
+        assertTrue(scheduler.shouldDetect());
+    }
+
+    @Test
+    public void predictedResultsAreNewInstances() {
+        DetectionScheduler scheduler = new DetectionScheduler(2, false);
+        List<InferenceResult> last = results(box(0, 0.9f));
+        scheduler.recordDetection(last);
+        List<InferenceResult> reused = scheduler.predictResults(null);
+        assertNotSame(last.get(0), reused.get(0));
+        assertSame(last.get(0).getBoundingBoxes().get(0), reused.get(0).getBoundingBoxes().get(0));
+    }
+
+    private static BoundingBox box(long trackId, float confidence) {
+        BoundingBox box = new BoundingBox(10, 10, 20, 20, "a", confidence);
+        box.setTrackId(trackId);
+        return box;
+    }
+
+    private static List<InferenceResult> results(BoundingBox... boxes) {
+        InferenceResult result = new InferenceResult();
+        result.setBoundingBoxes(new ArrayList<>(Arrays.asList(boxes)));
+        return Collections.singletonList(result);
+    }
+
+    private static Tracker trackerPredicting(BoundingBox... boxes) {
+        return new Tracker() {
+            @Override
+            public List<BoundingBox> update(List<BoundingBox> detections) {
+                return detections;
+            }
+
+            @Override
+            public List<BoundingBox> predict() {
+                return Arrays.asList(boxes);
+            }
+
+            @Override
+            public void reset() {
+            }
+        };
+    }
+}
@@ -0,0 +1,77 @@
+package com.ly.play.pipeline;
+
+import org.junit.Test;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class PresentationClockTest {
+
+    @Test
+    public void pacesFramesByTimestamp() throws InterruptedException {
+        PresentationClock clock = new PresentationClock(50);
+        long start = System.nanoTime();
+        for (int frame = 0; frame < 6; frame++) {
+            clock.awaitPresentation(frame * 20);
+        }
+        long elapsedMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+        assertTrue("elapsed " + elapsedMillis, elapsedMillis >= 95 && elapsedMillis < 300);
+    }
+
+    // 解码线程只读取对齐点，尚未对齐时不判定为落后
+    @Test
+    public void isBehindDoesNotAnchor() throws InterruptedException {
+        PresentationClock clock = new PresentationClock(25);
+        assertFalse(clock.isBehind(0));
+        clock.awaitPresentation(0);
+        Thread.sleep(120);
+        assertTrue(clock.isBehind(40));
+        assertFalse(clock.isBehind(400));
+    }
+
+    // 暂停后等待呈现的帧不再显示，恢复后立即以该帧重新对齐
+    @Test
+    public void pauseHoldsPresentationUntilResume() throws InterruptedException {
+        PresentationClock clock = new PresentationClock(25);
+        clock.awaitPresentation(0);
+        clock.pause();
+
+        CountDownLatch presented = new CountDownLatch(1);
+        Thread render = new Thread(() -> {
+            try {
+                clock.awaitPresentation(40);
+                presented.countDown();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        });
+        render.start();
+        assertFalse(presented.await(200, TimeUnit.MILLISECONDS));
+
+        clock.resume();
+        assertTrue(presented.await(100, TimeUnit.MILLISECONDS));
+        render.join();
+        // 暂停时长不算落后
+        assertFalse(clock.isBehind(80));
+    }
+
+    @Test
+    public void stopInterruptsPausedWait() throws InterruptedException {
+        PresentationClock clock = new PresentationClock(25);
+        clock.pause();
+        CountDownLatch interrupted = new CountDownLatch(1);
+        Thread render = new Thread(() -> {
+            try {
+                clock.awaitPresentation(0);
+            } catch (InterruptedException e) {
+                interrupted.countDown();
+            }
+        });
+        render.start();
+        render.interrupt();
+        assertTrue(interrupted.await(1, TimeUnit.SECONDS));
+    }
+}
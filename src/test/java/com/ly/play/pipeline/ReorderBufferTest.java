@@ -0,0 +1,119 @@
+package com.ly.play.pipeline;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+public class ReorderBufferTest {
+
+    @Test
+    public void restoresOrderAroundSkippedSequences() throws InterruptedException {
+        ReorderBuffer<Long> buffer = new ReorderBuffer<>(8);
+        buffer.put(3, 3L);
+        buffer.skip(2);
+        buffer.put(1, 1L);
+        buffer.skip(4);
+        buffer.put(5, 5L);
+        buffer.put(0, 0L);
+
+        assertEquals(Long.valueOf(0), buffer.poll(0, TimeUnit.MILLISECONDS));
+        assertEquals(Long.valueOf(1), buffer.poll(0, TimeUnit.MILLISECONDS));
+        assertEquals(Long.valueOf(3), buffer.poll(0, TimeUnit.MILLISECONDS));
+        assertEquals(Long.valueOf(5), buffer.poll(0, TimeUnit.MILLISECONDS));
+        assertNull(buffer.poll(0, TimeUnit.MILLISECONDS));
+        assertTrue(buffer.isEmpty());
+    }
+
+    @Test
+    public void waitsForMissingSequence() throws InterruptedException {
+        ReorderBuffer<Long> buffer = new ReorderBuffer<>(4);
+        buffer.put(1, 1L);
+        assertNull(buffer.poll(10, TimeUnit.MILLISECONDS));
+        buffer.skip(0);
+        assertEquals(Long.valueOf(1), buffer.poll(0, TimeUnit.MILLISECONDS));
+    }
+
+    // 多个生产者乱序放入、随机跳过部分顺序号，容量小于总数，消费者仍按顺序取出未跳过的元素
+    @Test
+    public void concurrentProducersWithSkipsKeepOrder() throws InterruptedException {
+        int total = 2000;
+        int producers = 4;
+        ReorderBuffer<Long> buffer = new ReorderBuffer<>(16);
+        Random random = new Random(7);
+        boolean[] skipped = new boolean[total];
+        List<Long> expected = new ArrayList<>();
+        for (int i = 0; i < total; i++) {
+            skipped[i] = random.nextInt(5) == 0;
+            if (!skipped[i]) {
+                expected.add((long) i);
+            }
+        }
+
+        List<Thread> threads = new ArrayList<>();
+        for (int p = 0; p < producers; p++) {
+            int first = p;
+            threads.add(new Thread(() -> {
+                // 每个生产者负责间隔为 producers 的顺序号，小范围内打乱提交顺序
+                List<Long> own = new ArrayList<>();
+                for (long sequence = first; sequence < total; sequence += producers) {
+                    own.add(sequence);
+                }
+                Random shuffle = new Random(first);
+                try {
+                    for (int from = 0; from < own.size(); from += 2) {
+                        List<Long> chunk = own.subList(from, Math.min(from + 2, own.size()));
+                        Collections.shuffle(chunk, shuffle);
+                        for (long sequence : chunk) {
+                            if (skipped[(int) sequence]) {
+                                buffer.skip(sequence);
+                            } else {
+                                buffer.put(sequence, sequence);
+                            }
+                        }
+                    }
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }));
+        }
+        for (Thread thread : threads) {
+            thread.start();
+        }
+
+        List<Long> actual = new ArrayList<>();
+        while (actual.size() < expected.size()) {
+            Long item = buffer.poll(5, TimeUnit.SECONDS);
+            if (item == null) {
+                break;
+            }
+            actual.add(item);
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        assertEquals(expected, actual);
+    }
+
+    @Test
+    public void resetReturnsPendingItemsAndRestarts() throws InterruptedException {
+        ReorderBuffer<Long> buffer = new ReorderBuffer<>(4);
+        buffer.put(1, 1L);
+        buffer.skip(2);
+        buffer.put(3, 3L);
+
+        List<Long> removed = buffer.reset(10);
+        Collections.sort(removed);
+        assertEquals(Arrays.asList(1L, 3L), removed);
+        buffer.put(10, 10L);
+        assertEquals(Long.valueOf(10), buffer.poll(0, TimeUnit.MILLISECONDS));
+    }
+}
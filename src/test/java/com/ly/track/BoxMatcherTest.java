@@ -0,0 +1,132 @@
+package com.ly.track;
+
+import org.junit.Test;
+
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class BoxMatcherTest {
+
+    private static final float MIN_IOU = 0.3f;
+
+    // 两组相距很远的框各自成为一个分量，组内按最优而非贪心匹配
+    @Test
+    public void matchesSeparateComponentsIndependently() {
+        Boxes tracks = new Boxes(4);
+        Boxes detections = new Boxes(4);
+        // 分量一：贪心先取 IoU 最高的 t1-d0 后 t0 无框可配，最优是 t0-d0、t1-d1
+        tracks.add(0, 0, 10, 10, "a", 1);
+        tracks.add(3, 0, 13, 10, "a", 1);
+        detections.add(2, 0, 12, 10, "a", 1);
+        detections.add(8, 0, 18, 10, "a", 1);
+        // 分量二：远处的一对
+        tracks.add(1000, 1000, 1050, 1050, "a", 1);
+        detections.add(1002, 1001, 1052, 1051, "a", 1);
+
+        BoxMatcher matcher = new BoxMatcher();
+        matcher.match(tracks, detections, MIN_IOU);
+        assertEquals(0, matcher.trackMatch(0));
+        assertEquals(1, matcher.trackMatch(1));
+        assertEquals(2, matcher.trackMatch(2));
+        assertEquals(2, matcher.detectionMatch(2));
+    }
+
+    // 目标多于检测框时分量内转置求解
+    @Test
+    public void matchesWhenTracksOutnumberDetections() {
+        Boxes tracks = new Boxes(4);
+        Boxes detections = new Boxes(4);
+        tracks.add(0, 0, 10, 10, "a", 1);
+        tracks.add(2, 0, 12, 10, "a", 1);
+        tracks.add(5, 0, 15, 10, "a", 1);
+        detections.add(5, 0, 15, 10, "a", 1);
+
+        BoxMatcher matcher = new BoxMatcher();
+        matcher.match(tracks, detections, MIN_IOU);
+        assertEquals(-1, matcher.trackMatch(0));
+        assertEquals(-1, matcher.trackMatch(1));
+        assertEquals(0, matcher.trackMatch(2));
+        assertEquals(2, matcher.detectionMatch(0));
+    }
+
+    @Test
+    public void ignoresDifferentLabels() {
+        Boxes tracks = new Boxes(1);
+        Boxes detections = new Boxes(1);
+        tracks.add(0, 0, 10, 10, "a", 1);
+        detections.add(0, 0, 10, 10, "b", 1);
+
+        BoxMatcher matcher = new BoxMatcher();
+        matcher.match(tracks, detections, MIN_IOU);
+        assertEquals(-1, matcher.trackMatch(0));
+        assertEquals(-1, matcher.detectionMatch(0));
+    }
+
+    // 随机生成若干簇重叠框，匹配的 IoU 之和应等于枚举得到的最优值
+    @Test
+    public void matchesOptimallyOnRandomScenes() {
+        Random random = new Random(5);
+        BoxMatcher matcher = new BoxMatcher();
+        for (int round = 0; round < 300; round++) {
+            Boxes tracks = new Boxes(4);
+            Boxes detections = new Boxes(4);
+            int clusters = 1 + random.nextInt(3);
+            for (int c = 0; c < clusters; c++) {
+                float originX = c * 500;
+                int trackCount = random.nextInt(4);
+                int detectionCount = random.nextInt(4);
+                for (int i = 0; i < trackCount; i++) {
+                    addJittered(tracks, random, originX);
+                }
+                for (int i = 0; i < detectionCount; i++) {
+                    addJittered(detections, random, originX);
+                }
+            }
+            matcher.match(tracks, detections, MIN_IOU);
+
+            double matched = 0;
+            for (int t = 0; t < tracks.count; t++) {
+                int d = matcher.trackMatch(t);
+                if (d >= 0) {
+                    assertEquals(t, matcher.detectionMatch(d));
+                    assertEquals(tracks.labels[t], detections.labels[d]);
+                    float iou = Boxes.iou(tracks, t, detections, d);
+                    assertTrue(iou >= MIN_IOU);
+                    matched += iou;
+                }
+            }
+            assertEquals("round " + round, bruteForce(tracks, detections, 0, new boolean[detections.count]), matched, 1e-4);
+        }
+    }
+
+    private static void addJittered(Boxes boxes, Random random, float originX) {
+        float x = originX + random.nextFloat() * 30;
+        float y = random.nextFloat() * 30;
+        float width = 40 + random.nextFloat() * 20;
+        float height = 40 + random.nextFloat() * 20;
+        boxes.add(x, y, x + width, y + height, random.nextInt(4) == 0 ? "b" : "a", 1);
+    }
+
+    // 每个目标要么不匹配，要么匹配一个未用过的同标签、IoU 达标的检测框
+    private static double bruteForce(Boxes tracks, Boxes detections, int track, boolean[] used) {
+        if (track == tracks.count) {
+            return 0;
+        }
+        double best = bruteForce(tracks, detections, track + 1, used);
+        for (int d = 0; d < detections.count; d++) {
+            if (used[d] || !tracks.labels[track].equals(detections.labels[d])) {
+                continue;
+            }
+            float iou = Boxes.iou(tracks, track, detections, d);
+            if (iou < MIN_IOU) {
+                continue;
+            }
+            used[d] = true;
+            best = Math.max(best, iou + bruteForce(tracks, detections, track + 1, used));
+            used[d] = false;
+        }
+        return best;
+    }
+}
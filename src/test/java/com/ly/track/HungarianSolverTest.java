@@ -0,0 +1,106 @@
+package com.ly.track;
+
+import org.junit.Test;
+
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+
+public class HungarianSolverTest {
+
+    @Test
+    public void solvesSquareMatrix() {
+        // 逐行贪心取最小值得到 1 + 9，最优为 2 + 1
+        double[] cost = {
+                1, 2,
+                1, 9,
+        };
+        int[] assignment = new int[2];
+        new HungarianSolver().solve(cost, 2, 2, assignment);
+        assertEquals(1, assignment[0]);
+        assertEquals(0, assignment[1]);
+    }
+
+    @Test
+    public void solvesRandomRectangularMatrices() {
+        Random random = new Random(11);
+        HungarianSolver solver = new HungarianSolver();
+        for (int round = 0; round < 500; round++) {
+            int rows = 1 + random.nextInt(5);
+            int cols = rows + random.nextInt(3);
+            double[] cost = randomMatrix(random, rows, cols);
+            int[] assignment = new int[rows];
+            solver.solve(cost, rows, cols, assignment);
+            assertDistinct(assignment, rows);
+            assertEquals(bruteForce(cost, rows, cols), total(cost, rows, cols, assignment), 1e-9);
+        }
+    }
+
+    // 行数多于列数的矩阵转置后求解，与原矩阵的最优值相同
+    @Test
+    public void solvesTransposedMatrices() {
+        Random random = new Random(23);
+        HungarianSolver solver = new HungarianSolver();
+        for (int round = 0; round < 500; round++) {
+            int cols = 1 + random.nextInt(4);
+            int rows = cols + 1 + random.nextInt(3);
+            double[] cost = randomMatrix(random, rows, cols);
+            double[] transposed = new double[rows * cols];
+            for (int r = 0; r < rows; r++) {
+                for (int c = 0; c < cols; c++) {
+                    transposed[c * rows + r] = cost[r * cols + c];
+                }
+            }
+            int[] assignment = new int[cols];
+            solver.solve(transposed, cols, rows, assignment);
+            assertDistinct(assignment, cols);
+            assertEquals(bruteForce(transposed, cols, rows), total(transposed, cols, rows, assignment), 1e-9);
+        }
+    }
+
+    private static double[] randomMatrix(Random random, int rows, int cols) {
+        double[] cost = new double[rows * cols];
+        for (int i = 0; i < cost.length; i++) {
+            // 取少量离散值，制造代价相等的情况
+            cost[i] = random.nextInt(10) / 10.0;
+        }
+        return cost;
+    }
+
+    private static void assertDistinct(int[] assignment, int rows) {
+        for (int a = 0; a < rows; a++) {
+            for (int b = a + 1; b < rows; b++) {
+                assertNotEquals(assignment[a], assignment[b]);
+            }
+        }
+    }
+
+    private static double total(double[] cost, int rows, int cols, int[] assignment) {
+        double sum = 0;
+        for (int r = 0; r < rows; r++) {
+            sum += cost[r * cols + assignment[r]];
+        }
+        return sum;
+    }
+
+    // 枚举每行到不同列的所有分配
+    private static double bruteForce(double[] cost, int rows, int cols) {
+        return bruteForce(cost, rows, cols, 0, new boolean[cols]);
+    }
+
+    private static double bruteForce(double[] cost, int rows, int cols, int row, boolean[] used) {
+        if (row == rows) {
+            return 0;
+        }
+        double best = Double.POSITIVE_INFINITY;
+        for (int c = 0; c < cols; c++) {
+            if (!used[c]) {
+                used[c] = true;
+                best = Math.min(best, cost[row * cols + c] + bruteForce(cost, rows, cols, row + 1, used));
+                used[c] = false;
+            }
+        }
+        return best;
+    }
+}
@@ -0,0 +1,87 @@
+package com.ly.track;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+
+public class KalmanBoxFilterTest {
+
+    private static final float VX = 3;
+    private static final float VY = -2;
+    private static final float WIDTH = 40;
+    private static final float HEIGHT = 60;
+
+    // 匀速运动的框逐帧预测、更新后，单纯预测也能落到真实位置上
+    @Test
+    public void convergesOnConstantVelocityBox() {
+        KalmanBoxFilter filter = new KalmanBoxFilter(1);
+        filter.init(0, x1(0), y1(0), x1(0) + WIDTH, y1(0) + HEIGHT);
+        for (int frame = 1; frame <= 30; frame++) {
+            filter.predict(0);
+            filter.update(0, x1(frame), y1(frame), x1(frame) + WIDTH, y1(frame) + HEIGHT);
+        }
+
+        Boxes boxes = new Boxes(1);
+        boxes.add(0, 0, 0, 0, "a", 1);
+        // 之后不再观测，连续预测 5 帧
+        for (int frame = 31; frame <= 35; frame++) {
+            filter.predict(0);
+            filter.toBox(0, boxes, 0);
+            assertBox(frame, boxes, 0.5f);
+        }
+    }
+
+    @Test
+    public void keepsStationaryBoxInPlace() {
+        KalmanBoxFilter filter = new KalmanBoxFilter(1);
+        filter.init(0, 100, 100, 140, 160);
+        Boxes boxes = new Boxes(1);
+        boxes.add(0, 0, 0, 0, "a", 1);
+        for (int frame = 0; frame < 20; frame++) {
+            filter.predict(0);
+            filter.update(0, 100, 100, 140, 160);
+        }
+        filter.predict(0);
+        filter.toBox(0, boxes, 0);
+        assertEquals(100, boxes.x1[0], 1e-3);
+        assertEquals(100, boxes.y1[0], 1e-3);
+        assertEquals(140, boxes.x2[0], 1e-3);
+        assertEquals(160, boxes.y2[0], 1e-3);
+    }
+
+    // 交换删除后被复制的目标状态不变
+    @Test
+    public void copiesStateBetweenSlots() {
+        KalmanBoxFilter filter = new KalmanBoxFilter(1);
+        filter.ensureCapacity(2);
+        filter.init(0, 0, 0, 10, 10);
+        filter.init(1, x1(0), y1(0), x1(0) + WIDTH, y1(0) + HEIGHT);
+        for (int frame = 1; frame <= 30; frame++) {
+            filter.predict(1);
+            filter.update(1, x1(frame), y1(frame), x1(frame) + WIDTH, y1(frame) + HEIGHT);
+        }
+        filter.copy(1, 0);
+
+        Boxes boxes = new Boxes(1);
+        boxes.add(0, 0, 0, 0, "a", 1);
+        filter.predict(0);
+        filter.toBox(0, boxes, 0);
+        assertBox(31, boxes, 0.5f);
+    }
+
+    private static float x1(int frame) {
+        return 100 + VX * frame;
+    }
+
+    private static float y1(int frame) {
+        return 300 + VY * frame;
+    }
+
+    private static void assertBox(int frame, Boxes boxes, float tolerance) {
+        String message = "frame " + frame;
+        assertEquals(message, x1(frame), boxes.x1[0], tolerance);
+        assertEquals(message, y1(frame), boxes.y1[0], tolerance);
+        assertEquals(message, x1(frame) + WIDTH, boxes.x2[0], tolerance);
+        assertEquals(message, y1(frame) + HEIGHT, boxes.y2[0], tolerance);
+    }
+}